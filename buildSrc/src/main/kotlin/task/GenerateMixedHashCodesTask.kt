@@ -0,0 +1,134 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package task
+
+import model.Versions
+import org.gradle.api.provider.Provider
+import org.gradle.api.tasks.Input
+import java.io.File
+
+/**
+ * Generate the `HashCodesMixed` class, with a `hash` overload for every sequence of `int`, `long` and `Object`
+ * arguments mixing at least two of these types, so that hashing such a combination never boxes.
+ *
+ * @since XXX
+ */
+abstract class GenerateMixedHashCodesTask : AbstractGenerateInfoFileTask() {
+    init {
+        description = "Generate hashcode overloads mixing int, long and Object arguments."
+    }
+
+    /**
+     * A type of argument: its Java type, the prefix of the parameters, their description, and the hand-written
+     * class hashing it.
+     */
+    private enum class ArgType(
+        val javaType: String,
+        val prefix: String,
+        val description: String,
+        val hasher: String,
+    ) {
+        INT("int", "i", "integer", "HashCodesInt"),
+        LONG("long", "l", "long", "HashCodesLong"),
+        OBJECT("Object", "o", "object", "HashCodes"),
+    }
+
+    @Input
+    val className = "HashCodesMixed"
+
+    /** The maximum number of arguments of the generated overloads */
+    @get:Input
+    abstract var maxArity: Provider<Int>
+
+    override val outputFile: File
+        get() = project.projectDir.resolve(
+            "src-generated/main/java/${hashCodesPackage().replace('.', '/')}/$className.java"
+        )
+
+    private fun hashCodesPackage(): String {
+        return "${moduleName()}.hashcodes"
+    }
+
+    override fun generateBody(versions: Versions): String {
+        val s = System.lineSeparator()
+        val methods = (2..maxArity.get()).flatMap { arity -> signatures(arity) }
+            .filter { types -> types.distinct().size > 1 }
+            .joinToString(s + s) { types -> generateMethod(types) }
+        return """
+            |// Do not edit this generated file (see GenerateMixedHashCodesTask)
+            |package ${hashCodesPackage()};
+            |
+            |/**
+            | * Hashcodes of arguments mixing integers, longs and objects, without boxing the primitives.
+            | * <p>
+            | * The result is the one of {@link ${hashCodesPackage()}.HashCodes} on the boxed arguments, each primitive
+            | * being hashed as {@link ${hashCodesPackage()}.HashCodesInt} and
+            | * {@link ${hashCodesPackage()}.HashCodesLong} do.
+            | *
+            | * @since ${versions.getModuleFirstVersion(project.name)}
+            | */
+            |public final class $className {
+            |
+            |    private $className() {
+            |        throw new AssertionError("No ${hashCodesPackage()}.$className instances for you!");
+            |    }
+            |
+            |    private static int hashAux(
+            |            final int res,
+            |            final int hash
+            |    ) {
+            |        return (res << 5) - res + hash;
+            |    }
+            |
+            |$methods
+            |}
+            |""".trimMargin()
+    }
+
+    /**
+     * @return all the sequences of `arity` argument types
+     */
+    private fun signatures(arity: Int): List<List<ArgType>> {
+        if (arity == 0) return listOf(emptyList())
+        return signatures(arity - 1).flatMap { prefix -> ArgType.entries.map { t -> prefix + t } }
+    }
+
+    private fun generateMethod(types: List<ArgType>): String {
+        val s = System.lineSeparator()
+        val names = types.mapIndexed { i, t -> "${t.prefix}${i + 1}" }
+        val params = types.indices.joinToString(s) { i ->
+            "     * @param ${names[i]} ${types[i].description} part of the hashcode to compute"
+        }
+        val args = types.indices.joinToString(",$s") { i -> "            final ${types[i].javaType} ${names[i]}" }
+        val body = types.indices.joinToString(s) { i ->
+            val hash = "${types[i].hasher}.hash(${names[i]})"
+            if (i == 0) "        int result = $hash;" else "        result = hashAux(result, $hash);"
+        }
+        return """
+            |    /**
+            |$params
+            |     *
+            |     * @return a hashcode combining all arguments
+            |     */
+            |    public static int hash(
+            |$args
+            |    ) {
+            |$body
+            |        return result;
+            |    }
+            """.trimMargin()
+    }
+}
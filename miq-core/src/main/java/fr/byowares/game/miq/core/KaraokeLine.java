@@ -0,0 +1,81 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core;
+
+import java.util.Objects;
+
+/**
+ * A line with the timing of each of its words, for karaoke rounds.
+ * <p>
+ * The word timings wrap the line instead of being part of it, so that lines keep their identity, and timelines
+ * their footprint, whether words are timed or not.
+ *
+ * @param line  The line
+ * @param words The timing of each word of the line
+ *
+ * @since XXX
+ */
+public record KaraokeLine(TimeCodedLine line, WordTimings words) {
+
+    /**
+     * @param line  The line
+     * @param words The timing of each word of the line
+     *
+     * @throws java.lang.NullPointerException     if and only if an argument, or the range or text of the line, is
+     *                                            {@code null}
+     * @throws java.lang.IllegalArgumentException if and only if the words end after the line, or outside of its
+     *                                            text
+     */
+    public KaraokeLine {
+        Objects.requireNonNull(line, "line must not be null");
+        Objects.requireNonNull(words, "words must not be null");
+        final long duration = Objects.requireNonNull(line.range(), "line.range() must not be null").duration();
+        final int length = Objects.requireNonNull(line.line(), "line.line() must not be null").length();
+        if (words.span() > duration)
+            throw new IllegalArgumentException("words (" + words.span() + ") must not last longer than the line (" + duration + ")");
+        if (words.textSpan() > length)
+            throw new IllegalArgumentException("words must be located inside the line text (" + length + " chars)");
+    }
+
+    /**
+     * @param time an absolute time
+     *
+     * @return the index of the word being sung at that time, or -1 if none is
+     */
+    public int activeWord(final long time) {
+        return this.words.indexAt(time - this.line.range().start());
+    }
+
+    /**
+     * @param range the new period of the line
+     *
+     * @return a copy of this line sung during {@code range}, keeping the word timings only if they still fit
+     */
+    public KaraokeLine withRange(final Range range) {
+        final boolean keepWords = range.start() == this.line.range().start() && this.words.span() <= range.duration();
+        return new KaraokeLine(this.line.withRange(range), keepWords ? this.words : WordTimings.NONE);
+    }
+
+    /**
+     * @param offset the time to add to the range of the line, possibly negative
+     *
+     * @return a copy of this line sung {@code offset} later, with the same word timings
+     */
+    public KaraokeLine shiftedBy(final long offset) {
+        if (offset == 0L) return this;
+        return new KaraokeLine(this.line.shiftedBy(offset), this.words);
+    }
+}
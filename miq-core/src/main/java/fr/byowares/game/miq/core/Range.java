@@ -69,6 +69,27 @@ public static Range fromRelativeTimes(
         return new Range(start, start + duration);
     }
 
+    /**
+     * @return the starting time of the range
+     */
+    public long start() {
+        return this.start;
+    }
+
+    /**
+     * @return the ending time of the range
+     */
+    public long end() {
+        return this.end;
+    }
+
+    /**
+     * @return the duration of the range, always positive or zero
+     */
+    public long duration() {
+        return this.end - this.start;
+    }
+
     @Override
     public int compareTo(final Range o) {
         final int res = Long.compare(this.start, o.start);
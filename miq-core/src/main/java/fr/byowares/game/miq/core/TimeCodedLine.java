@@ -24,6 +24,26 @@
 public record TimeCodedLine(Range range, CharSequence line)
         implements Comparable<TimeCodedLine> {
 
+    /**
+     * @param range the new period of the line
+     *
+     * @return a copy of this line sung during {@code range}
+     */
+    public TimeCodedLine withRange(final Range range) {
+        return new TimeCodedLine(range, this.line);
+    }
+
+    /**
+     * @param offset the time to add to the range of the line, possibly negative
+     *
+     * @return a copy of this line sung {@code offset} later
+     */
+    public TimeCodedLine shiftedBy(final long offset) {
+        if (offset == 0L) return this;
+        return new TimeCodedLine(Range.fromAbsoluteTimes(this.range.start() + offset, this.range.end() + offset),
+                                 this.line);
+    }
+
     @Override
     public int compareTo(final TimeCodedLine o) {
         return this.range.compareTo(o.range);
@@ -0,0 +1,189 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core;
+
+import fr.byowares.game.utils.hashcodes.HashCodesInt;
+
+import java.util.Arrays;
+
+/**
+ * Timing of each word (or syllable) of a line, for karaoke rounds.
+ * <p>
+ * Instead of one {@link fr.byowares.game.miq.core.Range} per word, times are stored as deltas from the start of
+ * the line, which fit in an {@code int}, and words are located in the text by char offsets. All of them are
+ * packed in two arrays, i.e. 16 bytes per word plus two array headers. Words are sorted by start and do not
+ * overlap, so the active word is found by a binary search.
+ *
+ * @since XXX
+ */
+public final class WordTimings {
+
+    /**
+     * Timings of a line without word-level information.
+     */
+    public static final WordTimings NONE = new WordTimings(new int[0], new int[0]);
+
+    // [start0, end0, start1, end1, ...] relative to the start of the line
+    private final int[] times;
+    // [begin0, end0, begin1, end1, ...] char offsets in the line
+    private final int[] text;
+
+    private WordTimings(
+            final int[] times,
+            final int[] text
+    ) {
+        this.times = times;
+        this.text = text;
+    }
+
+    /**
+     * @param lineStart  the starting time of the line
+     * @param starts     the starting time of each word
+     * @param ends       the ending time of each word
+     * @param textBegins the index of the first char of each word in the line
+     * @param textEnds   the index after the last char of each word in the line
+     *
+     * @return the timings of the words
+     *
+     * @throws java.lang.IllegalArgumentException if and only if the arrays have different lengths, a word starts
+     *                                            before the line, ends before starting, overlaps the previous word,
+     *                                            or is too far from the line start to fit in an {@code int}, or if
+     *                                            text offsets are negative or reversed
+     */
+    public static WordTimings fromAbsoluteTimes(
+            final long lineStart,
+            final long[] starts,
+            final long[] ends,
+            final int[] textBegins,
+            final int[] textEnds
+    ) {
+        final int n = starts.length;
+        if (ends.length != n || textBegins.length != n || textEnds.length != n)
+            throw new IllegalArgumentException("starts, ends, textBegins and textEnds must have the same length");
+        if (n == 0) return NONE;
+        final int[] times = new int[2 * n];
+        final int[] text = new int[2 * n];
+        long previousEnd = lineStart;
+        for (int i = 0; i < n; i++) {
+            if (starts[i] < previousEnd)
+                throw new IllegalArgumentException("word " + i + " starts (" + starts[i] + ") before " + previousEnd);
+            if (starts[i] > ends[i])
+                throw new IllegalArgumentException("word " + i + " start (" + starts[i] + ") must be inferior or equals to end (" + ends[i] + ")");
+            if (ends[i] - lineStart > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("word " + i + " ends too far from the line start");
+            if (textBegins[i] < 0 || textBegins[i] > textEnds[i])
+                throw new IllegalArgumentException("word " + i + " text offsets [" + textBegins[i] + ", " + textEnds[i] + "] are invalid");
+            times[2 * i] = (int) (starts[i] - lineStart);
+            times[2 * i + 1] = (int) (ends[i] - lineStart);
+            text[2 * i] = textBegins[i];
+            text[2 * i + 1] = textEnds[i];
+            previousEnd = ends[i];
+        }
+        return new WordTimings(times, text);
+    }
+
+    /**
+     * @return the number of timed words
+     */
+    public int size() {
+        return this.times.length >>> 1;
+    }
+
+    /**
+     * @return the offset, from the line start, at which the last word ends, or 0 if there is no word
+     */
+    public int span() {
+        return this.times.length == 0 ? 0 : this.times[this.times.length - 1];
+    }
+
+    /**
+     * @return the greatest offset after the last char of a word, or 0 if there is no word; words are not required to
+     *         be in text order, so this is not necessarily the end of the last word
+     */
+    int textSpan() {
+        int span = 0;
+        for (int i = 1; i < this.text.length; i += 2) span = Math.max(span, this.text[i]);
+        return span;
+    }
+
+    /**
+     * @param word the index of the word
+     *
+     * @return the starting time of the word, relative to the start of the line
+     */
+    public int startOffset(final int word) {
+        return this.times[2 * word];
+    }
+
+    /**
+     * @param word the index of the word
+     *
+     * @return the ending time of the word, relative to the start of the line
+     */
+    public int endOffset(final int word) {
+        return this.times[2 * word + 1];
+    }
+
+    /**
+     * @param word the index of the word
+     *
+     * @return the index of the first char of the word in the line
+     */
+    public int textBegin(final int word) {
+        return this.text[2 * word];
+    }
+
+    /**
+     * @param word the index of the word
+     *
+     * @return the index after the last char of the word in the line
+     */
+    public int textEnd(final int word) {
+        return this.text[2 * word + 1];
+    }
+
+    /**
+     * @param offset a time relative to the start of the line
+     *
+     * @return the index of the word being sung at that time (start inclusive, end exclusive), or -1 if none is
+     */
+    public int indexAt(final long offset) {
+        int low = 0;
+        int high = this.size() - 1;
+        // Find the last word starting at or before the offset
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            if (this.times[2 * mid] <= offset) low = mid + 1;
+            else high = mid - 1;
+        }
+        return high >= 0 && offset < this.times[2 * high + 1] ? high : -1;
+    }
+
+    @Override
+    public int hashCode() {
+        return HashCodesInt.hash(Arrays.hashCode(this.times), Arrays.hashCode(this.text));
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        return o instanceof WordTimings w && Arrays.equals(this.times, w.times) && Arrays.equals(this.text, w.text);
+    }
+
+    @Override
+    public String toString() {
+        return "WordTimings" + Arrays.toString(this.times);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.answer;
+
+/**
+ * A slot of an {@link AnswerRingBuffer}, overwritten by every answer published in it.
+ * <p>
+ * An event is only valid during the {@link AnswerHandler#onAnswer(AnswerEvent, boolean)} call it is given to; its
+ * values must be copied to be kept.
+ *
+ * @since XXX
+ */
+public final class AnswerEvent {
+
+    private final byte[] guess;
+    private long playerId;
+    private int guessLength;
+    private long nanoTime;
+
+    AnswerEvent(final int maxGuessBytes) {
+        this.guess = new byte[maxGuessBytes];
+    }
+
+    void set(
+            final long playerId,
+            final byte[] guess,
+            final int offset,
+            final int length,
+            final long nanoTime
+    ) {
+        this.playerId = playerId;
+        System.arraycopy(guess, offset, this.guess, 0, length);
+        this.guessLength = length;
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * @return the id of the player who answered
+     */
+    public long playerId() {
+        return this.playerId;
+    }
+
+    /**
+     * @return the buffer of the slot, whose {@link #guessLength()} first bytes are the guess
+     */
+    public byte[] guessBytes() {
+        return this.guess;
+    }
+
+    /**
+     * @return the number of bytes of the guess
+     */
+    public int guessLength() {
+        return this.guessLength;
+    }
+
+    /**
+     * @return the {@link java.lang.System#nanoTime()} at which the answer was received
+     */
+    public long nanoTime() {
+        return this.nanoTime;
+    }
+}
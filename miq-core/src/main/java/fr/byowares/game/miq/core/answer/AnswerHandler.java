@@ -0,0 +1,34 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.answer;
+
+/**
+ * Consumer of the answers drained from an {@link AnswerRingBuffer}.
+ *
+ * @since XXX
+ */
+@FunctionalInterface
+public interface AnswerHandler {
+
+    /**
+     * @param event      the answer, only valid during the call
+     * @param endOfBatch {@code true} if and only if this is the last answer of the drained batch, e.g. to flush
+     */
+    void onAnswer(
+            AnswerEvent event,
+            boolean endOfBatch
+    );
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.answer;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded multi-producer, single-consumer queue of answers, which does not allocate once created.
+ * <p>
+ * The events are preallocated slots of a ring, and answers are copied into them. A producer claims the next sequence
+ * with a compare-and-set, fills the slot, then marks it available by storing the round of the sequence, i.e. the
+ * number of times the ring wrapped. The consumer handles every consecutive available slot at once, and only then
+ * releases them to the producers.
+ *
+ * @since XXX
+ */
+public final class AnswerRingBuffer {
+
+    private static final VarHandle AVAILABLE = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private final AnswerEvent[] slots;
+    /** The round of the last sequence published in each slot */
+    private final int[] available;
+    private final int mask;
+    private final int roundShift;
+    private final int maxGuessBytes;
+    /** The next sequence to claim */
+    private final AtomicLong claimed = new AtomicLong();
+    /** The next sequence to consume, only written by the consumer */
+    private volatile long consumed;
+
+    /**
+     * @param capacity      the number of slots, a power of two
+     * @param maxGuessBytes the maximum number of bytes of a guess
+     *
+     * @throws java.lang.IllegalArgumentException if and only if {@code capacity} is not a strictly positive power of
+     *                                            two or {@code maxGuessBytes} is negative
+     */
+    public AnswerRingBuffer(
+            final int capacity,
+            final int maxGuessBytes
+    ) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1)
+            throw new IllegalArgumentException("capacity (" + capacity + ") must be a strictly positive power of two");
+        if (maxGuessBytes < 0)
+            throw new IllegalArgumentException("maxGuessBytes (" + maxGuessBytes + ") must be positive");
+        this.slots = new AnswerEvent[capacity];
+        for (int i = 0; i < capacity; i++) this.slots[i] = new AnswerEvent(maxGuessBytes);
+        this.available = new int[capacity];
+        Arrays.fill(this.available, -1);
+        this.mask = capacity - 1;
+        this.roundShift = Integer.numberOfTrailingZeros(capacity);
+        this.maxGuessBytes = maxGuessBytes;
+    }
+
+    /**
+     * @return the number of slots
+     */
+    public int capacity() {
+        return this.slots.length;
+    }
+
+    /**
+     * @return the number of answers published and not yet consumed, possibly stale
+     */
+    public int size() {
+        return (int) (this.claimed.get() - this.consumed);
+    }
+
+    /**
+     * Publish an answer if there is a free slot. Safe to call from many threads.
+     *
+     * @param playerId the id of the player who answered
+     * @param guess    the bytes of the guess, copied
+     * @param offset   the position of the guess in {@code guess}
+     * @param length   the number of bytes of the guess
+     * @param nanoTime the {@link java.lang.System#nanoTime()} at which the answer was received
+     *
+     * @return {@code false} if and only if the ring is full, in which case nothing is published
+     *
+     * @throws java.lang.IllegalArgumentException  if the guess is longer than the maximum
+     * @throws java.lang.IndexOutOfBoundsException if {@code offset} and {@code length} are out of {@code guess}
+     * @throws java.lang.NullPointerException      if {@code guess} is {@code null}
+     */
+    public boolean tryPublish(
+            final long playerId,
+            final byte[] guess,
+            final int offset,
+            final int length,
+            final long nanoTime
+    ) {
+        if (length > this.maxGuessBytes)
+            throw new IllegalArgumentException("length (" + length + ") must be inferior or equal to " + this.maxGuessBytes);
+        // Checked before claiming: a claimed slot that is never published would block the consumer forever
+        Objects.checkFromIndexSize(offset, length, guess.length);
+        long sequence;
+        do {
+            sequence = this.claimed.get();
+            if (sequence - this.consumed >= this.slots.length) return false;
+        } while (!this.claimed.compareAndSet(sequence, sequence + 1));
+        final int index = (int) sequence & this.mask;
+        this.slots[index].set(playerId, guess, offset, length, nanoTime);
+        AVAILABLE.setRelease(this.available, index, (int) (sequence >>> this.roundShift));
+        return true;
+    }
+
+    /**
+     * Same as {@link #tryPublish(long, byte[], int, int, long)}, waiting for a free slot while the ring is full.
+     */
+    public void publish(
+            final long playerId,
+            final byte[] guess,
+            final int offset,
+            final int length,
+            final long nanoTime
+    ) {
+        while (!this.tryPublish(playerId, guess, offset, length, nanoTime)) LockSupport.parkNanos(1L);
+    }
+
+    private boolean isAvailable(final long sequence) {
+        final int round = (int) AVAILABLE.getAcquire(this.available, (int) sequence & this.mask);
+        return round == (int) (sequence >>> this.roundShift);
+    }
+
+    /**
+     * Handle the consecutive answers published so far, at most {@code max}, then free their slots. Must only be
+     * called by one thread at a time.
+     *
+     * @param handler called for each answer, in publication order; if it throws, the answers before and including
+     *                the failing one are consumed
+     * @param max     the maximum number of answers to handle
+     *
+     * @return the number of answers handled
+     */
+    public int drain(
+            final AnswerHandler handler,
+            final int max
+    ) {
+        final long first = this.consumed;
+        long end = first;
+        while (end - first < max && this.isAvailable(end)) end++;
+        long sequence = first;
+        try {
+            while (sequence < end) {
+                final AnswerEvent event = this.slots[(int) sequence & this.mask];
+                sequence++;
+                handler.onAnswer(event, sequence == end);
+            }
+        } finally {
+            this.consumed = sequence;
+        }
+        return (int) (end - first);
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.cache;
+
+/**
+ * Snapshot of the counters of a cache.
+ *
+ * @param hits         the number of lookups finding the key, loaded or being loaded
+ * @param misses       the number of lookups starting a load
+ * @param evictions    the number of entries evicted to respect the maximum weight
+ * @param loadFailures the number of loads that threw
+ * @param weightedSize the total weight of the entries currently cached
+ *
+ * @since XXX
+ */
+public record CacheStats(long hits, long misses, long evictions, long loadFailures, long weightedSize) {
+
+    /**
+     * @return the share of lookups finding the key, 1 if there was no lookup
+     */
+    public double hitRate() {
+        final long lookups = this.hits + this.misses;
+        return lookups == 0L ? 1d : this.hits / (double) lookups;
+    }
+}
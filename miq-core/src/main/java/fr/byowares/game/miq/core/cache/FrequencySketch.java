@@ -0,0 +1,88 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.cache;
+
+import fr.byowares.game.miq.core.hash.Mixer;
+
+/**
+ * Count-min sketch of 4-bit counters estimating how often each key was accessed recently.
+ * <p>
+ * Each key uses 4 counters (one per group of 4) of a single {@code long} of 16 counters, so that reading or
+ * incrementing its frequency touches one 8-byte word of the table.
+ * Once the number of increments reaches 10 times the expected number of keys, all the counters are halved so that
+ * old popularity fades away.
+ */
+final class FrequencySketch {
+
+    private static final long RESET_MASK = 0x7777_7777_7777_7777L;
+    private static final int MAX_COUNT = 15;
+
+    private final long[] table;
+    private final int sampleSize;
+    private int size;
+
+    FrequencySketch(final int expectedKeys) {
+        final int length = Integer.highestOneBit(Math.max(16, expectedKeys) - 1) << 1;
+        this.table = new long[length];
+        this.sampleSize = 10 * Math.max(16, expectedKeys);
+    }
+
+    private static int shift(
+            final long hash,
+            final int row
+    ) {
+        // Counter index in [0, 16): the group of the row, then one of its 4 counters
+        return ((row << 2) + (int) ((hash >>> (Integer.SIZE + 2 * row)) & 3)) << 2;
+    }
+
+    private int block(final long hash) {
+        return (int) hash & (this.table.length - 1);
+    }
+
+    /**
+     * @return the estimated number of recent accesses to the key, at most 15
+     */
+    int frequency(final long key) {
+        final long hash = Mixer.mix(key);
+        final long block = this.table[this.block(hash)];
+        int frequency = MAX_COUNT;
+        for (int row = 0; row < 4; row++) {
+            frequency = Math.min(frequency, (int) (block >>> shift(hash, row)) & MAX_COUNT);
+        }
+        return frequency;
+    }
+
+    void increment(final long key) {
+        final long hash = Mixer.mix(key);
+        final int index = this.block(hash);
+        long block = this.table[index];
+        boolean added = false;
+        for (int row = 0; row < 4; row++) {
+            final int shift = shift(hash, row);
+            if (((block >>> shift) & MAX_COUNT) != MAX_COUNT) {
+                block += 1L << shift;
+                added = true;
+            }
+        }
+        this.table[index] = block;
+        if (added && ++this.size == this.sampleSize) this.reset();
+    }
+
+    private void reset() {
+        for (int i = 0; i < this.table.length; i++) this.table[i] = (this.table[i] >>> 1) & RESET_MASK;
+        this.size /= 2;
+    }
+}
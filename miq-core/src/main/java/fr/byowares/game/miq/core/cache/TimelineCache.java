@@ -0,0 +1,373 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.cache;
+
+import fr.byowares.game.miq.core.TimeCodedLine;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongFunction;
+
+/**
+ * Cache of song timelines keyed by song id, bounded by the estimated bytes of the timelines, and loading the
+ * missing ones asynchronously.
+ * <p>
+ * Eviction follows W-TinyLFU: new songs enter a small LRU window (1% of the weight), and leave it for the main
+ * space only if they were accessed more often, according to a {@link FrequencySketch}, than the song the main space
+ * would evict for them. The main space is a segmented LRU: songs accessed again while on probation are promoted to
+ * the protected segment (80% of the main space). A popular playlist rotating through more songs than the cache can
+ * hold thus does not flush the songs that are steadily requested.
+ * <p>
+ * Reads only hit a {@link java.util.concurrent.ConcurrentHashMap}: accesses are recorded in a lossy ring buffer and
+ * applied to the eviction policy in batches, by whichever thread gets the policy lock. Concurrent lookups of the
+ * same missing song share the same load.
+ *
+ * @since XXX
+ */
+public final class TimelineCache {
+
+    private static final int READ_BUFFER_SIZE = 128;
+    private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+
+    private final long maxWeight;
+    private final long windowMax;
+    private final long protectedMax;
+    private final LongFunction<List<TimeCodedLine>> loader;
+    private final Executor executor;
+    private final ConcurrentHashMap<Long, Node> entries = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<Node> readBuffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+    private final AtomicLong readWrites = new AtomicLong();
+    private final ReentrantLock policyLock = new ReentrantLock();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    // Guarded by policyLock
+    private final FrequencySketch sketch;
+    private final Queue window = new Queue();
+    private final Queue probation = new Queue();
+    private final Queue protectedQueue = new Queue();
+    private long readsDrained;
+    private volatile long weightedSize;
+
+    /**
+     * @param maxWeight       the maximum total of the estimated bytes of the cached timelines
+     * @param expectedEntries the expected number of cached timelines, sizing the frequency sketch
+     * @param loader          the function loading the timeline of a song from its id
+     * @param executor        the executor running the loads
+     *
+     * @throws java.lang.IllegalArgumentException if and only if {@code maxWeight} or {@code expectedEntries} is not
+     *                                            strictly positive
+     */
+    public TimelineCache(
+            final long maxWeight,
+            final int expectedEntries,
+            final LongFunction<List<TimeCodedLine>> loader,
+            final Executor executor
+    ) {
+        if (maxWeight <= 0L) throw new IllegalArgumentException("maxWeight (" + maxWeight + ") must be strictly positive");
+        if (expectedEntries <= 0)
+            throw new IllegalArgumentException("expectedEntries (" + expectedEntries + ") must be strictly positive");
+        this.maxWeight = maxWeight;
+        this.windowMax = Math.max(1L, maxWeight / 100L);
+        this.protectedMax = (maxWeight - this.windowMax) * 4L / 5L;
+        this.loader = Objects.requireNonNull(loader, "loader must not be null");
+        this.executor = Objects.requireNonNull(executor, "executor must not be null");
+        this.sketch = new FrequencySketch(expectedEntries);
+    }
+
+    /**
+     * Estimate the heap used by a timeline: the lines, their ranges and texts (assumed Latin-1 when stored as
+     * {@link java.lang.String}), and the list holding them.
+     *
+     * @param timeline a timeline
+     *
+     * @return the estimated number of bytes retained by the timeline
+     */
+    public static long estimatedBytes(final List<TimeCodedLine> timeline) {
+        long bytes = 16L + 16L + 4L * timeline.size();
+        for (final TimeCodedLine line : timeline) {
+            bytes += 24L + 24L;
+            final CharSequence text = line.line();
+            bytes += 24L + 16L + (text instanceof String ? text.length() : 2L * text.length());
+        }
+        return bytes;
+    }
+
+    /**
+     * @param songId the id of a song
+     *
+     * @return the timeline of the song, completed at once if it is cached, or when it is loaded
+     */
+    public CompletableFuture<List<TimeCodedLine>> get(final long songId) {
+        final Node cached = this.entries.get(songId);
+        if (cached != null) {
+            this.hits.increment();
+            this.recordRead(cached);
+            return cached.future;
+        }
+        final Node created = new Node(songId);
+        final Node raced = this.entries.putIfAbsent(songId, created);
+        if (raced != null) {
+            this.hits.increment();
+            this.recordRead(raced);
+            return raced.future;
+        }
+        this.misses.increment();
+        CompletableFuture.supplyAsync(() -> this.loader.apply(songId), this.executor)
+                         .whenComplete((timeline, error) -> this.onLoaded(created, timeline, error));
+        return created.future;
+    }
+
+    /**
+     * @param songId the id of a song
+     *
+     * @return the timeline of the song if it is cached and loaded, {@code null} otherwise, without loading it
+     */
+    public List<TimeCodedLine> getIfPresent(final long songId) {
+        final Node cached = this.entries.get(songId);
+        if (cached == null || !cached.future.isDone() || cached.future.isCompletedExceptionally()) return null;
+        this.hits.increment();
+        this.recordRead(cached);
+        return cached.future.join();
+    }
+
+    /**
+     * @param songId the id of a song to remove from the cache, e.g. because its timeline was edited
+     */
+    public void invalidate(final long songId) {
+        final Node removed = this.entries.remove(songId);
+        if (removed == null) return;
+        this.policyLock.lock();
+        try {
+            this.unlink(removed);
+        } finally {
+            this.policyLock.unlock();
+        }
+    }
+
+    /**
+     * @return the counters of the cache
+     */
+    public CacheStats stats() {
+        return new CacheStats(this.hits.sum(), this.misses.sum(), this.evictions.sum(), this.loadFailures.sum(),
+                              this.weightedSize);
+    }
+
+    /**
+     * Apply the pending reads to the eviction policy, e.g. before inspecting the cache in tests.
+     */
+    public void cleanUp() {
+        this.policyLock.lock();
+        try {
+            this.drainReads();
+        } finally {
+            this.policyLock.unlock();
+        }
+    }
+
+    private void onLoaded(
+            final Node node,
+            final List<TimeCodedLine> timeline,
+            final Throwable error
+    ) {
+        if (error != null || timeline == null) {
+            this.loadFailures.increment();
+            this.entries.remove(node.key, node);
+            node.future.completeExceptionally(error != null ? error : new NullPointerException(
+                    "loader returned null for song " + node.key));
+            return;
+        }
+        final long weight = estimatedBytes(timeline);
+        this.policyLock.lock();
+        try {
+            this.drainReads();
+            this.sketch.increment(node.key);
+            // Skip the policy if the song was invalidated during the load
+            if (this.entries.get(node.key) == node) {
+                node.weight = weight;
+                this.window.addLast(node, Segment.WINDOW);
+                this.weightedSize += weight;
+                this.evict();
+            }
+        } finally {
+            this.policyLock.unlock();
+        }
+        node.future.complete(timeline);
+    }
+
+    private void recordRead(final Node node) {
+        final long index = this.readWrites.getAndIncrement();
+        this.readBuffer.lazySet((int) index & READ_BUFFER_MASK, node);
+        if ((index & (READ_BUFFER_MASK >>> 1)) == 0L && this.policyLock.tryLock()) {
+            try {
+                this.drainReads();
+            } finally {
+                this.policyLock.unlock();
+            }
+        }
+    }
+
+    private void drainReads() {
+        final long written = this.readWrites.get();
+        // Reads overwritten before being drained are lost, which only makes the frequencies slightly lower
+        for (long i = Math.max(this.readsDrained, written - READ_BUFFER_SIZE); i < written; i++) {
+            final Node node = this.readBuffer.getAndSet((int) i & READ_BUFFER_MASK, null);
+            if (node != null) this.onAccess(node);
+        }
+        this.readsDrained = written;
+    }
+
+    private void onAccess(final Node node) {
+        this.sketch.increment(node.key);
+        switch (node.segment) {
+            case WINDOW -> this.window.moveToLast(node);
+            case PROBATION -> {
+                this.probation.remove(node);
+                this.protectedQueue.addLast(node, Segment.PROTECTED);
+                while (this.protectedQueue.weight > this.protectedMax) {
+                    final Node demoted = this.protectedQueue.first;
+                    this.protectedQueue.remove(demoted);
+                    this.probation.addLast(demoted, Segment.PROBATION);
+                }
+            }
+            case PROTECTED -> this.protectedQueue.moveToLast(node);
+            case NONE -> {
+                // Still loading, or already evicted
+            }
+        }
+    }
+
+    private void evict() {
+        while (this.window.weight > this.windowMax) {
+            final Node candidate = this.window.first;
+            this.window.remove(candidate);
+            this.admit(candidate);
+        }
+    }
+
+    /**
+     * Move the candidate leaving the window to probation, if it is more popular than the entry it would evict.
+     */
+    private void admit(final Node candidate) {
+        final long mainMax = this.maxWeight - this.windowMax;
+        if (this.probation.weight + this.protectedQueue.weight + candidate.weight > mainMax) {
+            Node victim = this.mainVictim();
+            final boolean rejected = victim != null
+                                     && this.sketch.frequency(candidate.key) <= this.sketch.frequency(victim.key);
+            if (rejected || candidate.weight > mainMax) {
+                this.weightedSize -= candidate.weight;
+                if (this.entries.remove(candidate.key, candidate)) this.evictions.increment();
+                return;
+            }
+            while (this.probation.weight + this.protectedQueue.weight + candidate.weight > mainMax) {
+                this.evict(victim);
+                victim = this.mainVictim();
+            }
+        }
+        this.probation.addLast(candidate, Segment.PROBATION);
+    }
+
+    private Node mainVictim() {
+        return this.probation.first != null ? this.probation.first : this.protectedQueue.first;
+    }
+
+    private void evict(final Node node) {
+        this.unlink(node);
+        if (this.entries.remove(node.key, node)) this.evictions.increment();
+    }
+
+    private void unlink(final Node node) {
+        switch (node.segment) {
+            case WINDOW -> this.window.remove(node);
+            case PROBATION -> this.probation.remove(node);
+            case PROTECTED -> this.protectedQueue.remove(node);
+            case NONE -> {
+                return;
+            }
+        }
+        this.weightedSize -= node.weight;
+    }
+
+    private enum Segment {
+        NONE,
+        WINDOW,
+        PROBATION,
+        PROTECTED
+    }
+
+    private static final class Node {
+
+        private final long key;
+        private final CompletableFuture<List<TimeCodedLine>> future = new CompletableFuture<>();
+        // Guarded by policyLock
+        private long weight;
+        private Segment segment = Segment.NONE;
+        private Node previous;
+        private Node next;
+
+        private Node(final long key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * Intrusive doubly-linked LRU list, least recently used first.
+     */
+    private static final class Queue {
+
+        private Node first;
+        private Node last;
+        private long weight;
+
+        private void addLast(
+                final Node node,
+                final Segment segment
+        ) {
+            node.segment = segment;
+            node.previous = this.last;
+            node.next = null;
+            if (this.last == null) this.first = node;
+            else this.last.next = node;
+            this.last = node;
+            this.weight += node.weight;
+        }
+
+        private void remove(final Node node) {
+            if (node.previous == null) this.first = node.next;
+            else node.previous.next = node.next;
+            if (node.next == null) this.last = node.previous;
+            else node.next.previous = node.previous;
+            node.previous = null;
+            node.next = null;
+            node.segment = Segment.NONE;
+            this.weight -= node.weight;
+        }
+
+        private void moveToLast(final Node node) {
+            final Segment segment = node.segment;
+            this.remove(node);
+            this.addLast(node, segment);
+        }
+    }
+}
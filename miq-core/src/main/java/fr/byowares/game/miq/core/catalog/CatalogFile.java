@@ -0,0 +1,155 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.catalog;
+
+import fr.byowares.game.miq.core.Range;
+import fr.byowares.game.miq.core.TimeCodedLine;
+import fr.byowares.game.miq.core.text.LyricText;
+import fr.byowares.game.miq.core.timeline.RangeCodec;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Format of catalog files: a directory of all the songs at the start of the file, followed by the lines of each
+ * song, so that the directory can be read at startup and each song later on its own.
+ * <pre>
+ * header     int magic, int version, int songCount
+ * directory  songCount * (long id, long duration, int lineCount, long offset, int length)
+ * bodies     per song: int rangesLength, the ranges encoded by RangeCodec, then per line: int length, UTF-8 text
+ * </pre>
+ * Word timings are not stored.
+ *
+ * @since XXX
+ */
+public final class CatalogFile {
+
+    static final int MAGIC = 0x4D495143; // MIQC
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 3 * Integer.BYTES;
+    static final int ENTRY_BYTES = 3 * Long.BYTES + 2 * Integer.BYTES;
+
+    private CatalogFile() {
+        throw new AssertionError("No fr.byowares.game.miq.core.catalog.CatalogFile instances for you!");
+    }
+
+    /**
+     * @param songs the sorted timeline of each song, by song id, written in the iteration order of the map
+     * @param file  the file to write, replaced if it exists
+     *
+     * @throws java.io.IOException if the file cannot be written
+     */
+    public static void write(
+            final Map<Long, List<TimeCodedLine>> songs,
+            final Path file
+    ) throws IOException {
+        final List<byte[]> bodies = new ArrayList<>(songs.size());
+        for (final List<TimeCodedLine> song : songs.values()) bodies.add(encodeBody(song));
+        final ByteBuffer directory = ByteBuffer.allocate(HEADER_BYTES + songs.size() * ENTRY_BYTES);
+        directory.putInt(MAGIC).putInt(VERSION).putInt(songs.size());
+        long offset = directory.capacity();
+        int i = 0;
+        for (final Map.Entry<Long, List<TimeCodedLine>> song : songs.entrySet()) {
+            final List<TimeCodedLine> lines = song.getValue();
+            long duration = 0L;
+            for (final TimeCodedLine line : lines) duration = Math.max(duration, line.range().end());
+            final int length = bodies.get(i++).length;
+            directory.putLong(song.getKey()).putLong(duration).putInt(lines.size()).putLong(offset).putInt(length);
+            offset += length;
+        }
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                          StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, directory.flip());
+            for (final byte[] body : bodies) writeFully(channel, ByteBuffer.wrap(body));
+        }
+    }
+
+    private static byte[] encodeBody(final List<TimeCodedLine> song) {
+        final List<Range> ranges = new ArrayList<>(song.size());
+        final List<byte[]> texts = new ArrayList<>(song.size());
+        int length = Integer.BYTES;
+        for (final TimeCodedLine line : song) {
+            ranges.add(line.range());
+            final byte[] text = line.line().toString().getBytes(StandardCharsets.UTF_8);
+            texts.add(text);
+            length += Integer.BYTES + text.length;
+        }
+        final byte[] encodedRanges = RangeCodec.encode(ranges);
+        final ByteBuffer body = ByteBuffer.allocate(length + encodedRanges.length);
+        body.putInt(encodedRanges.length).put(encodedRanges);
+        for (final byte[] text : texts) body.putInt(text.length).put(text);
+        return body.array();
+    }
+
+    /**
+     * @return the lines encoded in the body of a song
+     */
+    static List<TimeCodedLine> decodeBody(
+            final SongEntry entry,
+            final byte[] body
+    ) {
+        final ByteBuffer buffer = ByteBuffer.wrap(body);
+        final int rangesLength = buffer.getInt();
+        final int count = entry.lineCount();
+        final long[] starts = new long[count];
+        final long[] ends = new long[count];
+        final RangeCodec.Decoder decoder = new RangeCodec.Decoder(body, Integer.BYTES);
+        int decoded = 0;
+        while (decoded < count) {
+            final int n = decoder.decode(starts, ends, decoded, count - decoded);
+            if (n == 0)
+                throw new IllegalArgumentException("song " + entry.id() + " has less than " + count + " ranges");
+            decoded += n;
+        }
+        buffer.position(Integer.BYTES + rangesLength);
+        final List<TimeCodedLine> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final byte[] text = new byte[buffer.getInt()];
+            buffer.get(text);
+            lines.add(new TimeCodedLine(Range.fromAbsoluteTimes(starts[i], ends[i]),
+                                        new LyricText(new String(text, StandardCharsets.UTF_8))));
+        }
+        return lines;
+    }
+
+    static void readFully(
+            final FileChannel channel,
+            final ByteBuffer buffer,
+            final long position
+    ) throws IOException {
+        long at = position;
+        while (buffer.hasRemaining()) {
+            final int read = channel.read(buffer, at);
+            if (read < 0) throw new EOFException("Unexpected end of catalog at " + at);
+            at += read;
+        }
+    }
+
+    private static void writeFully(
+            final FileChannel channel,
+            final ByteBuffer buffer
+    ) throws IOException {
+        while (buffer.hasRemaining()) channel.write(buffer);
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.catalog;
+
+import fr.byowares.game.miq.core.TimeCodedLine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Catalog reading only the directory of a {@link fr.byowares.game.miq.core.catalog.CatalogFile} when opened, and
+ * the lines of each song on first access.
+ * <p>
+ * {@link #song(long)} loads a song in the background and keeps it; concurrent requests for the same song share the
+ * same load. {@link #load(long)} reads a song without keeping it, e.g. as the loader of a
+ * {@link fr.byowares.game.miq.core.cache.TimelineCache} to bound the memory used by the loaded songs.
+ *
+ * @since XXX
+ */
+public final class LazyCatalog
+        implements AutoCloseable {
+
+    private final FileChannel channel;
+    private final Executor executor;
+    private final Map<Long, SongEntry> directory;
+    private final ConcurrentHashMap<Long, CompletableFuture<List<TimeCodedLine>>> songs = new ConcurrentHashMap<>();
+
+    private LazyCatalog(
+            final FileChannel channel,
+            final Executor executor,
+            final Map<Long, SongEntry> directory
+    ) {
+        this.channel = channel;
+        this.executor = executor;
+        this.directory = directory;
+    }
+
+    /**
+     * @param file     a catalog file
+     * @param executor the executor loading the songs
+     *
+     * @return the catalog, only its directory being read
+     *
+     * @throws java.io.IOException                if the file cannot be read
+     * @throws java.lang.IllegalArgumentException if the file is not a catalog file
+     */
+    public static LazyCatalog open(
+            final Path file,
+            final Executor executor
+    ) throws IOException {
+        Objects.requireNonNull(executor, "executor must not be null");
+        final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            final ByteBuffer header = ByteBuffer.allocate(CatalogFile.HEADER_BYTES);
+            CatalogFile.readFully(channel, header, 0L);
+            final int magic = header.getInt(0);
+            if (magic != CatalogFile.MAGIC)
+                throw new IllegalArgumentException("magic (" + magic + ") must be " + CatalogFile.MAGIC);
+            final int version = header.getInt(Integer.BYTES);
+            if (version != CatalogFile.VERSION)
+                throw new IllegalArgumentException("version (" + version + ") must be " + CatalogFile.VERSION);
+            final int count = header.getInt(2 * Integer.BYTES);
+            final ByteBuffer entries = ByteBuffer.allocate(Math.multiplyExact(count, CatalogFile.ENTRY_BYTES));
+            CatalogFile.readFully(channel, entries, CatalogFile.HEADER_BYTES);
+            entries.flip();
+            final Map<Long, SongEntry> directory = LinkedHashMap.newLinkedHashMap(count);
+            for (int i = 0; i < count; i++) {
+                final SongEntry entry = new SongEntry(entries.getLong(), entries.getLong(), entries.getInt(),
+                                                      entries.getLong(), entries.getInt());
+                directory.put(entry.id(), entry);
+            }
+            return new LazyCatalog(channel, executor, Collections.unmodifiableMap(directory));
+        } catch (final IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the entries of all the songs, in file order
+     */
+    public Collection<SongEntry> directory() {
+        return this.directory.values();
+    }
+
+    /**
+     * @param songId the id of a song
+     *
+     * @return the entry of the song, {@code null} if it is not in the catalog
+     */
+    public SongEntry entry(final long songId) {
+        return this.directory.get(songId);
+    }
+
+    /**
+     * @param songId the id of a song
+     *
+     * @return {@code true} if and only if the song was requested through {@link #song(long)} and loaded
+     */
+    public boolean isLoaded(final long songId) {
+        final CompletableFuture<List<TimeCodedLine>> song = this.songs.get(songId);
+        return song != null && song.isDone() && !song.isCompletedExceptionally();
+    }
+
+    /**
+     * @param songId the id of a song
+     *
+     * @return the lines of the song, loaded in the background on first request then kept; failed, without being
+     *         kept, if the loading fails or the executor rejects it
+     */
+    public CompletableFuture<List<TimeCodedLine>> song(final long songId) {
+        final CompletableFuture<List<TimeCodedLine>> known = this.songs.get(songId);
+        if (known != null) return known;
+        final CompletableFuture<List<TimeCodedLine>> created = new CompletableFuture<>();
+        final CompletableFuture<List<TimeCodedLine>> raced = this.songs.putIfAbsent(songId, created);
+        if (raced != null) return raced;
+        try {
+            CompletableFuture.supplyAsync(() -> this.load(songId), this.executor).whenComplete((lines, error) -> {
+                if (error == null) {
+                    created.complete(lines);
+                } else {
+                    // Allow a later retry
+                    this.songs.remove(songId, created);
+                    created.completeExceptionally(error);
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            // Nothing will ever complete the future: fail it, and allow a later retry
+            this.songs.remove(songId, created);
+            created.completeExceptionally(e);
+        }
+        return created;
+    }
+
+    /**
+     * @param songId the id of a song
+     *
+     * @return the lines of the song, read from the file by the calling thread
+     *
+     * @throws java.lang.IllegalArgumentException if and only if the song is not in the catalog
+     * @throws java.io.UncheckedIOException       if the file cannot be read
+     */
+    public List<TimeCodedLine> load(final long songId) {
+        final SongEntry entry = this.directory.get(songId);
+        if (entry == null) throw new IllegalArgumentException("songId (" + songId + ") must be in the catalog");
+        final ByteBuffer body = ByteBuffer.allocate(entry.length());
+        try {
+            CatalogFile.readFully(this.channel, body, entry.offset());
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Cannot read song " + songId, e);
+        }
+        return CatalogFile.decodeBody(entry, body.array());
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
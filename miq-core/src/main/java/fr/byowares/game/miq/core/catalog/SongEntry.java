@@ -0,0 +1,29 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.catalog;
+
+/**
+ * Entry of the directory of a catalog file, describing a song without loading its lines.
+ *
+ * @param id        the id of the song
+ * @param duration  the end of the last line of the song
+ * @param lineCount the number of lines of the song
+ * @param offset    the position of the lines of the song in the catalog file
+ * @param length    the number of bytes of the lines of the song in the catalog file
+ *
+ * @since XXX
+ */
+public record SongEntry(long id, long duration, int lineCount, long offset, int length) {}
@@ -0,0 +1,84 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.dedup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Partition of a list of items (lines or songs) into clusters of near-duplicates, the representative of each cluster
+ * being its item of lowest index, so that a loader can keep the representatives only.
+ *
+ * @since XXX
+ */
+public final class DuplicateClusters {
+
+    private final int[] representatives;
+
+    DuplicateClusters(final int[] representatives) {
+        this.representatives = representatives;
+    }
+
+    /**
+     * @return the number of items
+     */
+    public int size() {
+        return this.representatives.length;
+    }
+
+    /**
+     * @param index the index of an item
+     *
+     * @return the index of the representative of the cluster of the item, {@code index} itself if the item has no
+     * near-duplicate or is the representative
+     */
+    public int representative(final int index) {
+        return this.representatives[index];
+    }
+
+    /**
+     * @return the number of items that are the representative of their cluster
+     */
+    public int distinctCount() {
+        int count = 0;
+        for (int i = 0; i < this.representatives.length; i++) if (this.representatives[i] == i) count++;
+        return count;
+    }
+
+    /**
+     * @return the clusters with at least two items, each sorted by index, the representative first
+     */
+    public List<int[]> clusters() {
+        final int n = this.representatives.length;
+        final int[] sizes = new int[n];
+        for (final int r : this.representatives) sizes[r]++;
+        final int[][] byRepresentative = new int[n][];
+        final List<int[]> clusters = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (sizes[i] > 1) {
+                byRepresentative[i] = new int[sizes[i]];
+                clusters.add(byRepresentative[i]);
+            }
+        }
+        Arrays.fill(sizes, 0);
+        for (int i = 0; i < n; i++) {
+            final int r = this.representatives[i];
+            if (byRepresentative[r] != null) byRepresentative[r][sizes[r]++] = i;
+        }
+        return clusters;
+    }
+}
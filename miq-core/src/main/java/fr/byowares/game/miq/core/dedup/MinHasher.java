@@ -0,0 +1,199 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.dedup;
+
+import fr.byowares.game.miq.core.TimeCodedLine;
+import fr.byowares.game.miq.core.hash.Mixer;
+import fr.byowares.game.miq.core.text.LyricNormalizer;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Build MinHash signatures of lyrics, so that the share of equal values between two signatures estimates the
+ * Jaccard similarity of the shingles of the two texts.
+ * <p>
+ * Shingles are the 4-char substrings of the normalized text, so small edits (a missing word, a different
+ * apostrophe) only change a few of them. Every shingle is hashed once, then the {@code i}-th hash function is the
+ * cheap affine transform {@code a[i] * h + b[i]} of that hash.
+ * <p>
+ * A text without any shingle, e.g. empty or made of punctuation only, has a signature of {@link Long#MAX_VALUE}
+ * values, which is similar to nothing, not even to itself.
+ *
+ * @since XXX
+ */
+public final class MinHasher {
+
+    private static final int SHINGLE_LENGTH = 4;
+
+    private final long[] multipliers;
+    private final long[] increments;
+
+    /**
+     * @param numHashes the length of the signatures
+     * @param seed      the seed of the hash functions, signatures can only be compared if built with the same seed
+     *
+     * @throws java.lang.IllegalArgumentException if and only if {@code numHashes} is not strictly positive
+     */
+    public MinHasher(
+            final int numHashes,
+            final long seed
+    ) {
+        if (numHashes <= 0) throw new IllegalArgumentException("numHashes (" + numHashes + ") must be strictly positive");
+        final SplittableRandom random = new SplittableRandom(seed);
+        this.multipliers = new long[numHashes];
+        this.increments = new long[numHashes];
+        for (int i = 0; i < numHashes; i++) {
+            this.multipliers[i] = random.nextLong() | 1L;
+            this.increments[i] = random.nextLong();
+        }
+    }
+
+    /**
+     * @param a a signature
+     * @param b another signature of the same length
+     *
+     * @return the estimated Jaccard similarity of the texts of the two signatures, 0 if a text has no shingle
+     *
+     * @throws java.lang.IllegalArgumentException if and only if the signatures do not have the same length
+     */
+    public static double similarity(
+            final long[] a,
+            final long[] b
+    ) {
+        if (a.length != b.length) throw new IllegalArgumentException(
+                "a.length (" + a.length + ") and b.length (" + b.length + ") must be equal");
+        return similarity(a, 0, b, 0, a.length);
+    }
+
+    static double similarity(
+            final long[] a,
+            final int aOffset,
+            final long[] b,
+            final int bOffset,
+            final int length
+    ) {
+        if (isEmpty(a, aOffset, length) || isEmpty(b, bOffset, length)) return 0d;
+        int equal = 0;
+        for (int i = 0; i < length; i++) if (a[aOffset + i] == b[bOffset + i]) equal++;
+        return equal / (double) length;
+    }
+
+    private static boolean isEmpty(
+            final long[] signature,
+            final int offset,
+            final int length
+    ) {
+        for (int i = 0; i < length; i++) if (signature[offset + i] != Long.MAX_VALUE) return false;
+        return true;
+    }
+
+    /**
+     * @return the length of the signatures
+     */
+    public int numHashes() {
+        return this.multipliers.length;
+    }
+
+    /**
+     * @param text a text, normalized on the fly if needed
+     *
+     * @return the signature of the text
+     */
+    public long[] signature(final CharSequence text) {
+        final long[] signature = this.emptySignature();
+        this.signatureInto(text, signature, 0);
+        return signature;
+    }
+
+    /**
+     * @param song the lines of a song
+     *
+     * @return the signature of the whole text of the song, shingles not spanning two lines
+     */
+    public long[] signature(final List<TimeCodedLine> song) {
+        final long[] signature = this.emptySignature();
+        this.signatureInto(song, signature, 0);
+        return signature;
+    }
+
+    private long[] emptySignature() {
+        final long[] signature = new long[this.numHashes()];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        return signature;
+    }
+
+    /**
+     * @return {@code true} if and only if the song has at least one shingle
+     */
+    boolean signatureInto(
+            final List<TimeCodedLine> song,
+            final long[] signatures,
+            final int offset
+    ) {
+        Arrays.fill(signatures, offset, offset + this.numHashes(), Long.MAX_VALUE);
+        boolean shingled = false;
+        for (final TimeCodedLine line : song) shingled |= this.accumulate(line.line(), signatures, offset);
+        return shingled;
+    }
+
+    /**
+     * @return {@code true} if and only if the text has at least one shingle
+     */
+    boolean signatureInto(
+            final CharSequence text,
+            final long[] signatures,
+            final int offset
+    ) {
+        Arrays.fill(signatures, offset, offset + this.numHashes(), Long.MAX_VALUE);
+        return this.accumulate(text, signatures, offset);
+    }
+
+    private boolean accumulate(
+            final CharSequence text,
+            final long[] signatures,
+            final int offset
+    ) {
+        final String normalized = LyricNormalizer.normalized(text);
+        final int length = normalized.length();
+        if (length == 0) return false;
+        // Texts shorter than a shingle are a single shingle
+        final int shingles = Math.max(1, length - SHINGLE_LENGTH + 1);
+        long packed = 0L;
+        for (int i = 0; i < Math.min(SHINGLE_LENGTH - 1, length); i++)
+            packed = (packed << Character.SIZE) | normalized.charAt(i);
+        for (int s = 0; s < shingles; s++) {
+            final int last = s + SHINGLE_LENGTH - 1;
+            if (last < length) packed = (packed << Character.SIZE) | normalized.charAt(last);
+            this.minimize(Mixer.mix(packed), signatures, offset);
+        }
+        return true;
+    }
+
+    private void minimize(
+            final long hash,
+            final long[] signatures,
+            final int offset
+    ) {
+        final long[] a = this.multipliers;
+        final long[] b = this.increments;
+        for (int i = 0; i < a.length; i++) {
+            final long h = a[i] * hash + b[i];
+            if (h < signatures[offset + i]) signatures[offset + i] = h;
+        }
+    }
+}
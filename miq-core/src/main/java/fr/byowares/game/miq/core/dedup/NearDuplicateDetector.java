@@ -0,0 +1,249 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.dedup;
+
+import fr.byowares.game.miq.core.TimeCodedLine;
+import fr.byowares.game.miq.core.hash.Mixer;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.IntStream;
+
+/**
+ * Cluster near-duplicate lines or songs using MinHash signatures and an LSH banding index.
+ * <p>
+ * Signatures are split into {@code bands} bands of {@code rows} values. For each band, the items are sorted by the
+ * hash of their band (packed with their index in a {@code long}, so sorting stays primitive), and items sharing a
+ * band hash become candidates. Candidates are only merged if their estimated similarity reaches the threshold, so
+ * the collisions of band hashes cost a comparison but never merge unrelated items. Two texts of similarity
+ * {@code s} share at least one band with probability {@code 1 - (1 - s^rows)^bands}.
+ * <p>
+ * Band hashes are computed in parallel, and only one {@code int} per band is kept for each item: full signatures are
+ * computed again, and kept, only for the items compared with another one. Inside a band bucket, each item is only
+ * compared with the first item and the previous one, so the work stays linear even when thousands of copies of the
+ * same line (e.g. a chorus) fall into one bucket. Texts without any shingle, e.g. punctuation only, are never
+ * clustered.
+ *
+ * @since XXX
+ */
+public final class NearDuplicateDetector {
+
+    private final MinHasher hasher;
+    private final int bands;
+    private final int rows;
+    private final double threshold;
+
+    /**
+     * @param bands     the number of bands of the signatures
+     * @param rows      the number of signature values in each band
+     * @param threshold the minimum estimated Jaccard similarity, between 0 and 1, of two near-duplicates
+     * @param seed      the seed of the hash functions
+     *
+     * @throws java.lang.IllegalArgumentException if and only if {@code bands} or {@code rows} is not strictly
+     *                                            positive, or {@code threshold} is not between 0 and 1
+     */
+    public NearDuplicateDetector(
+            final int bands,
+            final int rows,
+            final double threshold,
+            final long seed
+    ) {
+        if (bands <= 0) throw new IllegalArgumentException("bands (" + bands + ") must be strictly positive");
+        if (rows <= 0) throw new IllegalArgumentException("rows (" + rows + ") must be strictly positive");
+        if (!(threshold >= 0d && threshold <= 1d))
+            throw new IllegalArgumentException("threshold (" + threshold + ") must be between 0 and 1");
+        this.hasher = new MinHasher(Math.multiplyExact(bands, rows), seed);
+        this.bands = bands;
+        this.rows = rows;
+        this.threshold = threshold;
+    }
+
+    /**
+     * @return the builder of the signatures compared by this detector
+     */
+    public MinHasher hasher() {
+        return this.hasher;
+    }
+
+    /**
+     * @param lines the texts of lines
+     *
+     * @return the clusters of near-duplicate lines
+     */
+    public DuplicateClusters clusterLines(final List<? extends CharSequence> lines) {
+        return this.cluster(lines.size(), (i, signature) -> this.hasher.signatureInto(lines.get(i), signature, 0));
+    }
+
+    /**
+     * @param songs the lines of each song
+     *
+     * @return the clusters of near-duplicate songs
+     */
+    public DuplicateClusters clusterSongs(final List<List<TimeCodedLine>> songs) {
+        return this.cluster(songs.size(), (i, signature) -> this.hasher.signatureInto(songs.get(i), signature, 0));
+    }
+
+    private DuplicateClusters cluster(
+            final int n,
+            final Signer signer
+    ) {
+        // One hash per band and item, the signatures themselves are only kept for the items compared
+        final int[][] bandHashes = new int[this.bands][n];
+        final boolean[] shingled = new boolean[n];
+        IntStream.range(0, n).parallel().forEach(i -> {
+            final long[] signature = new long[this.hasher.numHashes()];
+            shingled[i] = signer.signatureInto(i, signature);
+            for (int band = 0; band < this.bands; band++) bandHashes[band][i] = this.bandHash(signature, band);
+        });
+        final Signatures signatures = new Signatures(signer, this.hasher.numHashes(), n);
+        final long[][] candidates = IntStream.range(0, this.bands)
+                                             .parallel()
+                                             .mapToObj(band -> this.candidates(bandHashes[band], shingled, signatures))
+                                             .toArray(long[][]::new);
+        final int[] parents = new int[n];
+        for (int i = 0; i < n; i++) parents[i] = i;
+        for (final long[] pairs : candidates) {
+            for (final long pair : pairs) union(parents, (int) (pair >>> Integer.SIZE), (int) pair);
+        }
+        for (int i = 0; i < n; i++) parents[i] = find(parents, i);
+        return new DuplicateClusters(parents);
+    }
+
+    private int bandHash(
+            final long[] signature,
+            final int band
+    ) {
+        long h = band;
+        final int offset = band * this.rows;
+        for (int r = 0; r < this.rows; r++) h = Mixer.mix(h ^ signature[offset + r]);
+        return (int) (h >>> Integer.SIZE);
+    }
+
+    /**
+     * Texts without any shingle are left out: their signatures are all equal, but they are similar to nothing.
+     *
+     * @return the pairs, packed in a {@code long}, of items sharing this band and similar enough
+     */
+    private long[] candidates(
+            final int[] bandHashes,
+            final boolean[] shingled,
+            final Signatures signatures
+    ) {
+        final long[] keys = new long[bandHashes.length];
+        int n = 0;
+        for (int i = 0; i < bandHashes.length; i++)
+            if (shingled[i]) keys[n++] = ((long) bandHashes[i] << Integer.SIZE) | i;
+        Arrays.sort(keys, 0, n);
+        long[] pairs = new long[16];
+        int size = 0;
+        int first = 0;
+        for (int k = 1; k < n; k++) {
+            if ((keys[k] >>> Integer.SIZE) != (keys[first] >>> Integer.SIZE)) {
+                first = k;
+                continue;
+            }
+            final int item = (int) keys[k];
+            final int leader = (int) keys[first];
+            final int previous = (int) keys[k - 1];
+            int match = -1;
+            if (this.similar(signatures, leader, item)) match = leader;
+            else if (previous != leader && this.similar(signatures, previous, item)) match = previous;
+            if (match < 0) continue;
+            if (size == pairs.length) pairs = Arrays.copyOf(pairs, size * 2);
+            pairs[size++] = ((long) match << Integer.SIZE) | item;
+        }
+        return Arrays.copyOf(pairs, size);
+    }
+
+    private boolean similar(
+            final Signatures signatures,
+            final int a,
+            final int b
+    ) {
+        return MinHasher.similarity(signatures.get(a), signatures.get(b)) >= this.threshold;
+    }
+
+    private static int find(
+            final int[] parents,
+            final int i
+    ) {
+        int root = i;
+        while (parents[root] != root) root = parents[root];
+        int node = i;
+        while (parents[node] != root) {
+            final int next = parents[node];
+            parents[node] = root;
+            node = next;
+        }
+        return root;
+    }
+
+    /**
+     * Link the roots of the two items, the lowest index becoming the root so that it ends as the representative.
+     */
+    private static void union(
+            final int[] parents,
+            final int a,
+            final int b
+    ) {
+        final int rootA = find(parents, a);
+        final int rootB = find(parents, b);
+        if (rootA < rootB) parents[rootB] = rootA;
+        else if (rootB < rootA) parents[rootA] = rootB;
+    }
+
+    @FunctionalInterface
+    private interface Signer {
+
+        /**
+         * @return {@code true} if and only if the item has at least one shingle
+         */
+        boolean signatureInto(
+                int item,
+                long[] signature
+        );
+    }
+
+    /**
+     * Signatures of the items compared with another one, computed again on first use and shared by the bands.
+     */
+    private static final class Signatures {
+
+        private final Signer signer;
+        private final int width;
+        private final AtomicReferenceArray<long[]> cache;
+
+        Signatures(
+                final Signer signer,
+                final int width,
+                final int n
+        ) {
+            this.signer = signer;
+            this.width = width;
+            this.cache = new AtomicReferenceArray<>(n);
+        }
+
+        long[] get(final int item) {
+            final long[] cached = this.cache.get(item);
+            if (cached != null) return cached;
+            final long[] signature = new long[this.width];
+            this.signer.signatureInto(item, signature);
+            // Another band may have computed it meanwhile, both are equal
+            return this.cache.compareAndSet(item, null, signature) ? signature : this.cache.get(item);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Detection of near-duplicate lines and songs in large catalogs, e.g. live and remastered versions of the same
+ * song, based on MinHash signatures and locality-sensitive hashing.
+ *
+ * @since XXX
+ */
+package fr.byowares.game.miq.core.dedup;
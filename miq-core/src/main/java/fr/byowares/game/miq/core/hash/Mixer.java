@@ -0,0 +1,42 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.hash;
+
+/**
+ * 64-bit mixer turning keys and combinations of keys into well distributed hashes.
+ *
+ * @since XXX
+ */
+public final class Mixer {
+
+    private Mixer() {
+        throw new AssertionError("No fr.byowares.game.miq.core.hash.Mixer instances for you!");
+    }
+
+    /**
+     * Finalization step of MurmurHash3: spread the entropy of all bits of a value over all bits of the result.
+     *
+     * @param value the value to mix
+     *
+     * @return a well distributed 64-bit hash of the value
+     */
+    public static long mix(final long value) {
+        long z = value;
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+}
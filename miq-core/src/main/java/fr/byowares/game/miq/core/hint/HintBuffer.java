@@ -0,0 +1,85 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.hint;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * The hint currently shown in a room, rendered once per step and read by all its players.
+ * <p>
+ * The buffer is reused from line to line, growing only for longer lines; it is a {@link java.lang.CharSequence} over
+ * the last render. It is not thread-safe: renders must not run concurrently with reads.
+ *
+ * @since XXX
+ */
+public final class HintBuffer
+        implements CharSequence {
+
+    private char[] chars;
+    private int length;
+
+    /**
+     * @param capacity the initial number of chars of the buffer
+     *
+     * @throws java.lang.IllegalArgumentException if and only if {@code capacity} is negative
+     */
+    public HintBuffer(final int capacity) {
+        if (capacity < 0) throw new IllegalArgumentException("capacity (" + capacity + ") must be positive");
+        this.chars = new char[capacity];
+    }
+
+    /**
+     * @param masks the reveal of the line
+     * @param step  the step to show
+     *
+     * @return this buffer, holding the line as shown at the step
+     *
+     * @throws java.lang.IllegalArgumentException if and only if {@code step} is negative
+     */
+    public HintBuffer render(
+            final HintMasks masks,
+            final int step
+    ) {
+        if (this.chars.length < masks.length()) this.chars = Arrays.copyOf(this.chars, masks.length());
+        masks.render(step, this.chars);
+        this.length = masks.length();
+        return this;
+    }
+
+    @Override
+    public int length() {
+        return this.length;
+    }
+
+    @Override
+    public char charAt(final int index) {
+        return this.chars[Objects.checkIndex(index, this.length)];
+    }
+
+    @Override
+    public CharSequence subSequence(
+            final int start,
+            final int end
+    ) {
+        return this.toString().subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return new String(this.chars, 0, this.length);
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.hint;
+
+import fr.byowares.game.miq.core.TimeCodedLine;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * The progressive reveal of a line, precomputed once for every player and every step.
+ * <p>
+ * The letters and digits of the line are hidden at step 0 and revealed one per step, in a random order given by the
+ * seed, so that the same seed always gives the same reveal. Other chars (spaces, punctuation...) are always shown.
+ * For each step, the set of shown chars is stored as a bitset of {@code ceil(length / 64)} longs, one bit per char of
+ * {@link fr.byowares.game.miq.core.TimeCodedLine#line()}: rendering a step is a copy of the text and a walk over the
+ * cleared bits, see {@link HintBuffer}.
+ *
+ * @since XXX
+ */
+public final class HintMasks {
+
+    /** The char shown in place of a hidden one */
+    public static final char HIDDEN = '_';
+
+    private final char[] text;
+    private final int words;
+    private final int steps;
+    /** Row {@code k}, of {@code words} longs from {@code k * words}, is the bitset of the chars shown at step k */
+    private final long[] shown;
+
+    private HintMasks(
+            final CharSequence line,
+            final long seed
+    ) {
+        final int n = line.length();
+        this.text = new char[n];
+        int hideable = 0;
+        for (int i = 0; i < n; i++) {
+            this.text[i] = line.charAt(i);
+            if (Character.isLetterOrDigit(this.text[i])) hideable++;
+        }
+        final int[] order = new int[hideable];
+        this.words = (n + Long.SIZE - 1) >>> 6;
+        this.steps = hideable;
+        this.shown = new long[(hideable + 1) * this.words];
+        for (int i = 0, h = 0; i < n; i++) {
+            if (Character.isLetterOrDigit(this.text[i])) order[h++] = i;
+            else this.shown[i >>> 6] |= 1L << i;
+        }
+        // Fisher-Yates shuffle, each step reveals the next char of the order
+        final SplittableRandom random = new SplittableRandom(seed);
+        for (int i = hideable - 1; i > 0; i--) {
+            final int j = random.nextInt(i + 1);
+            final int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+        for (int k = 1; k <= hideable; k++) {
+            System.arraycopy(this.shown, (k - 1) * this.words, this.shown, k * this.words, this.words);
+            final int revealed = order[k - 1];
+            this.shown[k * this.words + (revealed >>> 6)] |= 1L << revealed;
+        }
+    }
+
+    /**
+     * @param line a line
+     * @param seed the seed of the reveal order
+     *
+     * @return the reveal of the line
+     */
+    public static HintMasks of(
+            final CharSequence line,
+            final long seed
+    ) {
+        return new HintMasks(line, seed);
+    }
+
+    /**
+     * @param timeline a timeline
+     * @param seed     the seed of the reveal orders, e.g. the one of the game
+     *
+     * @return the reveal of each line of the timeline, each one with its own order
+     */
+    public static HintMasks[] of(
+            final List<TimeCodedLine> timeline,
+            final long seed
+    ) {
+        final SplittableRandom random = new SplittableRandom(seed);
+        final HintMasks[] masks = new HintMasks[timeline.size()];
+        for (int i = 0; i < masks.length; i++) masks[i] = new HintMasks(timeline.get(i).line(), random.nextLong());
+        return masks;
+    }
+
+    /**
+     * @return the number of chars of the line
+     */
+    public int length() {
+        return this.text.length;
+    }
+
+    /**
+     * @return the number of steps to reveal the whole line, i.e. its number of letters and digits
+     */
+    public int steps() {
+        return this.steps;
+    }
+
+    private int row(final int step) {
+        if (step < 0) throw new IllegalArgumentException("step (" + step + ") must be positive");
+        return Math.min(step, this.steps) * this.words;
+    }
+
+    /**
+     * @param step  a step, the whole line being shown after {@link #steps()}
+     * @param index the index of a char of the line
+     *
+     * @return {@code true} if and only if the char is shown at the step
+     *
+     * @throws java.lang.IllegalArgumentException if and only if {@code step} is negative
+     */
+    public boolean isShown(
+            final int step,
+            final int index
+    ) {
+        return (this.shown[this.row(step) + (index >>> 6)] & 1L << index) != 0L;
+    }
+
+    /**
+     * Write the line as shown at a step, hidden chars being replaced by {@link #HIDDEN}.
+     *
+     * @param step   a step, the whole line being shown after {@link #steps()}
+     * @param buffer receives the {@link #length()} chars of the line from its start
+     *
+     * @throws java.lang.IllegalArgumentException if and only if {@code step} is negative
+     */
+    public void render(
+            final int step,
+            final char[] buffer
+    ) {
+        final int row = this.row(step);
+        final int n = this.text.length;
+        System.arraycopy(this.text, 0, buffer, 0, n);
+        for (int w = 0; w < this.words; w++) {
+            long hidden = ~this.shown[row + w];
+            // Bits past the end of the line are not chars
+            if (w == this.words - 1 && (n & 63) != 0) hidden &= (1L << n) - 1L;
+            while (hidden != 0L) {
+                buffer[(w << 6) + Long.numberOfTrailingZeros(hidden)] = HIDDEN;
+                hidden &= hidden - 1L;
+            }
+        }
+    }
+}
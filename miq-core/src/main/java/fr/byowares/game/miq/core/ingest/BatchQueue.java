@@ -0,0 +1,122 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.ingest;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded queue between two stages: producers block while it is full, consumers take many elements at once.
+ *
+ * @param <E> the type of the elements
+ *
+ * @since XXX
+ */
+final class BatchQueue<E> {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = this.lock.newCondition();
+    private final Condition notFull = this.lock.newCondition();
+    private final ArrayDeque<E> elements;
+    private final int capacity;
+    private boolean closed;
+
+    BatchQueue(final int capacity) {
+        this.elements = new ArrayDeque<>(capacity);
+        this.capacity = capacity;
+    }
+
+    /**
+     * Wait until there is room for the element, then enqueue it.
+     *
+     * @throws java.lang.IllegalStateException if and only if the queue is closed
+     */
+    void put(final E element)
+            throws InterruptedException {
+        this.lock.lockInterruptibly();
+        try {
+            while (this.elements.size() >= this.capacity && !this.closed) this.notFull.await();
+            if (this.closed) throw new IllegalStateException("Queue is closed");
+            this.elements.add(element);
+            this.notEmpty.signal();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Wait until there is an element or the queue is closed, then move up to {@code max} elements to {@code batch}.
+     *
+     * @return {@code false} if and only if the queue is closed and empty
+     */
+    boolean take(
+            final List<E> batch,
+            final int max
+    )
+            throws InterruptedException {
+        this.lock.lockInterruptibly();
+        try {
+            while (this.elements.isEmpty() && !this.closed) this.notEmpty.await();
+            if (this.elements.isEmpty()) return false;
+            for (int i = 0; i < max && !this.elements.isEmpty(); i++) batch.add(this.elements.poll());
+            this.notFull.signalAll();
+            if (!this.elements.isEmpty()) this.notEmpty.signal();
+            return true;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * No more elements will be put; the remaining ones can still be taken.
+     */
+    void close() {
+        this.lock.lock();
+        try {
+            this.closed = true;
+            this.notEmpty.signalAll();
+            this.notFull.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Drop the remaining elements and close the queue: producers fail and consumers stop at once.
+     */
+    void abort() {
+        this.lock.lock();
+        try {
+            this.closed = true;
+            this.elements.clear();
+            this.notEmpty.signalAll();
+            this.notFull.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    int size() {
+        this.lock.lock();
+        try {
+            return this.elements.size();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+}
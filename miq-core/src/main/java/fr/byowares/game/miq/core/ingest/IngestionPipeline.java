@@ -0,0 +1,231 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.ingest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+
+/**
+ * Import songs through a parsing stage followed by a chain of {@link LineStage}s (validation, normalization,
+ * indexing, persistence...), every stage running on its own workers.
+ * <p>
+ * Stages are connected by bounded queues of {@link SongLines}: each worker takes up to
+ * {@link StageOptions#batchSize()} songs at once from its queue, processes them together, and puts the results in
+ * the queue of the next stage, blocking while it is full. A slow stage thus slows down the previous ones, and in the
+ * end {@link #submit(Object)}, instead of piling songs up in memory.
+ * <p>
+ * A batch whose processing throws is reported to the error handler, with the name of the stage, and dropped; the
+ * other batches go on. Once the last worker of a stage stops, the queue of the next stage is closed, so
+ * {@link #finish()} lets every stage finish its pending songs in turn.
+ * <p>
+ * Any other failure of a worker, e.g. an {@link java.lang.Error}, a throwing error handler or an interruption of
+ * the worker, including an {@link java.lang.InterruptedException} thrown by a parser or a stage, fails the whole
+ * pipeline instead of letting the previous stages block on a queue nobody drains: the pending songs are dropped,
+ * and {@link #submit(Object)} and {@link #finish()} throw with the cause.
+ *
+ * @param <T> the type of the sources of the songs
+ *
+ * @since XXX
+ */
+public final class IngestionPipeline<T> {
+
+    private final BatchQueue<T> sources;
+    private final List<Thread> workers = new ArrayList<>();
+    private final BiConsumer<String, Throwable> errorHandler;
+    private final AtomicReference<Failure> failure = new AtomicReference<>();
+
+    /**
+     * Start the workers of every stage.
+     *
+     * @param parseOptions  the sizing of the parsing stage
+     * @param parser        turns sources into lines
+     * @param stages        the stages following the parsing, in order
+     * @param threadFactory creates the workers
+     * @param errorHandler  called with the name of the stage and the exception when a batch is dropped
+     */
+    public IngestionPipeline(
+            final StageOptions parseOptions,
+            final SongParser<T> parser,
+            final List<Stage> stages,
+            final ThreadFactory threadFactory,
+            final BiConsumer<String, Throwable> errorHandler
+    ) {
+        Objects.requireNonNull(parser, "parser must not be null");
+        this.errorHandler = Objects.requireNonNull(errorHandler, "errorHandler must not be null");
+        this.sources = new BatchQueue<>(parseOptions.capacity());
+        final List<BatchQueue<SongLines>> queues = new ArrayList<>(stages.size());
+        for (final Stage stage : stages) queues.add(new BatchQueue<>(stage.options().capacity()));
+
+        final BatchQueue<SongLines> parsed = queues.isEmpty() ? null : queues.getFirst();
+        final AtomicInteger parsers = new AtomicInteger(parseOptions.parallelism());
+        for (int w = 0; w < parseOptions.parallelism(); w++) {
+            this.start(threadFactory, parseOptions.name(), w, this.sources, parsed, parsers, () -> {
+                final List<T> batch = new ArrayList<>(parseOptions.batchSize());
+                while (this.sources.take(batch, parseOptions.batchSize())) {
+                    for (final T source : batch) {
+                        final SongLines lines;
+                        try {
+                            lines = parser.parse(source);
+                        } catch (final InterruptedException e) {
+                            throw e;
+                        } catch (final Exception e) {
+                            this.errorHandler.accept(parseOptions.name(), e);
+                            continue;
+                        }
+                        if (parsed != null && lines != null) parsed.put(lines);
+                    }
+                    batch.clear();
+                }
+            });
+        }
+
+        for (int s = 0; s < stages.size(); s++) {
+            final StageOptions options = stages.get(s).options();
+            final LineStage function = stages.get(s).function();
+            final BatchQueue<SongLines> input = queues.get(s);
+            final BatchQueue<SongLines> output = s + 1 < queues.size() ? queues.get(s + 1) : null;
+            final AtomicInteger live = new AtomicInteger(options.parallelism());
+            for (int w = 0; w < options.parallelism(); w++) {
+                this.start(threadFactory, options.name(), w, input, output, live, () -> {
+                    List<SongLines> batch = new ArrayList<>(options.batchSize());
+                    while (input.take(batch, options.batchSize())) {
+                        final List<SongLines> results;
+                        try {
+                            results = function.process(batch);
+                        } catch (final InterruptedException e) {
+                            throw e;
+                        } catch (final Exception e) {
+                            this.errorHandler.accept(options.name(), e);
+                            continue;
+                        } finally {
+                            // Stages may keep the batch
+                            batch = new ArrayList<>(options.batchSize());
+                        }
+                        if (output == null || results == null) continue;
+                        for (final SongLines lines : results) output.put(lines);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Start a worker named after its stage. A worker dying of anything but an exception reported to the error
+     * handler, e.g. an {@link java.lang.Error}, a throwing handler or an interruption, fails the pipeline: its input
+     * is aborted, which in turn makes the previous stages fail when they put their results, up to
+     * {@link #submit(Object)}.
+     *
+     * @param live the number of workers of the stage still running, the last one closes {@code output}
+     */
+    private void start(
+            final ThreadFactory threadFactory,
+            final String stage,
+            final int index,
+            final BatchQueue<?> input,
+            final BatchQueue<SongLines> output,
+            final AtomicInteger live,
+            final Work work
+    ) {
+        final Thread thread = threadFactory.newThread(() -> {
+            try {
+                work.run();
+            } catch (final Throwable t) {
+                // Only the first failure is kept, the next ones are the previous stages failing in cascade
+                this.failure.compareAndSet(null, new Failure(stage, t));
+                input.abort();
+                if (t instanceof InterruptedException) Thread.currentThread().interrupt();
+            } finally {
+                if (live.decrementAndGet() == 0 && output != null) output.close();
+            }
+        });
+        thread.setName("ingest-" + stage + "-" + index);
+        this.workers.add(thread);
+        thread.start();
+    }
+
+    /**
+     * @throws java.lang.IllegalStateException if a worker died, with the cause of its death
+     */
+    private void checkFailure() {
+        final Failure f = this.failure.get();
+        if (f != null) throw new IllegalStateException("Stage " + f.stage() + " failed", f.cause());
+    }
+
+    /**
+     * Wait until the parsing stage has room for the source, then enqueue it.
+     *
+     * @param source the source of a song
+     *
+     * @throws java.lang.InterruptedException  if interrupted while waiting
+     * @throws java.lang.IllegalStateException if and only if the pipeline is finished or failed
+     */
+    public void submit(final T source)
+            throws InterruptedException {
+        Objects.requireNonNull(source, "source must not be null");
+        try {
+            this.sources.put(source);
+        } catch (final IllegalStateException e) {
+            this.checkFailure();
+            throw e;
+        }
+    }
+
+    /**
+     * Stop accepting sources and wait until every submitted song went through all the stages.
+     *
+     * @throws java.lang.InterruptedException  if interrupted while waiting
+     * @throws java.lang.IllegalStateException if a worker died, in which case songs may have been lost
+     */
+    public void finish()
+            throws InterruptedException {
+        this.sources.close();
+        for (final Thread worker : this.workers) worker.join();
+        this.checkFailure();
+    }
+
+    /**
+     * A stage following the parsing.
+     *
+     * @param options  the sizing of the stage
+     * @param function the processing of the stage
+     *
+     * @since XXX
+     */
+    public record Stage(StageOptions options, LineStage function) {
+
+        /**
+         * @throws java.lang.NullPointerException if and only if an argument is {@code null}
+         */
+        public Stage {
+            Objects.requireNonNull(options, "options must not be null");
+            Objects.requireNonNull(function, "function must not be null");
+        }
+    }
+
+    @FunctionalInterface
+    private interface Work {
+
+        void run()
+                throws InterruptedException;
+    }
+
+    private record Failure(String stage, Throwable cause) {}
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.ingest;
+
+import java.util.List;
+
+/**
+ * A step of an {@link IngestionPipeline} after parsing: validation, normalization, indexing, persistence...
+ *
+ * @since XXX
+ */
+@FunctionalInterface
+public interface LineStage {
+
+    /**
+     * Called concurrently by the workers of the stage.
+     *
+     * @param batch the songs to process, never empty
+     *
+     * @return the songs to pass to the next stage, possibly fewer or different ones; ignored for the last stage
+     *
+     * @throws java.lang.Exception if the batch cannot be processed, in which case it is dropped, except for an
+     *                             {@link java.lang.InterruptedException} which fails the pipeline
+     */
+    List<SongLines> process(List<SongLines> batch)
+            throws Exception;
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.ingest;
+
+/**
+ * The first step of an {@link IngestionPipeline}, turning a source into lines.
+ *
+ * @param <T> the type of the sources
+ *
+ * @since XXX
+ */
+@FunctionalInterface
+public interface SongParser<T> {
+
+    /**
+     * Called concurrently by the workers of the parsing stage.
+     *
+     * @param source the source of a song
+     *
+     * @return the lines of the song
+     *
+     * @throws java.lang.Exception if the source cannot be parsed, in which case it is dropped, except for an
+     *                             {@link java.lang.InterruptedException} which fails the pipeline
+     */
+    SongLines parse(T source)
+            throws Exception;
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.ingest;
+
+import java.util.Objects;
+
+/**
+ * Sizing of a stage of an {@link IngestionPipeline}.
+ *
+ * @param name        the name of the stage, used for its threads and when reporting errors
+ * @param parallelism the number of workers of the stage
+ * @param batchSize   the maximum number of songs a worker processes at once
+ * @param capacity    the maximum number of songs waiting for the stage, beyond which upstream stages block
+ *
+ * @since XXX
+ */
+public record StageOptions(String name, int parallelism, int batchSize, int capacity) {
+
+    /**
+     * @throws java.lang.IllegalArgumentException if and only if {@code parallelism}, {@code batchSize} or
+     *                                            {@code capacity} is not strictly positive
+     */
+    public StageOptions {
+        Objects.requireNonNull(name, "name must not be null");
+        if (parallelism <= 0)
+            throw new IllegalArgumentException("parallelism (" + parallelism + ") must be strictly positive");
+        if (batchSize <= 0)
+            throw new IllegalArgumentException("batchSize (" + batchSize + ") must be strictly positive");
+        if (capacity <= 0) throw new IllegalArgumentException("capacity (" + capacity + ") must be strictly positive");
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.schedule;
+
+/**
+ * Source of monotonic time, in nanoseconds, whose origin is arbitrary.
+ *
+ * @since XXX
+ */
+@FunctionalInterface
+public interface MonotonicClock {
+
+    /**
+     * The clock of the JVM, see {@link java.lang.System#nanoTime()}.
+     */
+    MonotonicClock SYSTEM = System::nanoTime;
+
+    /**
+     * @return the current time in nanoseconds, never lower than a previously returned value
+     */
+    long nanoTime();
+}
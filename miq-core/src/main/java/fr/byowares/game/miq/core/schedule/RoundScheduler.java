@@ -0,0 +1,229 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.schedule;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiConsumer;
+
+/**
+ * Run the answer processing of many rooms on a shared work-stealing pool, fairly across rooms.
+ * <p>
+ * Each room has its own queue of tasks. Rooms with pending tasks take turns, deficit round robin style: at each
+ * turn a room is credited {@code quantum} tasks, and runs at most its credit, in batches of at most
+ * {@code maxBatch} tasks, before the next room gets its turn. A room at peak with thousands of pending answers is
+ * thus split in batches processed by all the workers, while a small room never waits for more than one turn of the
+ * other active rooms, whatever their backlog.
+ * <p>
+ * Up to {@link java.util.concurrent.ForkJoinPool#getParallelism()} drain tasks run on the pool, each repeatedly
+ * taking the next batch; they stop when no room has pending tasks. Tasks of the same room may run concurrently.
+ *
+ * @since XXX
+ */
+public final class RoundScheduler {
+
+    private final ForkJoinPool pool;
+    private final int quantum;
+    private final int maxBatch;
+    private final BiConsumer<Long, Throwable> errorHandler;
+    // Guarded by this
+    private final Map<Long, RoomQueue> rooms = new HashMap<>();
+    private final ArrayDeque<RoomQueue> active = new ArrayDeque<>();
+    private int drainers;
+
+    /**
+     * @param pool         the pool running the tasks
+     * @param quantum      the number of tasks a room may run at each turn
+     * @param maxBatch     the maximum number of tasks run together by a worker
+     * @param errorHandler called with the room id and the exception when a task throws
+     *
+     * @throws java.lang.IllegalArgumentException if and only if {@code quantum} or {@code maxBatch} is not strictly
+     *                                            positive
+     */
+    public RoundScheduler(
+            final ForkJoinPool pool,
+            final int quantum,
+            final int maxBatch,
+            final BiConsumer<Long, Throwable> errorHandler
+    ) {
+        if (quantum <= 0) throw new IllegalArgumentException("quantum (" + quantum + ") must be strictly positive");
+        if (maxBatch <= 0) throw new IllegalArgumentException("maxBatch (" + maxBatch + ") must be strictly positive");
+        this.pool = Objects.requireNonNull(pool, "pool must not be null");
+        this.quantum = quantum;
+        this.maxBatch = maxBatch;
+        this.errorHandler = Objects.requireNonNull(errorHandler, "errorHandler must not be null");
+    }
+
+    /**
+     * @param roomId the id of the room
+     * @param task   the task to run on behalf of the room
+     */
+    public void submit(
+            final long roomId,
+            final Runnable task
+    ) {
+        Objects.requireNonNull(task, "task must not be null");
+        final boolean startDrainer;
+        synchronized (this) {
+            this.queue(roomId).tasks.add(task);
+            startDrainer = this.reserveDrainer();
+        }
+        if (startDrainer) this.startDrainers(1);
+    }
+
+    /**
+     * @param roomId the id of the room
+     * @param tasks  the tasks to run on behalf of the room, e.g. one per answer received after a line reveal
+     */
+    public void submitAll(
+            final long roomId,
+            final Collection<? extends Runnable> tasks
+    ) {
+        for (final Runnable task : tasks) Objects.requireNonNull(task, "tasks must not contain null");
+        int started = 0;
+        synchronized (this) {
+            this.queue(roomId).tasks.addAll(tasks);
+            while (started < tasks.size() && this.reserveDrainer()) started++;
+        }
+        this.startDrainers(started);
+    }
+
+    /**
+     * Submit drainers whose slots are already reserved, releasing the slots of those the pool rejects.
+     *
+     * @throws java.util.concurrent.RejectedExecutionException if the pool rejects a drainer; the tasks stay queued
+     */
+    private void startDrainers(final int count) {
+        for (int i = 0; i < count; i++) {
+            try {
+                this.pool.execute(this::drain);
+            } catch (final RejectedExecutionException e) {
+                synchronized (this) {
+                    this.drainers -= count - i;
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * @param roomId the id of a room
+     *
+     * @return the number of tasks of the room not started yet
+     */
+    public synchronized int pending(final long roomId) {
+        final RoomQueue queue = this.rooms.get(roomId);
+        return queue == null ? 0 : queue.tasks.size();
+    }
+
+    private RoomQueue queue(final long roomId) {
+        RoomQueue queue = this.rooms.get(roomId);
+        if (queue == null) {
+            queue = new RoomQueue(roomId);
+            this.rooms.put(roomId, queue);
+            this.active.addLast(queue);
+        }
+        return queue;
+    }
+
+    private boolean reserveDrainer() {
+        if (this.drainers >= this.pool.getParallelism()) return false;
+        this.drainers++;
+        return true;
+    }
+
+    private void drain() {
+        boolean released = false;
+        try {
+            released = this.drainRooms();
+        } finally {
+            if (!released) {
+                // The error handler threw: free the slot, and hand the remaining rooms over to a new drainer
+                final boolean restart;
+                synchronized (this) {
+                    this.drainers--;
+                    restart = !this.active.isEmpty() && this.reserveDrainer();
+                }
+                if (restart) this.startDrainers(1);
+            }
+        }
+    }
+
+    /**
+     * Run batches until no room has pending tasks.
+     *
+     * @return {@code true}, once the slot of the drainer is released
+     */
+    private boolean drainRooms() {
+        final Runnable[] batch = new Runnable[this.maxBatch];
+        while (true) {
+            final long roomId;
+            final int size;
+            synchronized (this) {
+                final RoomQueue room = this.active.peekFirst();
+                if (room == null) {
+                    this.drainers--;
+                    return true;
+                }
+                if (room.deficit <= 0) room.deficit += this.quantum;
+                size = Math.min(Math.min(room.deficit, this.maxBatch), room.tasks.size());
+                for (int i = 0; i < size; i++) batch[i] = room.tasks.poll();
+                room.deficit -= size;
+                roomId = room.id;
+                if (room.tasks.isEmpty()) {
+                    // An idle room does not keep its credit
+                    this.active.pollFirst();
+                    this.rooms.remove(room.id);
+                } else if (room.deficit <= 0) {
+                    this.active.addLast(this.active.pollFirst());
+                }
+            }
+            Throwable handlerFailure = null;
+            for (int i = 0; i < size; i++) {
+                try {
+                    batch[i].run();
+                } catch (final RuntimeException | Error e) {
+                    // A throwing handler must neither drop the rest of the batch nor leak the drainer
+                    try {
+                        this.errorHandler.accept(roomId, e);
+                    } catch (final RuntimeException | Error f) {
+                        if (handlerFailure == null) handlerFailure = f;
+                        else handlerFailure.addSuppressed(f);
+                    }
+                }
+                batch[i] = null;
+            }
+            if (handlerFailure instanceof RuntimeException r) throw r;
+            if (handlerFailure instanceof Error r) throw r;
+        }
+    }
+
+    private static final class RoomQueue {
+
+        private final long id;
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        private int deficit;
+
+        private RoomQueue(final long id) {
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.schedule;
+
+import fr.byowares.game.miq.core.TimeCodedLine;
+
+/**
+ * A line of a timeline starting or ending to be sung.
+ *
+ * @param kind  whether the line starts or ends
+ * @param index the index of the line in its timeline
+ * @param line  the line
+ *
+ * @since XXX
+ */
+public record TimelineEvent(Kind kind, int index, TimeCodedLine line) {
+
+    /**
+     * The kinds of events.
+     *
+     * @since XXX
+     */
+    public enum Kind {
+        /** The playback reached the start of the line */
+        ENTER,
+        /** The playback reached the end of the line, or left it by a seek */
+        EXIT
+    }
+}
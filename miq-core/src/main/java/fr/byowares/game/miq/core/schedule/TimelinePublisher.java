@@ -0,0 +1,333 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.schedule;
+
+import fr.byowares.game.miq.core.TimeCodedLine;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publish the {@link fr.byowares.game.miq.core.schedule.TimelineEvent}s of a timeline as its playback advances,
+ * e.g. to a websocket gateway.
+ * <p>
+ * The owner of the playback calls {@link #advanceTo(long)} as time goes by, and {@link #seek(long)} on jumps. Each
+ * item delivered to a subscriber is a batch of events in time order (ends before starts at equal times), holding
+ * everything that happened since the previous batch, up to {@code maxBatch} events.
+ * <p>
+ * Events are kept in a ring of {@code capacity} events shared by all the subscribers. A subscriber that fell behind
+ * by more than the ring, or that was behind during a seek, is not sent the events it missed: it receives instead
+ * the exits of the lines it still believes active and the enters of the lines active now, so the memory used for a
+ * slow subscriber is bounded. A new subscriber is first sent the enters of the lines active when it subscribes.
+ * <p>
+ * {@link #advanceTo(long)}, {@link #seek(long)} and {@link #close()} must be called by a single thread. Deliveries
+ * run on the given executor, one at a time per subscriber.
+ *
+ * @since XXX
+ */
+public final class TimelinePublisher
+        implements Flow.Publisher<List<TimelineEvent>>, AutoCloseable {
+
+    private final List<TimeCodedLine> timeline;
+    private final Executor executor;
+    private final int maxBatch;
+    private final int[] ring;
+    private final BitSet active = new BitSet();
+    private final List<LineSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private long time;
+    private int nextStart;
+    /** Sequence number of the next event to be written in the ring */
+    private long sequence;
+    /** Subscribers behind this sequence number must coalesce */
+    private long seekSequence;
+    private boolean closed;
+
+    /**
+     * @param timeline the lines, sorted by range
+     * @param start    the initial time of the playback
+     * @param executor the executor delivering the events to subscribers
+     * @param capacity the number of events kept for slow subscribers
+     * @param maxBatch the maximum number of events in a batch, except for the coalesced ones
+     *
+     * @throws java.lang.IllegalArgumentException if and only if {@code capacity} or {@code maxBatch} is not
+     *                                            strictly positive
+     */
+    public TimelinePublisher(
+            final List<TimeCodedLine> timeline,
+            final long start,
+            final Executor executor,
+            final int capacity,
+            final int maxBatch
+    ) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity (" + capacity + ") must be strictly positive");
+        if (maxBatch <= 0) throw new IllegalArgumentException("maxBatch (" + maxBatch + ") must be strictly positive");
+        this.timeline = List.copyOf(timeline);
+        this.executor = Objects.requireNonNull(executor, "executor must not be null");
+        this.maxBatch = maxBatch;
+        this.ring = new int[capacity];
+        this.reset(start);
+    }
+
+    private static int encode(
+            final TimelineEvent.Kind kind,
+            final int index
+    ) {
+        return index << 1 | kind.ordinal();
+    }
+
+    @Override
+    public void subscribe(final Flow.Subscriber<? super List<TimelineEvent>> subscriber) {
+        final LineSubscription subscription = new LineSubscription(Objects.requireNonNull(subscriber));
+        // Registered first to capture the lines active now, but no signal reaches the subscriber until it is subscribed
+        this.register(subscription);
+        try {
+            subscriber.onSubscribe(subscription);
+        } finally {
+            subscription.release();
+        }
+    }
+
+    private synchronized void register(final LineSubscription subscription) {
+        final List<TimelineEvent> enters = new ArrayList<>();
+        this.addAll(this.active, TimelineEvent.Kind.ENTER, enters);
+        subscription.initial = enters.isEmpty() ? null : enters;
+        subscription.known.or(this.active);
+        subscription.cursor = this.sequence;
+        this.subscriptions.add(subscription);
+    }
+
+    /**
+     * @return the current time of the playback
+     */
+    public synchronized long time() {
+        return this.time;
+    }
+
+    /**
+     * Move the playback forward, publishing the start and end of every line met on the way.
+     *
+     * @param time the new time of the playback
+     *
+     * @throws java.lang.IllegalArgumentException if and only if {@code time} is before the current time
+     * @throws java.lang.IllegalStateException    if and only if the publisher is closed
+     */
+    public void advanceTo(final long time) {
+        synchronized (this) {
+            if (this.closed) throw new IllegalStateException("publisher is closed");
+            if (time < this.time)
+                throw new IllegalArgumentException("time (" + time + ") must not be before " + this.time);
+            while (true) {
+                int exiting = -1;
+                long exitTime = Long.MAX_VALUE;
+                for (int i = this.active.nextSetBit(0); i >= 0; i = this.active.nextSetBit(i + 1)) {
+                    final long end = this.timeline.get(i).range().end();
+                    if (end < exitTime) {
+                        exitTime = end;
+                        exiting = i;
+                    }
+                }
+                final long enterTime = this.nextStart < this.timeline.size() ?
+                                       this.timeline.get(this.nextStart).range().start() : Long.MAX_VALUE;
+                if (exiting >= 0 && exitTime <= enterTime && exitTime <= time) {
+                    this.active.clear(exiting);
+                    this.publish(encode(TimelineEvent.Kind.EXIT, exiting));
+                } else if (enterTime <= time) {
+                    this.active.set(this.nextStart);
+                    this.publish(encode(TimelineEvent.Kind.ENTER, this.nextStart++));
+                } else {
+                    break;
+                }
+            }
+            this.time = time;
+        }
+        this.signalAll();
+    }
+
+    /**
+     * Jump to any time: subscribers are only told about the lines whose state changed, not the ones skipped.
+     *
+     * @param time the new time of the playback
+     *
+     * @throws java.lang.IllegalStateException if and only if the publisher is closed
+     */
+    public void seek(final long time) {
+        synchronized (this) {
+            if (this.closed) throw new IllegalStateException("publisher is closed");
+            this.reset(time);
+            // Skip a sequence number so that even the subscribers up to date are behind, and coalesce
+            this.seekSequence = ++this.sequence;
+        }
+        this.signalAll();
+    }
+
+    private void reset(final long time) {
+        this.active.clear();
+        int i = 0;
+        for (; i < this.timeline.size() && this.timeline.get(i).range().start() <= time; i++) {
+            if (time < this.timeline.get(i).range().end()) this.active.set(i);
+        }
+        this.nextStart = i;
+        this.time = time;
+    }
+
+    private void publish(final int event) {
+        this.ring[(int) (this.sequence++ % this.ring.length)] = event;
+    }
+
+    /**
+     * Complete all the subscribers once they received the pending events.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            this.closed = true;
+        }
+        this.signalAll();
+    }
+
+    private void signalAll() {
+        for (final LineSubscription subscription : this.subscriptions) subscription.signal();
+    }
+
+    /**
+     * @return the next batch for the subscription, empty if it is up to date
+     */
+    private synchronized List<TimelineEvent> nextBatch(final LineSubscription subscription) {
+        final List<TimelineEvent> batch = new ArrayList<>();
+        final BitSet known = subscription.known;
+        if (subscription.cursor < this.seekSequence || subscription.cursor < this.sequence - this.ring.length) {
+            if (subscription.initial != null) {
+                // The subscriber has not even been told about the lines active when it subscribed
+                subscription.initial = null;
+                known.clear();
+            }
+            final BitSet exits = (BitSet) known.clone();
+            exits.andNot(this.active);
+            this.addAll(exits, TimelineEvent.Kind.EXIT, batch);
+            final BitSet enters = (BitSet) this.active.clone();
+            enters.andNot(known);
+            this.addAll(enters, TimelineEvent.Kind.ENTER, batch);
+            known.clear();
+            known.or(this.active);
+            subscription.cursor = this.sequence;
+            return batch;
+        }
+        if (subscription.initial != null) {
+            final List<TimelineEvent> initial = subscription.initial;
+            subscription.initial = null;
+            return initial;
+        }
+        final long end = Math.min(this.sequence, subscription.cursor + this.maxBatch);
+        for (long s = subscription.cursor; s < end; s++) {
+            final TimelineEvent event = this.event(this.ring[(int) (s % this.ring.length)]);
+            known.set(event.index(), event.kind() == TimelineEvent.Kind.ENTER);
+            batch.add(event);
+        }
+        subscription.cursor = end;
+        return batch;
+    }
+
+    private void addAll(
+            final BitSet lines,
+            final TimelineEvent.Kind kind,
+            final List<TimelineEvent> batch
+    ) {
+        for (int i = lines.nextSetBit(0); i >= 0; i = lines.nextSetBit(i + 1)) batch.add(this.event(encode(kind, i)));
+    }
+
+    private synchronized boolean isCompleted(final LineSubscription subscription) {
+        return this.closed && subscription.initial == null && subscription.cursor >= this.sequence
+               && subscription.cursor >= this.seekSequence;
+    }
+
+    private TimelineEvent event(final int code) {
+        final int index = code >>> 1;
+        return new TimelineEvent(TimelineEvent.Kind.values()[code & 1], index, this.timeline.get(index));
+    }
+
+    private final class LineSubscription
+            implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super List<TimelineEvent>> subscriber;
+        private final AtomicLong requested = new AtomicLong();
+        /** Starts held, so that signals during {@code onSubscribe} are only counted, see {@link #release()} */
+        private final AtomicInteger wip = new AtomicInteger(1);
+        /** Lines the subscriber has been told are active, only accessed under the publisher lock */
+        private final BitSet known = new BitSet();
+        /** Enters of the lines active at subscription, {@code null} once delivered */
+        private List<TimelineEvent> initial;
+        /** Sequence number of the next event to deliver */
+        private long cursor;
+        private volatile boolean done;
+        private volatile Throwable error;
+
+        private LineSubscription(final Flow.Subscriber<? super List<TimelineEvent>> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(final long n) {
+            if (n <= 0L) this.error = new IllegalArgumentException("n (" + n + ") must be strictly positive");
+            else this.requested.getAndAccumulate(n, (r, a) -> r + a < 0L ? Long.MAX_VALUE : r + a);
+            this.signal();
+        }
+
+        @Override
+        public void cancel() {
+            this.done = true;
+            TimelinePublisher.this.subscriptions.remove(this);
+        }
+
+        private void signal() {
+            if (this.wip.getAndIncrement() == 0) TimelinePublisher.this.executor.execute(this::drain);
+        }
+
+        /**
+         * Deliver the signals held until the subscriber was subscribed, the initial hold counting as one.
+         */
+        private void release() {
+            TimelinePublisher.this.executor.execute(this::drain);
+        }
+
+        private void drain() {
+            int missed = 1;
+            do {
+                if (!this.done && this.error != null) {
+                    this.cancel();
+                    this.subscriber.onError(this.error);
+                }
+                while (!this.done && this.requested.get() > 0L) {
+                    final List<TimelineEvent> batch = TimelinePublisher.this.nextBatch(this);
+                    if (batch.isEmpty()) break;
+                    if (this.requested.get() != Long.MAX_VALUE) this.requested.decrementAndGet();
+                    this.subscriber.onNext(batch);
+                }
+                if (!this.done && TimelinePublisher.this.isCompleted(this)) {
+                    this.cancel();
+                    this.subscriber.onComplete();
+                }
+                missed = this.wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+}
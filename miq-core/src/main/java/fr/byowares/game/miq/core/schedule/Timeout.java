@@ -0,0 +1,78 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.schedule;
+
+/**
+ * Handle of a task scheduled in a {@link fr.byowares.game.miq.core.schedule.TimingWheel}, which doubles as the node
+ * of the slot it is stored in, so that neither scheduling nor cancelling allocates anything else.
+ *
+ * @since XXX
+ */
+public final class Timeout {
+
+    private static final int PENDING = 0;
+    private static final int EXPIRED = 1;
+    private static final int CANCELLED = 2;
+
+    final long deadlineTick;
+    final Runnable task;
+    private final TimingWheel wheel;
+    Timeout previous;
+    Timeout next;
+    int level;
+    int slot;
+    private int state = PENDING;
+
+    Timeout(
+            final TimingWheel wheel,
+            final long deadlineTick,
+            final Runnable task
+    ) {
+        this.wheel = wheel;
+        this.deadlineTick = deadlineTick;
+        this.task = task;
+    }
+
+    /**
+     * Cancel the task, in constant time. Must be called by the thread driving the wheel.
+     *
+     * @return {@code true} if and only if the task was pending and will now never run
+     */
+    public boolean cancel() {
+        if (this.state != PENDING) return false;
+        this.state = CANCELLED;
+        this.wheel.remove(this);
+        return true;
+    }
+
+    /**
+     * @return {@code true} if and only if the task was cancelled before running
+     */
+    public boolean isCancelled() {
+        return this.state == CANCELLED;
+    }
+
+    /**
+     * @return {@code true} if and only if the task was run
+     */
+    public boolean isExpired() {
+        return this.state == EXPIRED;
+    }
+
+    void expire() {
+        this.state = EXPIRED;
+    }
+}
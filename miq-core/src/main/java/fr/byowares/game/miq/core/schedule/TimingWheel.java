@@ -0,0 +1,248 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.schedule;
+
+import java.util.Objects;
+
+/**
+ * Hierarchical timing wheel: scheduling and cancelling are O(1), and all the tasks due at the same tick are fired
+ * together.
+ * <p>
+ * Time is split in ticks of a fixed duration. Each level of the wheel has {@value #SLOTS} slots, a slot of level
+ * {@code n} covering {@code 64^n} ticks. A task is stored at the lowest level able to tell its tick apart from the
+ * current one, and is moved down (cascaded) when the wheel reaches the range of ticks covered by its slot, so it
+ * is moved at most once per level. Tasks due at the same tick run in the order they were scheduled.
+ * <p>
+ * The wheel is not thread-safe: it is meant to be owned by one event loop, which schedules, cancels, and calls
+ * {@link #advance()} regularly. Tasks are never run before their deadline, but may run up to one tick later.
+ * <p>
+ * Each level keeps a bitmap of its non-empty slots, so that {@link #advance()} jumps over idle ticks: its cost
+ * depends on the number of ticks with something to fire or cascade, not on the time elapsed since the last call.
+ *
+ * @since XXX
+ */
+public final class TimingWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = (Long.SIZE + SLOT_BITS - 1) / SLOT_BITS;
+    private static final int DETACHED = -1;
+
+    private final MonotonicClock clock;
+    private final long tickNanos;
+    private final long origin;
+    private final Timeout[][] heads = new Timeout[LEVELS][SLOTS];
+    private final Timeout[][] tails = new Timeout[LEVELS][SLOTS];
+    /** Bit {@code s} of {@code occupied[level]} is set if and only if the slot {@code s} of the level is not empty */
+    private final long[] occupied = new long[LEVELS];
+    private long tick;
+    private int pending;
+
+    /**
+     * @param clock     the clock driving the wheel, its current time being the origin of the wheel
+     * @param tickNanos the duration of a tick in nanoseconds, i.e. the precision of the wheel
+     *
+     * @throws java.lang.IllegalArgumentException if and only if {@code tickNanos} is not strictly positive
+     */
+    public TimingWheel(
+            final MonotonicClock clock,
+            final long tickNanos
+    ) {
+        if (tickNanos <= 0L)
+            throw new IllegalArgumentException("tickNanos (" + tickNanos + ") must be strictly positive");
+        this.clock = clock;
+        this.tickNanos = tickNanos;
+        this.origin = clock.nanoTime();
+    }
+
+    /**
+     * @param deadline the time, as given by the clock of the wheel, after which the task must run
+     * @param task     the task to run
+     *
+     * @return the handle of the scheduled task
+     */
+    public Timeout scheduleAt(
+            final long deadline,
+            final Runnable task
+    ) {
+        Objects.requireNonNull(task, "task must not be null");
+        long elapsed;
+        try {
+            elapsed = Math.subtractExact(deadline, this.origin);
+        } catch (final ArithmeticException e) {
+            // Saturate: a deadline too far to be represented is never reached
+            elapsed = deadline > this.origin ? Long.MAX_VALUE : Long.MIN_VALUE;
+        }
+        final Timeout timeout = new Timeout(this, elapsed <= 0L ? 0L : Math.ceilDiv(elapsed, this.tickNanos), task);
+        this.place(timeout);
+        this.pending++;
+        return timeout;
+    }
+
+    /**
+     * @param delayNanos the time to wait, from now, before running the task; a delay too long for the clock is
+     *                   never reached
+     * @param task       the task to run
+     *
+     * @return the handle of the scheduled task
+     */
+    public Timeout scheduleAfter(
+            final long delayNanos,
+            final Runnable task
+    ) {
+        final long now = this.clock.nanoTime();
+        long deadline;
+        try {
+            deadline = Math.addExact(now, delayNanos);
+        } catch (final ArithmeticException e) {
+            deadline = delayNanos > 0L ? Long.MAX_VALUE : Long.MIN_VALUE;
+        }
+        return this.scheduleAt(deadline, task);
+    }
+
+    /**
+     * @return the number of tasks neither run nor cancelled
+     */
+    public int pending() {
+        return this.pending;
+    }
+
+    /**
+     * Run all the tasks whose deadline is reached according to the clock.
+     * <p>
+     * If a task throws, the other tasks of the same tick are still run, then the first exception is rethrown with
+     * the following ones suppressed. Later ticks are processed by the next call.
+     *
+     * @return the number of tasks run
+     */
+    public int advance() {
+        final long target = Math.floorDiv(this.clock.nanoTime() - this.origin, this.tickNanos);
+        int fired = 0;
+        while (this.tick <= target) {
+            // Ticks before the next busy one have nothing to cascade nor to fire
+            final long next = this.pending == 0 ? Long.MAX_VALUE : this.nextBusyTick();
+            if (next > target) {
+                this.tick = target + 1L;
+                break;
+            }
+            this.tick = next;
+            fired += this.processTick();
+        }
+        return fired;
+    }
+
+    /**
+     * @return the first tick from the current one where a slot must be fired or cascaded, {@link Long#MAX_VALUE} if
+     * there is none
+     */
+    private long nextBusyTick() {
+        final long t = this.tick;
+        long next = Long.MAX_VALUE;
+        for (int level = 0; level < LEVELS; level++) {
+            final int shift = level * SLOT_BITS;
+            final int slot = (int) (t >>> shift) & SLOT_MASK;
+            // Slots before the current one are empty; the current one is still to be processed only on its first tick
+            final int first = level == 0 || (t & ((1L << shift) - 1L)) == 0L ? slot : slot + 1;
+            final long bits = first == SLOTS ? 0L : this.occupied[level] & (-1L << first);
+            if (bits == 0L) continue;
+            final int upperShift = shift + SLOT_BITS;
+            final long base = upperShift >= Long.SIZE ? 0L : t & (-1L << upperShift);
+            next = Math.min(next, base | ((long) Long.numberOfTrailingZeros(bits) << shift));
+        }
+        return next;
+    }
+
+    private int processTick() {
+        final long t = this.tick;
+        for (int level = LEVELS - 1; level > 0; level--) {
+            final int shift = level * SLOT_BITS;
+            if ((t & ((1L << shift) - 1L)) != 0L) continue;
+            Timeout timeout = this.detach(level, (int) (t >>> shift) & SLOT_MASK);
+            while (timeout != null) {
+                final Timeout next = timeout.next;
+                this.place(timeout);
+                timeout = next;
+            }
+        }
+
+        Timeout timeout = this.detach(0, (int) t & SLOT_MASK);
+        this.tick = t + 1L;
+        int fired = 0;
+        RuntimeException failure = null;
+        while (timeout != null) {
+            final Timeout current = timeout;
+            timeout = timeout.next;
+            current.previous = null;
+            current.next = null;
+            if (current.isCancelled()) continue;
+            current.expire();
+            this.pending--;
+            fired++;
+            try {
+                current.task.run();
+            } catch (final RuntimeException e) {
+                if (failure == null) failure = e;
+                else failure.addSuppressed(e);
+            }
+        }
+        if (failure != null) throw failure;
+        return fired;
+    }
+
+    private void place(final Timeout timeout) {
+        final long deadline = Math.max(timeout.deadlineTick, this.tick);
+        final long diff = deadline ^ this.tick;
+        final int level = diff == 0L ? 0 : (Long.SIZE - 1 - Long.numberOfLeadingZeros(diff)) / SLOT_BITS;
+        final int slot = (int) (deadline >>> (level * SLOT_BITS)) & SLOT_MASK;
+        timeout.level = level;
+        timeout.slot = slot;
+        timeout.next = null;
+        timeout.previous = this.tails[level][slot];
+        this.occupied[level] |= 1L << slot;
+        if (timeout.previous == null) this.heads[level][slot] = timeout;
+        else timeout.previous.next = timeout;
+        this.tails[level][slot] = timeout;
+    }
+
+    /**
+     * Empty a slot and return its former content, whose nodes are flagged as detached so that a cancellation while
+     * they are being processed does not touch the slot anymore.
+     */
+    private Timeout detach(
+            final int level,
+            final int slot
+    ) {
+        final Timeout head = this.heads[level][slot];
+        this.heads[level][slot] = null;
+        this.tails[level][slot] = null;
+        this.occupied[level] &= ~(1L << slot);
+        for (Timeout t = head; t != null; t = t.next) t.level = DETACHED;
+        return head;
+    }
+
+    void remove(final Timeout timeout) {
+        this.pending--;
+        if (timeout.level == DETACHED) return;
+        if (timeout.previous == null) this.heads[timeout.level][timeout.slot] = timeout.next;
+        else timeout.previous.next = timeout.next;
+        if (timeout.next == null) this.tails[timeout.level][timeout.slot] = timeout.previous;
+        else timeout.next.previous = timeout.previous;
+        if (this.heads[timeout.level][timeout.slot] == null) this.occupied[timeout.level] &= ~(1L << timeout.slot);
+        timeout.previous = null;
+        timeout.next = null;
+    }
+}
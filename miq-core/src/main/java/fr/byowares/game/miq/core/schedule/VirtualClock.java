@@ -0,0 +1,51 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.schedule;
+
+/**
+ * A clock that only moves when told to, to make time-dependent code deterministic.
+ * <p>
+ * This clock is not thread-safe: it must be advanced by the thread reading it.
+ *
+ * @since XXX
+ */
+public final class VirtualClock
+        implements MonotonicClock {
+
+    private long now;
+
+    /**
+     * @param start the initial time of the clock, in nanoseconds
+     */
+    public VirtualClock(final long start) {
+        this.now = start;
+    }
+
+    @Override
+    public long nanoTime() {
+        return this.now;
+    }
+
+    /**
+     * @param nanos the time to add to the clock
+     *
+     * @throws java.lang.IllegalArgumentException if and only if {@code nanos} is negative
+     */
+    public void advance(final long nanos) {
+        if (nanos < 0L) throw new IllegalArgumentException("nanos (" + nanos + ") must be positive or zero");
+        this.now += nanos;
+    }
+}
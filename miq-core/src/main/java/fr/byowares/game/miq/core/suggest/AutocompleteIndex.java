@@ -0,0 +1,376 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.suggest;
+
+import fr.byowares.game.miq.core.text.LyricNormalizer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable radix trie over the normalized texts of suggestions, with the top suggestions of each node
+ * precomputed, so that answering a prefix is a walk down the trie followed by a copy of at most {@code k} ids.
+ * <p>
+ * Suggestions are numbered by rank (weight descending, then text), so the top suggestions of a node are simply the
+ * {@code k} lowest ids of its subtree. The whole index lives in a single {@link java.nio.ByteBuffer}, which can be
+ * written to a file when building the catalog and memory-mapped at startup without parsing:
+ * <pre>
+ * header   int[8]          magic, version, k, nodeCount, topLength, entryCount, labelLength, displayLength
+ * weights  long[entries]
+ * nodes    int[6 * nodes]  labelStart, labelLength, firstChild, childCount, topStart, topCount
+ * top      int[topLength]
+ * offsets  int[entries+1]  offsets of the texts in the display chars
+ * labels   char[labelLength]
+ * display  char[displayLength]
+ * </pre>
+ * Nodes are stored breadth-first, so the children of a node are contiguous and sorted by the first char of their
+ * label, which is found by binary search.
+ *
+ * @since XXX
+ */
+public final class AutocompleteIndex {
+
+    private static final int MAGIC = 0x4D495141; // MIQA
+    private static final int VERSION = 1;
+    private static final int HEADER_INTS = 8;
+    private static final int NODE_INTS = 6;
+
+    private final ByteBuffer buffer;
+    private final int k;
+    private final LongBuffer weights;
+    private final IntBuffer nodes;
+    private final IntBuffer top;
+    private final IntBuffer offsets;
+    private final CharBuffer labels;
+    private final CharBuffer display;
+
+    private AutocompleteIndex(final ByteBuffer buffer) {
+        this.buffer = buffer;
+        final int magic = buffer.getInt(0);
+        if (magic != MAGIC) throw new IllegalArgumentException("magic (" + magic + ") must be " + MAGIC);
+        final int version = buffer.getInt(Integer.BYTES);
+        if (version != VERSION) throw new IllegalArgumentException("version (" + version + ") must be " + VERSION);
+        this.k = buffer.getInt(2 * Integer.BYTES);
+        final int nodeCount = buffer.getInt(3 * Integer.BYTES);
+        final int topLength = buffer.getInt(4 * Integer.BYTES);
+        final int entryCount = buffer.getInt(5 * Integer.BYTES);
+        final int labelLength = buffer.getInt(6 * Integer.BYTES);
+        final int displayLength = buffer.getInt(7 * Integer.BYTES);
+        int offset = HEADER_INTS * Integer.BYTES;
+        this.weights = buffer.slice(offset, entryCount * Long.BYTES).asLongBuffer();
+        offset += entryCount * Long.BYTES;
+        this.nodes = buffer.slice(offset, nodeCount * NODE_INTS * Integer.BYTES).asIntBuffer();
+        offset += nodeCount * NODE_INTS * Integer.BYTES;
+        this.top = buffer.slice(offset, topLength * Integer.BYTES).asIntBuffer();
+        offset += topLength * Integer.BYTES;
+        this.offsets = buffer.slice(offset, (entryCount + 1) * Integer.BYTES).asIntBuffer();
+        offset += (entryCount + 1) * Integer.BYTES;
+        this.labels = buffer.slice(offset, labelLength * Character.BYTES).asCharBuffer();
+        offset += labelLength * Character.BYTES;
+        this.display = buffer.slice(offset, displayLength * Character.BYTES).asCharBuffer();
+    }
+
+    /**
+     * @param buffer a buffer holding an index, e.g. as written by {@link #writeTo(WritableByteChannel)}, from its
+     *               position to its limit; it is shared, not copied
+     *
+     * @return the index held by the buffer
+     *
+     * @throws java.lang.IllegalArgumentException if and only if the buffer does not start with an index
+     */
+    public static AutocompleteIndex of(final ByteBuffer buffer) {
+        return new AutocompleteIndex(buffer.slice().order(ByteOrder.BIG_ENDIAN));
+    }
+
+    /**
+     * @param file a file written by {@link #writeTo(WritableByteChannel)}
+     *
+     * @return the index of the file, memory-mapped read-only
+     *
+     * @throws java.io.IOException if the file cannot be mapped
+     */
+    public static AutocompleteIndex map(final Path file) throws IOException {
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return of(channel.map(FileChannel.MapMode.READ_ONLY, 0L, channel.size()));
+        }
+    }
+
+    /**
+     * @param suggestions the suggestions to index
+     * @param k           the maximum number of suggestions returned for a prefix
+     *
+     * @return the index of the suggestions
+     *
+     * @throws java.lang.IllegalArgumentException if and only if {@code k} is not strictly positive
+     */
+    public static AutocompleteIndex build(
+            final List<Suggestion> suggestions,
+            final int k
+    ) {
+        if (k <= 0) throw new IllegalArgumentException("k (" + k + ") must be strictly positive");
+        final Suggestion[] ranked = suggestions.toArray(Suggestion[]::new);
+        Arrays.sort(ranked, Comparator.comparingLong(Suggestion::weight).reversed().thenComparing(Suggestion::text));
+        final String[] keys = new String[ranked.length];
+        for (int i = 0; i < ranked.length; i++) keys[i] = LyricNormalizer.normalize(ranked[i].text());
+        final Integer[] sorted = new Integer[ranked.length];
+        for (int i = 0; i < sorted.length; i++) sorted[i] = i;
+        Arrays.sort(sorted, Comparator.comparing((Integer i) -> keys[i]).thenComparingInt(i -> i));
+        final int[] order = new int[sorted.length];
+        for (int i = 0; i < order.length; i++) order[i] = sorted[i];
+        final Node root = Node.build(keys, order, 0, order.length, 0, "", k);
+        return new AutocompleteIndex(serialize(root, ranked, k));
+    }
+
+    private static ByteBuffer serialize(
+            final Node root,
+            final Suggestion[] ranked,
+            final int k
+    ) {
+        final List<Node> breadthFirst = new ArrayList<>();
+        final ArrayDeque<Node> queue = new ArrayDeque<>();
+        queue.add(root);
+        int topLength = 0;
+        int labelLength = 0;
+        while (!queue.isEmpty()) {
+            final Node node = queue.poll();
+            breadthFirst.add(node);
+            topLength += node.top.length;
+            labelLength += node.label.length();
+            queue.addAll(node.children);
+        }
+        int displayLength = 0;
+        for (final Suggestion suggestion : ranked) displayLength += suggestion.text().length();
+        final int nodeCount = breadthFirst.size();
+        final int entryCount = ranked.length;
+        final long size = (long) HEADER_INTS * Integer.BYTES + (long) entryCount * Long.BYTES
+                          + (long) nodeCount * NODE_INTS * Integer.BYTES + (long) topLength * Integer.BYTES
+                          + (long) (entryCount + 1) * Integer.BYTES + (long) labelLength * Character.BYTES
+                          + (long) displayLength * Character.BYTES;
+        final ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(size));
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(k).putInt(nodeCount).putInt(topLength).putInt(entryCount)
+              .putInt(labelLength).putInt(displayLength);
+        for (final Suggestion suggestion : ranked) buffer.putLong(suggestion.weight());
+        int nextChild = 1;
+        int labelStart = 0;
+        int topStart = 0;
+        for (final Node node : breadthFirst) {
+            buffer.putInt(labelStart).putInt(node.label.length()).putInt(nextChild).putInt(node.children.size())
+                  .putInt(topStart).putInt(node.top.length);
+            nextChild += node.children.size();
+            labelStart += node.label.length();
+            topStart += node.top.length;
+        }
+        for (final Node node : breadthFirst) for (final int id : node.top) buffer.putInt(id);
+        int displayStart = 0;
+        buffer.putInt(displayStart);
+        for (final Suggestion suggestion : ranked) {
+            displayStart += suggestion.text().length();
+            buffer.putInt(displayStart);
+        }
+        for (final Node node : breadthFirst) {
+            for (int i = 0; i < node.label.length(); i++) buffer.putChar(node.label.charAt(i));
+        }
+        for (final Suggestion suggestion : ranked) {
+            final String text = suggestion.text();
+            for (int i = 0; i < text.length(); i++) buffer.putChar(text.charAt(i));
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * @return the maximum number of suggestions returned for a prefix
+     */
+    public int k() {
+        return this.k;
+    }
+
+    /**
+     * @return the number of suggestions in the index
+     */
+    public int size() {
+        return this.weights.capacity();
+    }
+
+    /**
+     * @param prefix  the text typed by a player, normalized before lookup
+     * @param scratch a buffer reused between calls, its content is overwritten
+     * @param ids     where to write the ids of the suggestions, most popular first
+     *
+     * @return the number of ids written, at most {@code min(k, ids.length)}
+     */
+    public int suggest(
+            final CharSequence prefix,
+            final StringBuilder scratch,
+            final int[] ids
+    ) {
+        scratch.setLength(0);
+        LyricNormalizer.normalize(prefix, scratch);
+        final int length = scratch.length();
+        int node = 0;
+        int pos = 0;
+        while (pos < length) {
+            node = this.findChild(node, scratch.charAt(pos));
+            if (node < 0) return 0;
+            final int labelStart = this.nodes.get(node * NODE_INTS);
+            final int matched = Math.min(this.nodes.get(node * NODE_INTS + 1), length - pos);
+            for (int i = 1; i < matched; i++) if (this.labels.get(labelStart + i) != scratch.charAt(pos + i)) return 0;
+            pos += matched;
+        }
+        final int topStart = this.nodes.get(node * NODE_INTS + 4);
+        final int count = Math.min(this.nodes.get(node * NODE_INTS + 5), ids.length);
+        this.top.get(topStart, ids, 0, count);
+        return count;
+    }
+
+    /**
+     * @param prefix the text typed by a player
+     *
+     * @return the texts of the suggestions for the prefix, most popular first
+     */
+    public List<String> suggest(final CharSequence prefix) {
+        final int[] ids = new int[this.k];
+        final int count = this.suggest(prefix, new StringBuilder(prefix.length()), ids);
+        final List<String> texts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) texts.add(this.text(ids[i]));
+        return texts;
+    }
+
+    private int findChild(
+            final int node,
+            final char c
+    ) {
+        int low = this.nodes.get(node * NODE_INTS + 2);
+        int high = low + this.nodes.get(node * NODE_INTS + 3) - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final char first = this.labels.get(this.nodes.get(mid * NODE_INTS));
+            if (first < c) low = mid + 1;
+            else if (first > c) high = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    /**
+     * @param id the id of a suggestion
+     *
+     * @return the text of the suggestion
+     */
+    public String text(final int id) {
+        final int start = this.offsets.get(id);
+        final char[] chars = new char[this.offsets.get(id + 1) - start];
+        this.display.get(start, chars);
+        return new String(chars);
+    }
+
+    /**
+     * @param id the id of a suggestion
+     *
+     * @return the weight of the suggestion
+     */
+    public long weight(final int id) {
+        return this.weights.get(id);
+    }
+
+    /**
+     * @param channel where to write the index
+     *
+     * @throws java.io.IOException if the channel cannot be written
+     */
+    public void writeTo(final WritableByteChannel channel) throws IOException {
+        final ByteBuffer content = this.buffer.duplicate().clear();
+        while (content.hasRemaining()) channel.write(content);
+    }
+
+    /**
+     * Node of the trie while building it.
+     */
+    private static final class Node {
+
+        private final String label;
+        private final List<Node> children = new ArrayList<>();
+        private int[] top;
+
+        private Node(final String label) {
+            this.label = label;
+        }
+
+        /**
+         * @param order the ids sorted by key, {@code [from, to)} being the ids whose keys share their first
+         *              {@code depth} chars
+         */
+        private static Node build(
+                final String[] keys,
+                final int[] order,
+                final int from,
+                final int to,
+                final int depth,
+                final String label,
+                final int k
+        ) {
+            final Node node = new Node(label);
+            int i = from;
+            // Keys ending here sort first
+            while (i < to && keys[order[i]].length() == depth) i++;
+            int[] candidates = merge(new int[0], Arrays.copyOfRange(order, from, i), k);
+            while (i < to) {
+                final char c = keys[order[i]].charAt(depth);
+                int end = i + 1;
+                while (end < to && keys[order[end]].charAt(depth) == c) end++;
+                final String first = keys[order[i]];
+                final String last = keys[order[end - 1]];
+                int common = depth + 1;
+                final int shortest = Math.min(first.length(), last.length());
+                while (common < shortest && first.charAt(common) == last.charAt(common)) common++;
+                final Node child = build(keys, order, i, end, common, first.substring(depth, common), k);
+                node.children.add(child);
+                candidates = merge(candidates, child.top, k);
+                i = end;
+            }
+            node.top = candidates;
+            return node;
+        }
+
+        private static int[] merge(
+                final int[] a,
+                final int[] b,
+                final int k
+        ) {
+            final int[] merged = new int[Math.min(k, a.length + b.length)];
+            int i = 0;
+            int j = 0;
+            final int[] sortedB = b.clone();
+            Arrays.sort(sortedB);
+            for (int m = 0; m < merged.length; m++) {
+                merged[m] = j >= sortedB.length || (i < a.length && a[i] < sortedB[j]) ? a[i++] : sortedB[j++];
+            }
+            return merged;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.suggest;
+
+import java.util.Objects;
+
+/**
+ * A text that can be suggested, e.g. a song title, with its popularity.
+ *
+ * @param text   the text displayed to players
+ * @param weight the popularity of the text, the most popular texts being suggested first
+ *
+ * @since XXX
+ */
+public record Suggestion(String text, long weight) {
+
+    /**
+     * @param text   the text displayed to players
+     * @param weight the popularity of the text, the most popular texts being suggested first
+     *
+     * @throws java.lang.NullPointerException     if and only if {@code text} is {@code null}
+     * @throws java.lang.IllegalArgumentException if and only if {@code weight} is negative
+     */
+    public Suggestion {
+        Objects.requireNonNull(text, "text must not be null");
+        if (weight < 0L) throw new IllegalArgumentException("weight (" + weight + ") must be positive or zero");
+    }
+}
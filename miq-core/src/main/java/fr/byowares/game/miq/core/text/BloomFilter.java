@@ -0,0 +1,112 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.text;
+
+import fr.byowares.game.miq.core.hash.Mixer;
+
+/**
+ * Blocked Bloom filter of 64-bit hashes: each key only touches one {@code long} of the filter, so adding or
+ * testing a key is a single memory access and a mask test.
+ * <p>
+ * Confining the {@value #BITS_PER_KEY_IN_BLOCK} bits of a key to one block raises the false-positive rate a bit
+ * compared to a classic Bloom filter of the same size, which {@link #withCapacity(int, int)} compensates by
+ * a few more bits per key.
+ *
+ * @since XXX
+ */
+public final class BloomFilter {
+
+    private static final int BITS_PER_KEY_IN_BLOCK = 4;
+
+    private final long[] blocks;
+
+    private BloomFilter(final int blocks) {
+        this.blocks = new long[blocks];
+    }
+
+    /**
+     * @param expectedKeys the number of keys that will be added
+     * @param bitsPerKey   the size of the filter per key, 12 giving about 1% of false positives
+     *
+     * @return an empty filter
+     *
+     * @throws java.lang.IllegalArgumentException if and only if {@code bitsPerKey} is not strictly positive
+     */
+    public static BloomFilter withCapacity(
+            final int expectedKeys,
+            final int bitsPerKey
+    ) {
+        if (bitsPerKey <= 0)
+            throw new IllegalArgumentException("bitsPerKey (" + bitsPerKey + ") must be strictly positive");
+        final long bits = (long) Math.max(1, expectedKeys) * bitsPerKey;
+        return new BloomFilter((int) Math.min(Integer.MAX_VALUE - 8, (bits + Long.SIZE - 1) / Long.SIZE));
+    }
+
+    /**
+     * Finalization step of MurmurHash3: spread the entropy of all bits of a value over all bits of the result.
+     *
+     * @param value the value to mix
+     *
+     * @return a well distributed 64-bit hash of the value
+     */
+    public static long mix(final long value) {
+        return Mixer.mix(value);
+    }
+
+    private int block(final long hash) {
+        // Lemire's fast range reduction on the high bits, the low bits select the bits inside the block
+        return (int) (((hash >>> 32) * this.blocks.length) >>> 32);
+    }
+
+    private static long mask(final long hash) {
+        return 1L << hash | 1L << (hash >>> 6) | 1L << (hash >>> 12) | 1L << (hash >>> 18);
+    }
+
+    /**
+     * @param hash a well distributed 64-bit hash, see {@link #mix(long)}
+     */
+    public void add(final long hash) {
+        this.blocks[this.block(hash)] |= mask(hash);
+    }
+
+    /**
+     * @param hash a well distributed 64-bit hash, see {@link #mix(long)}
+     *
+     * @return {@code false} if the key was definitely not added, {@code true} if it probably was
+     */
+    public boolean mightContain(final long hash) {
+        final long mask = mask(hash);
+        return (this.blocks[this.block(hash)] & mask) == mask;
+    }
+
+    /**
+     * @return the probability that {@link #mightContain(long)} answers {@code true} for a key never added, estimated
+     *         from the fill ratio of each block
+     */
+    public double estimatedFalsePositiveRate() {
+        double sum = 0d;
+        for (final long block : this.blocks)
+            sum += Math.pow(Long.bitCount(block) / (double) Long.SIZE, BITS_PER_KEY_IN_BLOCK);
+        return sum / this.blocks.length;
+    }
+
+    /**
+     * @return the size of the filter in bits
+     */
+    public long bitSize() {
+        return (long) this.blocks.length * Long.SIZE;
+    }
+}
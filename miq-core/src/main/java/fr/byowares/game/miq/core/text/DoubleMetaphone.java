@@ -0,0 +1,654 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.text;
+
+import java.util.Locale;
+import java.util.function.LongConsumer;
+
+/**
+ * Double Metaphone by Lawrence Philips: a primary and an alternate key of at most 4 chars per word.
+ * <p>
+ * This follows the reference algorithm rule for rule, minus the rules about chars removed by the normalization
+ * (such as {@code Ç} or {@code Ñ}).
+ *
+ * @since XXX
+ */
+final class DoubleMetaphone
+        implements PhoneticEncoder {
+
+    static final int TAG = 1;
+    private static final int MAX_LENGTH = 4;
+    private static final String VOWELS = "AEIOUY";
+    private static final String[] SILENT_START = {"GN", "KN", "PN", "WR", "PS"};
+    private static final String[] L_R_N_M_B_H_F_V_W_SPACE = {"L", "R", "N", "M", "B", "H", "F", "V", "W", " "};
+    private static final String[] ES_EP_EB_EL_EY_IB_IL_IN_IE_EI_ER =
+            {"ES", "EP", "EB", "EL", "EY", "IB", "IL", "IN", "IE", "EI", "ER"};
+    private static final String[] L_T_K_S_N_M_B_Z = {"L", "T", "K", "S", "N", "M", "B", "Z"};
+
+    DoubleMetaphone() {
+        // Stateless
+    }
+
+    private static boolean isVowel(final char c) {
+        return VOWELS.indexOf(c) >= 0;
+    }
+
+    private static boolean isSlavoGermanic(final String value) {
+        return value.indexOf('W') >= 0 || value.indexOf('K') >= 0 || value.contains("CZ") || value.contains("WITZ");
+    }
+
+    private static char charAt(
+            final String value,
+            final int index
+    ) {
+        return index < 0 || index >= value.length() ? Character.MIN_VALUE : value.charAt(index);
+    }
+
+    private static boolean contains(
+            final String value,
+            final int start,
+            final int length,
+            final String... criteria
+    ) {
+        if (start < 0 || start + length > value.length()) return false;
+        for (final String c : criteria) if (value.startsWith(c, start)) return true;
+        return false;
+    }
+
+    @Override
+    public void encode(
+            final CharSequence word,
+            final LongConsumer keys
+    ) {
+        if (word.isEmpty()) return;
+        final Result result = compute(word.toString().toUpperCase(Locale.ROOT));
+        if (result.primary.isEmpty()) return;
+        keys.accept(PhoneticEncoder.pack(TAG, result.primary));
+        if (CharSequence.compare(result.primary, result.alternate) != 0)
+            keys.accept(PhoneticEncoder.pack(TAG, result.alternate));
+    }
+
+    static Result compute(final String value) {
+        final boolean slavoGermanic = isSlavoGermanic(value);
+        final Result result = new Result();
+        int index = contains(value, 0, 2, SILENT_START) ? 1 : 0;
+        if (charAt(value, 0) == 'X') {
+            result.append('S');
+            index = 1;
+        }
+        while (!result.isComplete() && index < value.length()) {
+            switch (value.charAt(index)) {
+                case 'A', 'E', 'I', 'O', 'U', 'Y' -> {
+                    if (index == 0) result.append('A');
+                    index++;
+                }
+                case 'B' -> {
+                    result.append('P');
+                    index = charAt(value, index + 1) == 'B' ? index + 2 : index + 1;
+                }
+                case 'C' -> index = handleC(value, result, index);
+                case 'D' -> index = handleD(value, result, index);
+                case 'F' -> {
+                    result.append('F');
+                    index = charAt(value, index + 1) == 'F' ? index + 2 : index + 1;
+                }
+                case 'G' -> index = handleG(value, result, index, slavoGermanic);
+                case 'H' -> index = handleH(value, result, index);
+                case 'J' -> index = handleJ(value, result, index, slavoGermanic);
+                case 'K' -> {
+                    result.append('K');
+                    index = charAt(value, index + 1) == 'K' ? index + 2 : index + 1;
+                }
+                case 'L' -> index = handleL(value, result, index);
+                case 'M' -> {
+                    result.append('M');
+                    index = conditionM0(value, index) ? index + 2 : index + 1;
+                }
+                case 'N' -> {
+                    result.append('N');
+                    index = charAt(value, index + 1) == 'N' ? index + 2 : index + 1;
+                }
+                case 'P' -> index = handleP(value, result, index);
+                case 'Q' -> {
+                    result.append('K');
+                    index = charAt(value, index + 1) == 'Q' ? index + 2 : index + 1;
+                }
+                case 'R' -> index = handleR(value, result, index, slavoGermanic);
+                case 'S' -> index = handleS(value, result, index, slavoGermanic);
+                case 'T' -> index = handleT(value, result, index);
+                case 'V' -> {
+                    result.append('F');
+                    index = charAt(value, index + 1) == 'V' ? index + 2 : index + 1;
+                }
+                case 'W' -> index = handleW(value, result, index);
+                case 'X' -> index = handleX(value, result, index);
+                case 'Z' -> index = handleZ(value, result, index, slavoGermanic);
+                default -> index++;
+            }
+        }
+        return result;
+    }
+
+    private static int handleC(
+            final String value,
+            final Result result,
+            final int index
+    ) {
+        if (conditionC0(value, index)) {
+            result.append('K');
+            return index + 2;
+        }
+        if (index == 0 && contains(value, index, 6, "CAESAR")) {
+            result.append('S');
+            return index + 2;
+        }
+        if (contains(value, index, 2, "CH")) return handleCH(value, result, index);
+        if (contains(value, index, 2, "CZ") && !contains(value, index - 2, 4, "WICZ")) {
+            // "Czerny"
+            result.append('S', 'X');
+            return index + 2;
+        }
+        if (contains(value, index + 1, 3, "CIA")) {
+            // "focaccia"
+            result.append('X');
+            return index + 3;
+        }
+        if (contains(value, index, 2, "CC") && !(index == 1 && charAt(value, 0) == 'M')) {
+            // double "cc" but not "McClelland"
+            return handleCC(value, result, index);
+        }
+        if (contains(value, index, 2, "CK", "CG", "CQ")) {
+            result.append('K');
+            return index + 2;
+        }
+        if (contains(value, index, 2, "CI", "CE", "CY")) {
+            // Italian vs. English
+            if (contains(value, index, 3, "CIO", "CIE", "CIA")) result.append('S', 'X');
+            else result.append('S');
+            return index + 2;
+        }
+        result.append('K');
+        if (contains(value, index + 1, 2, " C", " Q", " G")) return index + 3;
+        if (contains(value, index + 1, 1, "C", "K", "Q") && !contains(value, index + 1, 2, "CE", "CI"))
+            return index + 2;
+        return index + 1;
+    }
+
+    private static int handleCC(
+            final String value,
+            final Result result,
+            final int index
+    ) {
+        if (contains(value, index + 2, 1, "I", "E", "H") && !contains(value, index + 2, 2, "HU")) {
+            // "bellocchio" but not "bacchus"
+            if ((index == 1 && charAt(value, index - 1) == 'A') || contains(value, index - 1, 5, "UCCEE", "UCCES")) {
+                // "accident", "accede", "succeed"
+                result.append("KS");
+            } else {
+                // "bacci", "bertucci", other Italian
+                result.append('X');
+            }
+            return index + 3;
+        }
+        // Pierce's rule
+        result.append('K');
+        return index + 2;
+    }
+
+    private static int handleCH(
+            final String value,
+            final Result result,
+            final int index
+    ) {
+        if (index > 0 && contains(value, index, 4, "CHAE")) {
+            // "Michael"
+            result.append('K', 'X');
+        } else if (conditionCH0(value, index) || conditionCH1(value, index)) {
+            // Greek roots ("chemistry", "chorus"), Germanic, or otherwise "ch" for "kh" sound
+            result.append('K');
+        } else if (index > 0) {
+            if (contains(value, 0, 2, "MC")) result.append('K');
+            else result.append('X', 'K');
+        } else {
+            result.append('X');
+        }
+        return index + 2;
+    }
+
+    private static int handleD(
+            final String value,
+            final Result result,
+            final int index
+    ) {
+        if (contains(value, index, 2, "DG")) {
+            if (contains(value, index + 2, 1, "I", "E", "Y")) {
+                // "edge"
+                result.append('J');
+                return index + 3;
+            }
+            // "Edgar"
+            result.append("TK");
+            return index + 2;
+        }
+        result.append('T');
+        return contains(value, index, 2, "DT", "DD") ? index + 2 : index + 1;
+    }
+
+    private static int handleG(
+            final String value,
+            final Result result,
+            final int index,
+            final boolean slavoGermanic
+    ) {
+        if (charAt(value, index + 1) == 'H') return handleGH(value, result, index);
+        if (charAt(value, index + 1) == 'N') {
+            if (index == 1 && isVowel(charAt(value, 0)) && !slavoGermanic) {
+                result.append("KN", "N");
+            } else if (!contains(value, index + 2, 2, "EY") && charAt(value, index + 1) != 'Y' && !slavoGermanic) {
+                result.append("N", "KN");
+            } else {
+                result.append("KN");
+            }
+            return index + 2;
+        }
+        if (contains(value, index + 1, 2, "LI") && !slavoGermanic) {
+            result.append("KL", "L");
+            return index + 2;
+        }
+        if (index == 0 &&
+            (charAt(value, index + 1) == 'Y' || contains(value, index + 1, 2, ES_EP_EB_EL_EY_IB_IL_IN_IE_EI_ER))) {
+            // -ges-, -gep-, -gel-, -gie- at beginning
+            result.append('K', 'J');
+            return index + 2;
+        }
+        if ((contains(value, index + 1, 2, "ER") || charAt(value, index + 1) == 'Y') &&
+            !contains(value, 0, 6, "DANGER", "RANGER", "MANGER") && !contains(value, index - 1, 1, "E", "I") &&
+            !contains(value, index - 1, 3, "RGY", "OGY")) {
+            // -ger-, -gy-
+            result.append('K', 'J');
+            return index + 2;
+        }
+        if (contains(value, index + 1, 1, "E", "I", "Y") || contains(value, index - 1, 4, "AGGI", "OGGI")) {
+            // Italian "biaggi"
+            if (contains(value, 0, 4, "VAN ", "VON ") || contains(value, 0, 3, "SCH") ||
+                contains(value, index + 1, 2, "ET")) {
+                // obvious Germanic
+                result.append('K');
+            } else if (contains(value, index + 1, 3, "IER")) {
+                result.append('J');
+            } else {
+                result.append('J', 'K');
+            }
+            return index + 2;
+        }
+        result.append('K');
+        return charAt(value, index + 1) == 'G' ? index + 2 : index + 1;
+    }
+
+    private static int handleGH(
+            final String value,
+            final Result result,
+            final int index
+    ) {
+        if (index > 0 && !isVowel(charAt(value, index - 1))) {
+            result.append('K');
+        } else if (index == 0) {
+            result.append(charAt(value, index + 2) == 'I' ? 'J' : 'K');
+        } else if ((index > 1 && contains(value, index - 2, 1, "B", "H", "D")) ||
+                   (index > 2 && contains(value, index - 3, 1, "B", "H", "D")) ||
+                   (index > 3 && contains(value, index - 4, 1, "B", "H"))) {
+            // Parker's rule (with some further refinements): "hugh"
+            return index + 2;
+        } else if (index > 2 && charAt(value, index - 1) == 'U' &&
+                   contains(value, index - 3, 1, "C", "G", "L", "R", "T")) {
+            // "laugh", "McLaughlin", "cough", "gough", "rough", "tough"
+            result.append('F');
+        } else if (index > 0 && charAt(value, index - 1) != 'I') {
+            result.append('K');
+        }
+        return index + 2;
+    }
+
+    private static int handleH(
+            final String value,
+            final Result result,
+            final int index
+    ) {
+        // Only keep if first & before vowel or between 2 vowels
+        if ((index == 0 || isVowel(charAt(value, index - 1))) && isVowel(charAt(value, index + 1))) {
+            result.append('H');
+            return index + 2;
+        }
+        return index + 1;
+    }
+
+    private static int handleJ(
+            final String value,
+            final Result result,
+            final int index,
+            final boolean slavoGermanic
+    ) {
+        if (contains(value, index, 4, "JOSE") || contains(value, 0, 4, "SAN ")) {
+            // obvious Spanish, "Jose", "San Jacinto"
+            if ((index == 0 && (charAt(value, index + 4) == ' ') || value.length() == 4) ||
+                contains(value, 0, 4, "SAN ")) {
+                result.append('H');
+            } else {
+                result.append('J', 'H');
+            }
+            return index + 1;
+        }
+        if (index == 0) {
+            result.append('J', 'A');
+        } else if (isVowel(charAt(value, index - 1)) && !slavoGermanic &&
+                   (charAt(value, index + 1) == 'A' || charAt(value, index + 1) == 'O')) {
+            result.append('J', 'H');
+        } else if (index == value.length() - 1) {
+            result.append('J', ' ');
+        } else if (!contains(value, index + 1, 1, L_T_K_S_N_M_B_Z) && !contains(value, index - 1, 1, "S", "K", "L")) {
+            result.append('J');
+        }
+        return charAt(value, index + 1) == 'J' ? index + 2 : index + 1;
+    }
+
+    private static int handleL(
+            final String value,
+            final Result result,
+            final int index
+    ) {
+        if (charAt(value, index + 1) == 'L') {
+            if (conditionL0(value, index)) result.appendPrimary('L');
+            else result.append('L');
+            return index + 2;
+        }
+        result.append('L');
+        return index + 1;
+    }
+
+    private static int handleP(
+            final String value,
+            final Result result,
+            final int index
+    ) {
+        if (charAt(value, index + 1) == 'H') {
+            result.append('F');
+            return index + 2;
+        }
+        result.append('P');
+        return contains(value, index + 1, 1, "P", "B") ? index + 2 : index + 1;
+    }
+
+    private static int handleR(
+            final String value,
+            final Result result,
+            final int index,
+            final boolean slavoGermanic
+    ) {
+        if (index == value.length() - 1 && !slavoGermanic && contains(value, index - 2, 2, "IE") &&
+            !contains(value, index - 4, 2, "ME", "MA")) {
+            result.appendAlternate('R');
+        } else {
+            result.append('R');
+        }
+        return charAt(value, index + 1) == 'R' ? index + 2 : index + 1;
+    }
+
+    private static int handleS(
+            final String value,
+            final Result result,
+            final int index,
+            final boolean slavoGermanic
+    ) {
+        if (contains(value, index - 1, 3, "ISL", "YSL")) {
+            // special cases "island", "isle", "carlisle", "carlysle"
+            return index + 1;
+        }
+        if (index == 0 && contains(value, index, 5, "SUGAR")) {
+            result.append('X', 'S');
+            return index + 1;
+        }
+        if (contains(value, index, 2, "SH")) {
+            if (contains(value, index + 1, 4, "HEIM", "HOEK", "HOLM", "HOLZ")) result.append('S');
+            else result.append('X');
+            return index + 2;
+        }
+        if (contains(value, index, 3, "SIO", "SIA") || contains(value, index, 4, "SIAN")) {
+            // Italian and Armenian
+            if (slavoGermanic) result.append('S');
+            else result.append('S', 'X');
+            return index + 3;
+        }
+        if ((index == 0 && contains(value, index + 1, 1, "M", "N", "L", "W")) || contains(value, index + 1, 1, "Z")) {
+            // German and anglicisations, e.g. "smith" matches "schmidt", "snider" matches "schneider"
+            result.append('S', 'X');
+            return contains(value, index + 1, 1, "Z") ? index + 2 : index + 1;
+        }
+        if (contains(value, index, 2, "SC")) return handleSC(value, result, index);
+        if (index == value.length() - 1 && contains(value, index - 2, 2, "AI", "OI")) {
+            // French, e.g. "resnais", "artois"
+            result.appendAlternate('S');
+        } else {
+            result.append('S');
+        }
+        return contains(value, index + 1, 1, "S", "Z") ? index + 2 : index + 1;
+    }
+
+    private static int handleSC(
+            final String value,
+            final Result result,
+            final int index
+    ) {
+        if (charAt(value, index + 2) == 'H') {
+            // Schlesinger's rule
+            if (contains(value, index + 3, 2, "OO", "ER", "EN", "UY", "ED", "EM")) {
+                // Dutch origin, e.g. "school", "schooner"
+                if (contains(value, index + 3, 2, "ER", "EN")) result.append("X", "SK");
+                else result.append("SK");
+            } else if (index == 0 && !isVowel(charAt(value, 3)) && charAt(value, 3) != 'W') {
+                result.append('X', 'S');
+            } else {
+                result.append('X');
+            }
+        } else if (contains(value, index + 2, 1, "I", "E", "Y")) {
+            result.append('S');
+        } else {
+            result.append("SK");
+        }
+        return index + 3;
+    }
+
+    private static int handleT(
+            final String value,
+            final Result result,
+            final int index
+    ) {
+        if (contains(value, index, 4, "TION") || contains(value, index, 3, "TIA", "TCH")) {
+            result.append('X');
+            return index + 3;
+        }
+        if (contains(value, index, 2, "TH") || contains(value, index, 3, "TTH")) {
+            if (contains(value, index + 2, 2, "OM", "AM") || contains(value, 0, 4, "VAN ", "VON ") ||
+                contains(value, 0, 3, "SCH")) {
+                // special case "thomas", "thames" or Germanic
+                result.append('T');
+            } else {
+                result.append('0', 'T');
+            }
+            return index + 2;
+        }
+        result.append('T');
+        return contains(value, index + 1, 1, "T", "D") ? index + 2 : index + 1;
+    }
+
+    private static int handleW(
+            final String value,
+            final Result result,
+            final int index
+    ) {
+        if (contains(value, index, 2, "WR")) {
+            result.append('R');
+            return index + 2;
+        }
+        if (index == 0 && (isVowel(charAt(value, index + 1)) || contains(value, index, 2, "WH"))) {
+            // "Wasserman" should match "Vasserman", "Uomo" should match "Womo"
+            if (isVowel(charAt(value, index + 1))) result.append('A', 'F');
+            else result.append('A');
+            return index + 1;
+        }
+        if ((index == value.length() - 1 && isVowel(charAt(value, index - 1))) ||
+            contains(value, index - 1, 5, "EWSKI", "EWSKY", "OWSKI", "OWSKY") || contains(value, 0, 3, "SCH")) {
+            // "Arnow" should match "Arnoff"
+            result.appendAlternate('F');
+            return index + 1;
+        }
+        if (contains(value, index, 4, "WICZ", "WITZ")) {
+            // Polish, e.g. "filipowicz"
+            result.append("TS", "FX");
+            return index + 4;
+        }
+        return index + 1;
+    }
+
+    private static int handleX(
+            final String value,
+            final Result result,
+            final int index
+    ) {
+        if (index == 0) {
+            result.append('S');
+            return index + 1;
+        }
+        if (!(index == value.length() - 1 &&
+              (contains(value, index - 3, 3, "IAU", "EAU") || contains(value, index - 2, 2, "AU", "OU")))) {
+            // French, e.g. "breaux", is silent
+            result.append("KS");
+        }
+        return contains(value, index + 1, 1, "C", "X") ? index + 2 : index + 1;
+    }
+
+    private static int handleZ(
+            final String value,
+            final Result result,
+            final int index,
+            final boolean slavoGermanic
+    ) {
+        if (charAt(value, index + 1) == 'H') {
+            // Chinese pinyin, e.g. "zhao"
+            result.append('J');
+            return index + 2;
+        }
+        if (contains(value, index + 1, 2, "ZO", "ZI", "ZA") ||
+            (slavoGermanic && (index > 0 && charAt(value, index - 1) != 'T'))) {
+            result.append("S", "TS");
+        } else {
+            result.append('S');
+        }
+        return charAt(value, index + 1) == 'Z' ? index + 2 : index + 1;
+    }
+
+    private static boolean conditionC0(
+            final String value,
+            final int index
+    ) {
+        if (contains(value, index, 4, "CHIA")) return true;
+        if (index <= 1 || isVowel(charAt(value, index - 2)) || !contains(value, index - 1, 3, "ACH")) return false;
+        final char c = charAt(value, index + 2);
+        return (c != 'I' && c != 'E') || contains(value, index - 2, 6, "BACHER", "MACHER");
+    }
+
+    private static boolean conditionCH0(
+            final String value,
+            final int index
+    ) {
+        return index == 0 &&
+               (contains(value, index + 1, 5, "HARAC", "HARIS") ||
+                contains(value, index + 1, 3, "HOR", "HYM", "HIA", "HEM")) && !contains(value, 0, 5, "CHORE");
+    }
+
+    private static boolean conditionCH1(
+            final String value,
+            final int index
+    ) {
+        return contains(value, 0, 4, "VAN ", "VON ") || contains(value, 0, 3, "SCH") ||
+               contains(value, index - 2, 6, "ORCHES", "ARCHIT", "ORCHID") ||
+               contains(value, index + 2, 1, "T", "S") ||
+               ((contains(value, index - 1, 1, "A", "O", "U", "E") || index == 0) &&
+                (contains(value, index + 2, 1, L_R_N_M_B_H_F_V_W_SPACE) || index + 1 == value.length() - 1));
+    }
+
+    private static boolean conditionL0(
+            final String value,
+            final int index
+    ) {
+        if (index == value.length() - 3 && contains(value, index - 1, 4, "ILLO", "ILLA", "ALLE")) return true;
+        return (contains(value, value.length() - 2, 2, "AS", "OS") || contains(value, value.length() - 1, 1, "A", "O")) &&
+               contains(value, index - 1, 4, "ALLE");
+    }
+
+    private static boolean conditionM0(
+            final String value,
+            final int index
+    ) {
+        if (charAt(value, index + 1) == 'M') return true;
+        return contains(value, index - 1, 3, "UMB") &&
+               (index + 1 == value.length() - 1 || contains(value, index + 2, 2, "ER"));
+    }
+
+    /**
+     * Primary and alternate keys being built.
+     */
+    static final class Result {
+        final StringBuilder primary = new StringBuilder(MAX_LENGTH);
+        final StringBuilder alternate = new StringBuilder(MAX_LENGTH);
+
+        void append(final char value) {
+            this.appendPrimary(value);
+            this.appendAlternate(value);
+        }
+
+        void append(
+                final char primary,
+                final char alternate
+        ) {
+            this.appendPrimary(primary);
+            this.appendAlternate(alternate);
+        }
+
+        void appendPrimary(final char value) {
+            if (this.primary.length() < MAX_LENGTH) this.primary.append(value);
+        }
+
+        void appendAlternate(final char value) {
+            if (this.alternate.length() < MAX_LENGTH) this.alternate.append(value);
+        }
+
+        void append(final String value) {
+            this.append(value, value);
+        }
+
+        void append(
+                final String primary,
+                final String alternate
+        ) {
+            this.primary.append(primary, 0, Math.min(primary.length(), MAX_LENGTH - this.primary.length()));
+            this.alternate.append(alternate, 0, Math.min(alternate.length(), MAX_LENGTH - this.alternate.length()));
+        }
+
+        boolean isComplete() {
+            return this.primary.length() >= MAX_LENGTH && this.alternate.length() >= MAX_LENGTH;
+        }
+    }
+}
@@ -0,0 +1,287 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.text;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Rule-based phonetic encoding of French words, in the spirit of Soundex2 and of Frédéric Brouard's phonetic
+ * rules, simplified for lyrics.
+ * <p>
+ * Each sound is written with one symbol: {@code o} for "o", "au" and "eau", {@code e} for "ai", "ei", "eu",
+ * "er"/"ez"/"et" at the end, {@code u} for "ou", {@code 1} for the "in" nasals, {@code 2} for the "an" nasals,
+ * {@code 3} for the "on" nasals, {@code x} for "ch", {@code k} for hard "c" and "qu", {@code s} for soft "c",
+ * {@code z} for "s" between vowels, {@code j} for soft "g", and {@code f} for "ph". The silent "h", the final
+ * "e" and the usual silent final consonants are dropped, and doubled symbols are collapsed. For instance "photo"
+ * and "foto", "chanson" and "shanson", "pain" and "pin" share their key.
+ * <p>
+ * A final "ent" is either nasal ("souvent") or silent ("chantent"), so such words get an alternate key where it
+ * is silent.
+ *
+ * @since XXX
+ */
+final class FrenchPhonetic
+        implements PhoneticEncoder {
+
+    static final int TAG = 2;
+
+    FrenchPhonetic() {
+        // Stateless
+    }
+
+    private static boolean isVowel(final char c) {
+        return c == 'a' || c == 'e' || c == 'i' || c == 'o' || c == 'u' || c == 'y';
+    }
+
+    private static char at(
+            final CharSequence w,
+            final int i
+    ) {
+        return i < w.length() ? w.charAt(i) : Character.MIN_VALUE;
+    }
+
+    private static boolean startsWith(
+            final CharSequence w,
+            final int i,
+            final String s
+    ) {
+        if (i + s.length() > w.length()) return false;
+        for (int k = 0; k < s.length(); k++) if (w.charAt(i + k) != s.charAt(k)) return false;
+        return true;
+    }
+
+    /**
+     * @return whether the "n" or "m" at {@code i} makes the previous vowel nasal, i.e. it is not followed by a
+     *         vowel nor by another "n" or "m"
+     */
+    private static boolean isNasal(
+            final CharSequence w,
+            final int i
+    ) {
+        final char c = at(w, i);
+        if (c != 'n' && c != 'm') return false;
+        final char next = at(w, i + 1);
+        return !isVowel(next) && next != 'n' && next != 'm';
+    }
+
+    private static boolean isSilentFinal(
+            final CharSequence w,
+            final int i
+    ) {
+        return i == w.length() - 1 && i > 0;
+    }
+
+    static String compute(final CharSequence w) {
+        final StringBuilder out = new StringBuilder(w.length());
+        final int n = w.length();
+        int i = 0;
+        while (i < n) {
+            final char c = w.charAt(i);
+            switch (c) {
+                case 'a' -> {
+                    if (startsWith(w, i, "au")) {
+                        out.append('o');
+                        i += 2;
+                    } else if ((startsWith(w, i, "ai") || startsWith(w, i, "ei")) && isNasal(w, i + 2)) {
+                        out.append('1');
+                        i += 3;
+                    } else if (startsWith(w, i, "ai") || startsWith(w, i, "ay")) {
+                        out.append('e');
+                        i += 2;
+                    } else if (isNasal(w, i + 1)) {
+                        out.append('2');
+                        i += 2;
+                    } else {
+                        out.append('a');
+                        i++;
+                    }
+                }
+                case 'e' -> {
+                    if (startsWith(w, i, "eau")) {
+                        out.append('o');
+                        i += 3;
+                    } else if (startsWith(w, i, "ei") && isNasal(w, i + 2)) {
+                        out.append('1');
+                        i += 3;
+                    } else if (startsWith(w, i, "ei") || startsWith(w, i, "eu")) {
+                        out.append('e');
+                        i += 2;
+                    } else if (isNasal(w, i + 1)) {
+                        out.append('2');
+                        i += 2;
+                    } else if (i == n - 2 && (at(w, i + 1) == 'r' || at(w, i + 1) == 'z' || at(w, i + 1) == 't')) {
+                        out.append('e');
+                        i += 2;
+                    } else if (i > 0 && (i == n - 1 || (i == n - 2 && at(w, i + 1) == 's'))) {
+                        // Silent final "e" and "es"
+                        i = n;
+                    } else {
+                        out.append('e');
+                        i++;
+                    }
+                }
+                case 'i', 'y' -> {
+                    if (isNasal(w, i + 1)) {
+                        out.append('1');
+                        i += 2;
+                    } else {
+                        out.append('i');
+                        i++;
+                    }
+                }
+                case 'o' -> {
+                    if (startsWith(w, i, "oin")) {
+                        out.append("w1");
+                        i += 3;
+                    } else if (startsWith(w, i, "oi") || startsWith(w, i, "oy")) {
+                        out.append("wa");
+                        i += 2;
+                    } else if (startsWith(w, i, "ou")) {
+                        out.append('u');
+                        i += 2;
+                    } else if (startsWith(w, i, "oeu") || startsWith(w, i, "oe")) {
+                        out.append('e');
+                        i += startsWith(w, i, "oeu") ? 3 : 2;
+                    } else if (isNasal(w, i + 1)) {
+                        out.append('3');
+                        i += 2;
+                    } else {
+                        out.append('o');
+                        i++;
+                    }
+                }
+                case 'u' -> {
+                    if (isNasal(w, i + 1)) {
+                        out.append('1');
+                        i += 2;
+                    } else {
+                        out.append('u');
+                        i++;
+                    }
+                }
+                case 'c' -> {
+                    final char next = at(w, i + 1);
+                    if (next == 'h') {
+                        out.append('x');
+                        i += 2;
+                    } else if (next == 'c' && (at(w, i + 2) == 'e' || at(w, i + 2) == 'i' || at(w, i + 2) == 'y')) {
+                        out.append("ks");
+                        i += 2;
+                    } else if (next == 'e' || next == 'i' || next == 'y') {
+                        out.append('s');
+                        i++;
+                    } else {
+                        out.append('k');
+                        i += next == 'k' ? 2 : 1;
+                    }
+                }
+                case 'g' -> {
+                    final char next = at(w, i + 1);
+                    if (next == 'n') {
+                        out.append("ni");
+                        i += 2;
+                    } else if (next == 'u' && (at(w, i + 2) == 'e' || at(w, i + 2) == 'i' || at(w, i + 2) == 'y')) {
+                        out.append('g');
+                        i += 2;
+                    } else if (next == 'e' || next == 'i' || next == 'y') {
+                        out.append('j');
+                        i++;
+                    } else {
+                        out.append('g');
+                        i++;
+                    }
+                }
+                case 'h' -> i++;
+                case 'p' -> {
+                    if (at(w, i + 1) == 'h') {
+                        out.append('f');
+                        i += 2;
+                    } else {
+                        if (!isSilentFinal(w, i)) out.append('p');
+                        i++;
+                    }
+                }
+                case 'q' -> {
+                    out.append('k');
+                    i += at(w, i + 1) == 'u' ? 2 : 1;
+                }
+                case 's' -> {
+                    if (startsWith(w, i, "sch") || startsWith(w, i, "sh")) {
+                        out.append('x');
+                        i += startsWith(w, i, "sch") ? 3 : 2;
+                    } else if (startsWith(w, i, "sc") && (at(w, i + 2) == 'e' || at(w, i + 2) == 'i')) {
+                        out.append('s');
+                        i += 2;
+                    } else if (i > 0 && isVowel(w.charAt(i - 1)) && isVowel(at(w, i + 1))) {
+                        out.append('z');
+                        i++;
+                    } else {
+                        if (!isSilentFinal(w, i)) out.append('s');
+                        i++;
+                    }
+                }
+                case 't' -> {
+                    if (startsWith(w, i, "tion")) {
+                        out.append('s');
+                        i++;
+                    } else if (!isSilentFinal(w, i)) {
+                        out.append('t');
+                        i += at(w, i + 1) == 'h' ? 2 : 1;
+                    } else {
+                        i++;
+                    }
+                }
+                case 'd', 'x', 'z' -> {
+                    if (!isSilentFinal(w, i)) {
+                        if (c == 'x') out.append("ks");
+                        else out.append(c);
+                    }
+                    i++;
+                }
+                case 'w' -> {
+                    out.append('v');
+                    i++;
+                }
+                default -> {
+                    out.append(c);
+                    i++;
+                }
+            }
+        }
+        // Collapse doubled symbols
+        int length = 0;
+        for (int k = 0; k < out.length(); k++) {
+            final char s = out.charAt(k);
+            if (length == 0 || out.charAt(length - 1) != s) out.setCharAt(length++, s);
+        }
+        out.setLength(length);
+        return out.toString();
+    }
+
+    @Override
+    public void encode(
+            final CharSequence word,
+            final LongConsumer keys
+    ) {
+        final String key = compute(word);
+        if (!key.isEmpty()) keys.accept(PhoneticEncoder.pack(TAG, key));
+        final int n = word.length();
+        if (n > 4 && word.charAt(n - 3) == 'e' && word.charAt(n - 2) == 'n' && word.charAt(n - 1) == 't') {
+            final String alternate = compute(word.subSequence(0, n - 2));
+            if (!alternate.equals(key)) keys.accept(PhoneticEncoder.pack(TAG, alternate));
+        }
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.text;
+
+import java.text.Normalizer;
+
+/**
+ * Normalize lyrics and answers before comparing or indexing them: case-folding, removal of accents, apostrophes
+ * and punctuation, and collapse of whitespaces. The result only contains lowercase letters and digits, words being
+ * separated by a single space, e.g. {@code "L'Été,  déjà!"} becomes {@code "lete deja"}.
+ * <p>
+ * Three paths give the same result:
+ * <ul>
+ *     <li>ASCII text is folded by a table lookup per char, and returned as is, without allocating, when it is
+ *     already normalized;</li>
+ *     <li>Latin-1 text (and typographic apostrophes) uses the same table, some entries expanding to several chars,
+ *     e.g. {@code ß} to {@code ss};</li>
+ *     <li>any other text goes through a full Unicode NFKD decomposition.</li>
+ * </ul>
+ * The table is built at class initialization by running the Unicode path on every Latin-1 char, so the paths
+ * cannot disagree.
+ *
+ * @since XXX
+ */
+public final class LyricNormalizer {
+
+    private static final char SEPARATOR = ' ';
+    private static final char DROP = '\u0000';
+    private static final char EXPAND = '\u0001';
+    private static final int LATIN1_SIZE = 256;
+    private static final char[] TABLE = new char[LATIN1_SIZE];
+    private static final String[] EXPANSIONS = new String[LATIN1_SIZE];
+
+    static {
+        final StringBuilder sb = new StringBuilder(4);
+        for (int c = 0; c < LATIN1_SIZE; c++) {
+            sb.setLength(0);
+            foldDecomposed(Normalizer.normalize(String.valueOf((char) c), Normalizer.Form.NFKD), sb);
+            if (sb.isEmpty()) {
+                TABLE[c] = DROP;
+            } else if (sb.length() == 1) {
+                TABLE[c] = sb.charAt(0);
+            } else {
+                TABLE[c] = EXPAND;
+                EXPANSIONS[c] = sb.toString();
+            }
+        }
+    }
+
+    private LyricNormalizer() {
+        throw new AssertionError("No fr.byowares.game.miq.core.text.LyricNormalizer instances for you!");
+    }
+
+    private static boolean isApostrophe(final int c) {
+        return c == '\'' || c == '‘' || c == '’' || c == 'ʼ';
+    }
+
+    /**
+     * Fold each code point of an already decomposed text, without collapsing separators.
+     */
+    private static void foldDecomposed(
+            final CharSequence decomposed,
+            final StringBuilder out
+    ) {
+        for (int i = 0; i < decomposed.length(); ) {
+            final int cp = Character.codePointAt(decomposed, i);
+            i += Character.charCount(cp);
+            if (isApostrophe(cp) || Character.getType(cp) == Character.NON_SPACING_MARK) continue;
+            if (!Character.isLetterOrDigit(cp)) {
+                out.append(SEPARATOR);
+                continue;
+            }
+            switch (Character.toLowerCase(cp)) {
+                case 'ß' -> out.append("ss");
+                case 'æ' -> out.append("ae");
+                case 'œ' -> out.append("oe");
+                case 'ø' -> out.append('o');
+                case 'ð', 'đ' -> out.append('d');
+                case 'þ' -> out.append("th");
+                case 'ł' -> out.append('l');
+                default -> out.appendCodePoint(Character.toLowerCase(cp));
+            }
+        }
+    }
+
+    /**
+     * @param text the text to normalize
+     *
+     * @return the normalized text, which is {@code text} itself if it is an already normalized ASCII string
+     */
+    public static String normalize(final CharSequence text) {
+        if (text instanceof String s && isNormalizedAscii(s)) return s;
+        final StringBuilder sb = new StringBuilder(text.length());
+        normalize(text, sb);
+        return sb.toString();
+    }
+
+    /**
+     * Normalize a text into a reusable buffer: only the Unicode path allocates, the others do not as long as
+     * {@code out} is large enough.
+     *
+     * @param text the text to normalize
+     * @param out  receive the normalized text, appended to its current content
+     */
+    public static void normalize(
+            final CharSequence text,
+            final StringBuilder out
+    ) {
+        final int base = out.length();
+        final int length = text.length();
+        boolean pendingSeparator = false;
+        for (int i = 0; i < length; i++) {
+            final char c = text.charAt(i);
+            final char folded;
+            if (c < LATIN1_SIZE) {
+                folded = TABLE[c];
+            } else if (isApostrophe(c)) {
+                continue;
+            } else {
+                out.setLength(base);
+                normalizeUnicode(text, out);
+                return;
+            }
+            if (folded == DROP) continue;
+            if (folded == SEPARATOR) {
+                pendingSeparator = out.length() > base;
+                continue;
+            }
+            if (pendingSeparator) out.append(SEPARATOR);
+            pendingSeparator = false;
+            if (folded == EXPAND) pendingSeparator = appendExpansion(EXPANSIONS[c], out, base);
+            else out.append(folded);
+        }
+    }
+
+    /**
+     * @return whether a separator is pending after the expansion
+     */
+    private static boolean appendExpansion(
+            final String expansion,
+            final StringBuilder out,
+            final int base
+    ) {
+        boolean pendingSeparator = false;
+        for (int i = 0; i < expansion.length(); i++) {
+            final char c = expansion.charAt(i);
+            if (c == SEPARATOR) {
+                pendingSeparator = out.length() > base;
+            } else {
+                if (pendingSeparator) out.append(SEPARATOR);
+                pendingSeparator = false;
+                out.append(c);
+            }
+        }
+        return pendingSeparator;
+    }
+
+    private static boolean isNormalizedAscii(final String s) {
+        final int length = s.length();
+        for (int i = 0; i < length; i++) {
+            final char c = s.charAt(i);
+            if (c == SEPARATOR) {
+                if (i == 0 || i == length - 1 || s.charAt(i - 1) == SEPARATOR) return false;
+            } else if (c >= 0x80 || TABLE[c] != c) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The reference implementation, used for non Latin-1 text.
+     */
+    static void normalizeUnicode(
+            final CharSequence text,
+            final StringBuilder out
+    ) {
+        final int base = out.length();
+        final StringBuilder folded = new StringBuilder(text.length());
+        foldDecomposed(Normalizer.normalize(text, Normalizer.Form.NFKD), folded);
+        boolean pendingSeparator = false;
+        for (int i = 0; i < folded.length(); i++) {
+            final char c = folded.charAt(i);
+            if (c == SEPARATOR) {
+                pendingSeparator = out.length() > base;
+                continue;
+            }
+            if (pendingSeparator) out.append(SEPARATOR);
+            pendingSeparator = false;
+            out.append(c);
+        }
+    }
+
+    /**
+     * @param line the text of a line
+     *
+     * @return its normalized form, computed only once if {@code line} is a
+     *         {@link fr.byowares.game.miq.core.text.LyricText}
+     */
+    public static String normalized(final CharSequence line) {
+        return line instanceof LyricText l ? l.normalized() : normalize(line);
+    }
+
+    /**
+     * Compare a raw text, typically a guess, with an already normalized one, without allocating for Latin-1
+     * guesses.
+     *
+     * @param normalized the normalized text, e.g. {@link fr.byowares.game.miq.core.text.LyricText#normalized()}
+     * @param raw        the text to normalize then compare
+     * @param scratch    a buffer reused between calls, its content is overwritten
+     *
+     * @return {@code true} if and only if {@code raw} normalizes to {@code normalized}
+     */
+    public static boolean equalsNormalized(
+            final CharSequence normalized,
+            final CharSequence raw,
+            final StringBuilder scratch
+    ) {
+        scratch.setLength(0);
+        normalize(raw, scratch);
+        return CharSequence.compare(normalized, scratch) == 0;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.text;
+
+/**
+ * Text of a line which computes its normalized form on first use, then keeps it.
+ * <p>
+ * Meant to be used as the {@link fr.byowares.game.miq.core.TimeCodedLine#line()} of loaded timelines, so that the
+ * answers of every player are compared with a form computed once per line instead of once per comparison. Like
+ * {@link java.lang.String#hashCode()}, the cache is filled without synchronization: concurrent first uses may
+ * compute the same value twice, which is harmless.
+ *
+ * @since XXX
+ */
+public final class LyricText
+        implements CharSequence {
+
+    private final String text;
+    private String normalized;
+
+    /**
+     * @param text the raw text of the line
+     */
+    public LyricText(final CharSequence text) {
+        this.text = text.toString();
+    }
+
+    /**
+     * @return the normalized form of the text, see {@link fr.byowares.game.miq.core.text.LyricNormalizer}
+     */
+    public String normalized() {
+        String n = this.normalized;
+        if (n == null) {
+            n = LyricNormalizer.normalize(this.text);
+            this.normalized = n;
+        }
+        return n;
+    }
+
+    @Override
+    public int length() {
+        return this.text.length();
+    }
+
+    @Override
+    public char charAt(final int index) {
+        return this.text.charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(
+            final int start,
+            final int end
+    ) {
+        return this.text.subSequence(start, end);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.text.hashCode();
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        return o instanceof LyricText l && this.text.equals(l.text);
+    }
+
+    @Override
+    public String toString() {
+        return this.text;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.text;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Compute the phonetic keys of a word, so that words sounding alike share at least one key.
+ * <p>
+ * Keys are packed in a {@code long} by {@link #pack(int, CharSequence)}, tagged by the encoder that produced them,
+ * so that keys from different encoders never collide and can live in the same
+ * {@link fr.byowares.game.miq.core.text.PhoneticIndex}.
+ *
+ * @since XXX
+ */
+public interface PhoneticEncoder {
+
+    /**
+     * Double Metaphone, suited to English (and many names of other origins).
+     */
+    PhoneticEncoder DOUBLE_METAPHONE = new DoubleMetaphone();
+
+    /**
+     * Rule-based French phonetic encoding.
+     */
+    PhoneticEncoder FRENCH = new FrenchPhonetic();
+
+    /**
+     * Maximum number of chars of a packed key.
+     */
+    int MAX_KEY_LENGTH = 7;
+
+    /**
+     * @param tag the tag of the encoder, between 1 and 255
+     * @param key the key, ASCII only, truncated to {@value #MAX_KEY_LENGTH} chars
+     *
+     * @return the packed key, never 0
+     */
+    static long pack(
+            final int tag,
+            final CharSequence key
+    ) {
+        long packed = tag;
+        final int length = Math.min(MAX_KEY_LENGTH, key.length());
+        for (int i = 0; i < length; i++) packed = (packed << 8) | (key.charAt(i) & 0xFF);
+        return packed << (8 * (MAX_KEY_LENGTH - length));
+    }
+
+    /**
+     * @param packed a key packed by {@link #pack(int, CharSequence)}
+     *
+     * @return the chars of the key, without its tag
+     */
+    static String unpack(final long packed) {
+        final StringBuilder sb = new StringBuilder(MAX_KEY_LENGTH);
+        for (int i = MAX_KEY_LENGTH - 1; i >= 0; i--) {
+            final char c = (char) ((packed >>> (8 * i)) & 0xFF);
+            if (c != 0) sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @param word a normalized word (see {@link fr.byowares.game.miq.core.text.LyricNormalizer}), i.e. lowercase
+     *             ASCII letters and digits
+     * @param keys receive the packed keys of the word, possibly none
+     */
+    void encode(
+            CharSequence word,
+            LongConsumer keys
+    );
+}
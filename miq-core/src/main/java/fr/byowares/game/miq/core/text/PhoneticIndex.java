@@ -0,0 +1,199 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.text;
+
+import fr.byowares.game.miq.core.TimeCodedLine;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * Phonetic keys of all the words of a line, in a compact open-addressing hash set of {@code long}.
+ * <p>
+ * The index is built once per line when the timeline is loaded; checking whether a word of a guess sounds like a
+ * word of the line is then a few hash probes, one per key of the guessed word.
+ *
+ * @since XXX
+ */
+public final class PhoneticIndex {
+
+    private static final long EMPTY = 0L;
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+    private final PhoneticEncoder[] encoders;
+    private final long[] table;
+    private final int shift;
+    private final int words;
+
+    private PhoneticIndex(
+            final PhoneticEncoder[] encoders,
+            final long[] keys,
+            final int size,
+            final int words
+    ) {
+        this.encoders = encoders;
+        this.words = words;
+        // Load factor of at most 1/2 keeps probe sequences short
+        final int capacity = Math.max(4, Integer.highestOneBit(Math.max(1, 2 * size - 1)) << 1);
+        this.table = new long[capacity];
+        this.shift = Long.SIZE - Integer.numberOfTrailingZeros(capacity);
+        for (int i = 0; i < size; i++) this.add(keys[i]);
+    }
+
+    /**
+     * @param line     the text of the line, normalized on the fly if needed
+     * @param encoders the encoders computing the keys of each word
+     *
+     * @return the index of the words of the line
+     */
+    public static PhoneticIndex of(
+            final CharSequence line,
+            final PhoneticEncoder... encoders
+    ) {
+        final String normalized = LyricNormalizer.normalized(line);
+        final KeyCollector keys = new KeyCollector();
+        int words = 0;
+        int begin = 0;
+        while (begin < normalized.length()) {
+            int end = normalized.indexOf(' ', begin);
+            if (end < 0) end = normalized.length();
+            final String word = normalized.substring(begin, end);
+            for (final PhoneticEncoder encoder : encoders) encoder.encode(word, keys);
+            words++;
+            begin = end + 1;
+        }
+        return new PhoneticIndex(encoders.clone(), keys.keys, keys.size, words);
+    }
+
+    /**
+     * @param timeline the lines to index
+     * @param encoders the encoders computing the keys of each word
+     *
+     * @return the index of each line, in the order of the timeline
+     */
+    public static PhoneticIndex[] of(
+            final List<TimeCodedLine> timeline,
+            final PhoneticEncoder... encoders
+    ) {
+        final PhoneticIndex[] indexes = new PhoneticIndex[timeline.size()];
+        for (int i = 0; i < indexes.length; i++) indexes[i] = of(timeline.get(i).line(), encoders);
+        return indexes;
+    }
+
+    private int slot(final long key) {
+        return (int) ((key * GOLDEN_RATIO) >>> this.shift);
+    }
+
+    private void add(final long key) {
+        final int mask = this.table.length - 1;
+        for (int i = this.slot(key); ; i = (i + 1) & mask) {
+            if (this.table[i] == key) return;
+            if (this.table[i] == EMPTY) {
+                this.table[i] = key;
+                return;
+            }
+        }
+    }
+
+    /**
+     * @param key a packed phonetic key
+     *
+     * @return {@code true} if and only if a word of the line has that key
+     */
+    public boolean containsKey(final long key) {
+        final int mask = this.table.length - 1;
+        for (int i = this.slot(key); ; i = (i + 1) & mask) {
+            final long k = this.table[i];
+            if (k == key) return true;
+            if (k == EMPTY) return false;
+        }
+    }
+
+    /**
+     * @param word a normalized word
+     *
+     * @return {@code true} if and only if the word sounds like a word of the line for one of the encoders
+     */
+    public boolean containsWord(final CharSequence word) {
+        final Probe probe = new Probe();
+        for (final PhoneticEncoder encoder : this.encoders) {
+            encoder.encode(word, probe);
+            if (probe.found) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param guess   the raw guess of a player
+     * @param scratch a buffer reused between calls, its content is overwritten
+     *
+     * @return the number of words of the guess sounding like a word of the line
+     */
+    public int matchingWords(
+            final CharSequence guess,
+            final StringBuilder scratch
+    ) {
+        scratch.setLength(0);
+        LyricNormalizer.normalize(guess, scratch);
+        int matching = 0;
+        int begin = 0;
+        final int length = scratch.length();
+        while (begin < length) {
+            int end = scratch.indexOf(" ", begin);
+            if (end < 0) end = length;
+            if (this.containsWord(scratch.subSequence(begin, end))) matching++;
+            begin = end + 1;
+        }
+        return matching;
+    }
+
+    /**
+     * @return the number of words in the line
+     */
+    public int words() {
+        return this.words;
+    }
+
+    /**
+     * @return the number of distinct keys in the index
+     */
+    public int size() {
+        return (int) Arrays.stream(this.table).filter(k -> k != EMPTY).count();
+    }
+
+    private static final class KeyCollector
+            implements LongConsumer {
+        private long[] keys = new long[16];
+        private int size;
+
+        @Override
+        public void accept(final long key) {
+            if (this.size == this.keys.length) this.keys = Arrays.copyOf(this.keys, 2 * this.size);
+            this.keys[this.size++] = key;
+        }
+    }
+
+    private final class Probe
+            implements LongConsumer {
+        private boolean found;
+
+        @Override
+        public void accept(final long key) {
+            this.found |= PhoneticIndex.this.containsKey(key);
+        }
+    }
+}
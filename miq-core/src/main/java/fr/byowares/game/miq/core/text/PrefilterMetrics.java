@@ -0,0 +1,80 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.text;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters measuring how well a prefilter separates hopeless guesses from the others, safe to update from many
+ * threads.
+ * <p>
+ * A false positive is a guess the prefilter let through that the full matcher then rejected.
+ *
+ * @since XXX
+ */
+public final class PrefilterMetrics {
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder passedMatched = new LongAdder();
+    private final LongAdder passedUnmatched = new LongAdder();
+
+    /**
+     * Create metrics with all counters at zero.
+     */
+    public PrefilterMetrics() {
+        // Nothing to initialize
+    }
+
+    /**
+     * Record a guess rejected by the prefilter.
+     */
+    public void recordRejected() {
+        this.rejected.increment();
+    }
+
+    /**
+     * Record a guess let through by the prefilter.
+     *
+     * @param matched the verdict of the full matcher
+     */
+    public void recordPassed(final boolean matched) {
+        if (matched) this.passedMatched.increment();
+        else this.passedUnmatched.increment();
+    }
+
+    /**
+     * @return the number of guesses checked by the prefilter
+     */
+    public long checked() {
+        return this.rejected.sum() + this.passedMatched.sum() + this.passedUnmatched.sum();
+    }
+
+    /**
+     * @return the number of guesses rejected by the prefilter
+     */
+    public long rejected() {
+        return this.rejected.sum();
+    }
+
+    /**
+     * @return the share of wrong guesses that the prefilter let through, 0 if there was no wrong guess
+     */
+    public double falsePositiveRate() {
+        final long falsePositives = this.passedUnmatched.sum();
+        final long negatives = falsePositives + this.rejected.sum();
+        return negatives == 0L ? 0d : falsePositives / (double) negatives;
+    }
+}
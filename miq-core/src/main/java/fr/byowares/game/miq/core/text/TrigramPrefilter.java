@@ -0,0 +1,169 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.text;
+
+import fr.byowares.game.miq.core.TimeCodedLine;
+
+import java.util.List;
+
+/**
+ * Bloom filter of the words and trigrams of the normalized text of a line (or of a whole song), to reject hopeless
+ * guesses before any expensive matching.
+ * <p>
+ * Trigrams are taken inside each word padded with spaces, e.g. {@code " lo", "lov", "ove", "ve "} for "love", so
+ * that they do not depend on the neighbour words. A guess passes the filter when at least a given share of its
+ * trigrams may appear in the line: since a Bloom filter has no false negatives, a matcher only accepting guesses
+ * that share at least that many trigrams with the line never misses a good answer because of this prefilter.
+ *
+ * @since XXX
+ */
+public final class TrigramPrefilter {
+
+    private static final int BITS_PER_KEY = 12;
+    private static final long WORD_SEED = 0x632BE59BD9B4E019L;
+
+    private final BloomFilter filter;
+
+    private TrigramPrefilter(final BloomFilter filter) {
+        this.filter = filter;
+    }
+
+    /**
+     * @param line the text of a line, normalized on the fly if needed
+     *
+     * @return the prefilter of the line
+     */
+    public static TrigramPrefilter of(final CharSequence line) {
+        final String normalized = LyricNormalizer.normalized(line);
+        final BloomFilter filter = BloomFilter.withCapacity(2 * normalized.length() + 2, BITS_PER_KEY);
+        addAll(normalized, filter);
+        return new TrigramPrefilter(filter);
+    }
+
+    /**
+     * @param song the lines of a song
+     *
+     * @return a single prefilter for all the lines of the song
+     */
+    public static TrigramPrefilter of(final List<TimeCodedLine> song) {
+        int chars = 0;
+        for (final TimeCodedLine line : song) chars += line.line().length();
+        final BloomFilter filter = BloomFilter.withCapacity(2 * chars + 2, BITS_PER_KEY);
+        for (final TimeCodedLine line : song) addAll(LyricNormalizer.normalized(line.line()), filter);
+        return new TrigramPrefilter(filter);
+    }
+
+    private static void addAll(
+            final CharSequence normalized,
+            final BloomFilter filter
+    ) {
+        final int length = normalized.length();
+        int begin = 0;
+        while (begin < length) {
+            final int end = wordEnd(normalized, begin);
+            filter.add(wordHash(normalized, begin, end));
+            for (int i = begin - 1; i < end - 1; i++) filter.add(trigramHash(normalized, i, begin, end));
+            begin = end + 1;
+        }
+    }
+
+    private static int wordEnd(
+            final CharSequence s,
+            final int begin
+    ) {
+        int end = begin;
+        while (end < s.length() && s.charAt(end) != ' ') end++;
+        return end;
+    }
+
+    /**
+     * Hash of the trigram starting at {@code i} of the word {@code [begin, end)} padded with spaces.
+     */
+    private static long trigramHash(
+            final CharSequence s,
+            final int i,
+            final int begin,
+            final int end
+    ) {
+        long packed = 0L;
+        for (int k = i; k < i + 3; k++) packed = (packed << 16) | (k < begin || k >= end ? ' ' : s.charAt(k));
+        return BloomFilter.mix(packed);
+    }
+
+    private static long wordHash(
+            final CharSequence s,
+            final int begin,
+            final int end
+    ) {
+        long h = WORD_SEED;
+        for (int k = begin; k < end; k++) h = (h ^ s.charAt(k)) * 0x100000001B3L;
+        return BloomFilter.mix(h);
+    }
+
+    /**
+     * @param word a normalized word
+     *
+     * @return {@code false} if the word is definitely not in the line
+     */
+    public boolean mightContainWord(final CharSequence word) {
+        return this.filter.mightContain(wordHash(word, 0, word.length()));
+    }
+
+    /**
+     * @param guess     the raw guess of a player
+     * @param scratch   a buffer reused between calls, its content is overwritten
+     * @param minShared the minimum share, between 0 and 1, of the trigrams of the guess that must appear in the line
+     *
+     * @return {@code false} if the guess definitely shares less than {@code minShared} of its trigrams with the line
+     */
+    public boolean mayMatch(
+            final CharSequence guess,
+            final StringBuilder scratch,
+            final double minShared
+    ) {
+        scratch.setLength(0);
+        LyricNormalizer.normalize(guess, scratch);
+        final int length = scratch.length();
+        if (length == 0) return false;
+        // A padded word has as many trigrams as chars
+        final int trigrams = length - (countWords(scratch) - 1);
+        final int maxMissing = (int) Math.floor((1d - minShared) * trigrams);
+        int missing = 0;
+        int begin = 0;
+        while (begin < length) {
+            final int end = wordEnd(scratch, begin);
+            for (int i = begin - 1; i < end - 1; i++) {
+                if (!this.filter.mightContain(trigramHash(scratch, i, begin, end)) && ++missing > maxMissing)
+                    return false;
+            }
+            begin = end + 1;
+        }
+        return true;
+    }
+
+    private static int countWords(final CharSequence normalized) {
+        int words = 1;
+        for (int i = 0; i < normalized.length(); i++) if (normalized.charAt(i) == ' ') words++;
+        return words;
+    }
+
+    /**
+     * @return the estimated probability that an absent word or trigram passes the filter
+     */
+    public double estimatedFalsePositiveRate() {
+        return this.filter.estimatedFalsePositiveRate();
+    }
+}
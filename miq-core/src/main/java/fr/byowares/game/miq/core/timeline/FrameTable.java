@@ -0,0 +1,176 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.timeline;
+
+import fr.byowares.game.miq.core.TimeCodedLine;
+
+import java.util.List;
+
+/**
+ * Find the line sung at a given audio frame in a sorted timeline in constant time, for audio callbacks.
+ * <p>
+ * The time from the first start to the last one is cut in buckets of a fixed duration, and a table gives for each
+ * bucket the last line starting at or before the beginning of the bucket. A lookup reads the candidate of its bucket,
+ * then refines it against the starts of the next lines, which only moves over the lines starting inside the bucket.
+ * The table takes 4 bytes per bucket: its size depends on the duration of the song, not on its number of lines.
+ * <p>
+ * A frame is converted to the time unit of the timeline by rounding down, so that a frame belongs to a line if and
+ * only if it is at or after the first frame of the line and before its end.
+ *
+ * @since XXX
+ */
+public final class FrameTable {
+
+    private final long[] starts;
+    private final long[] ends;
+    /** {@code buckets[b]} is the last line starting at or before {@code origin + b * bucketDuration} */
+    private final int[] buckets;
+    private final long origin;
+    private final long bucketDuration;
+    private final long sampleRate;
+    private final long timeUnitsPerSecond;
+
+    private FrameTable(
+            final List<TimeCodedLine> timeline,
+            final long bucketDuration,
+            final long sampleRate,
+            final long timeUnitsPerSecond
+    ) {
+        if (bucketDuration <= 0L)
+            throw new IllegalArgumentException("bucketDuration (" + bucketDuration + ") must be strictly positive");
+        if (sampleRate <= 0L)
+            throw new IllegalArgumentException("sampleRate (" + sampleRate + ") must be strictly positive");
+        if (timeUnitsPerSecond <= 0L)
+            throw new IllegalArgumentException("timeUnitsPerSecond (" + timeUnitsPerSecond + ") must be strictly positive");
+        final int n = timeline.size();
+        this.starts = new long[n];
+        this.ends = new long[n];
+        for (int i = 0; i < n; i++) {
+            this.starts[i] = timeline.get(i).range().start();
+            this.ends[i] = timeline.get(i).range().end();
+            if (i > 0 && this.starts[i] < this.starts[i - 1])
+                throw new IllegalArgumentException("timeline must be sorted, line " + i + " starts too early");
+        }
+        this.origin = n == 0 ? 0L : this.starts[0];
+        this.bucketDuration = bucketDuration;
+        this.sampleRate = sampleRate;
+        this.timeUnitsPerSecond = timeUnitsPerSecond;
+
+        final long count = n == 0 ? 0L : (this.starts[n - 1] - this.origin) / bucketDuration + 1L;
+        if (count > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("bucketDuration (" + bucketDuration + ") is too small for the timeline");
+        this.buckets = new int[(int) count];
+        int line = 0;
+        for (int b = 0; b < this.buckets.length; b++) {
+            final long time = this.origin + b * bucketDuration;
+            while (line + 1 < n && this.starts[line + 1] <= time) line++;
+            this.buckets[b] = line;
+        }
+    }
+
+    /**
+     * @param timeline           a timeline sorted by range
+     * @param bucketDuration     the duration of a bucket, in the time unit of the timeline
+     * @param sampleRate         the number of audio frames per second
+     * @param timeUnitsPerSecond the number of time units of the timeline per second, e.g. 1000 for milliseconds
+     *
+     * @return the table of the timeline
+     *
+     * @throws java.lang.IllegalArgumentException if and only if the timeline is not sorted, an argument is not
+     *                                            strictly positive, or the buckets are too small for the timeline
+     */
+    public static FrameTable of(
+            final List<TimeCodedLine> timeline,
+            final long bucketDuration,
+            final long sampleRate,
+            final long timeUnitsPerSecond
+    ) {
+        return new FrameTable(timeline, bucketDuration, sampleRate, timeUnitsPerSecond);
+    }
+
+    /**
+     * @param timeline       a timeline sorted by range
+     * @param bucketDuration the duration of a bucket, in the time unit of the timeline
+     *
+     * @return the table of the timeline, whose frames are time units of the timeline
+     *
+     * @throws java.lang.IllegalArgumentException if and only if the timeline is not sorted, {@code bucketDuration} is
+     *                                            not strictly positive, or the buckets are too small for the timeline
+     */
+    public static FrameTable of(
+            final List<TimeCodedLine> timeline,
+            final long bucketDuration
+    ) {
+        return new FrameTable(timeline, bucketDuration, 1L, 1L);
+    }
+
+    /**
+     * @return the number of lines
+     */
+    public int size() {
+        return this.starts.length;
+    }
+
+    /**
+     * @return the number of buckets of the table
+     */
+    public int bucketCount() {
+        return this.buckets.length;
+    }
+
+    /**
+     * @param frame the index of an audio frame, counted from time 0 of the timeline
+     *
+     * @return the time of the frame, rounded down
+     */
+    public long timeOf(final long frame) {
+        return Math.floorDiv(frame * this.timeUnitsPerSecond, this.sampleRate);
+    }
+
+    /**
+     * @param time an absolute time
+     *
+     * @return the index of the last line starting at or before {@code time}, -1 if there is none
+     */
+    public int floor(final long time) {
+        if (this.buckets.length == 0 || time < this.origin) return -1;
+        final long bucket = (time - this.origin) / this.bucketDuration;
+        int line = this.buckets[(int) Math.min(bucket, this.buckets.length - 1)];
+        final long[] s = this.starts;
+        while (line + 1 < s.length && s[line + 1] <= time) line++;
+        return line;
+    }
+
+    /**
+     * @param time an absolute time
+     *
+     * @return the index of the last line starting at or before {@code time} if it is still sung at {@code time}, -1
+     *         otherwise
+     */
+    public int lineAt(final long time) {
+        final int floor = this.floor(time);
+        return floor >= 0 && time < this.ends[floor] ? floor : -1;
+    }
+
+    /**
+     * @param frame the index of an audio frame, counted from time 0 of the timeline
+     *
+     * @return same as {@link #lineAt(long)} at the time of the frame
+     */
+    public int lineAtFrame(final long frame) {
+        return this.lineAt(this.timeOf(frame));
+    }
+}
@@ -0,0 +1,436 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.timeline;
+
+import fr.byowares.game.miq.core.Range;
+import fr.byowares.game.miq.core.TimeCodedLine;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.function.Function;
+
+/**
+ * Immutable timeline, i.e. lines sorted by {@link fr.byowares.game.miq.core.Range}, whose edits return a new
+ * version sharing all but {@code O(log n)} nodes with the previous one.
+ * <p>
+ * It is a B-tree storing up to {@value #MAX_WIDTH} lines per leaf and children per inner node, each inner node
+ * knowing the cumulative sizes of its children, so access by index and edits are both logarithmic. Nodes are never
+ * modified once built: an editor publishes new versions (e.g. through an
+ * {@link java.util.concurrent.atomic.AtomicReference}) while readers keep iterating over the version they got,
+ * without any lock. Lines with equal ranges are kept in insertion order.
+ *
+ * @since XXX
+ */
+public final class PersistentTimeline {
+
+    private static final int MAX_WIDTH = 32;
+    private static final int MIN_WIDTH = MAX_WIDTH / 2;
+    private static final PersistentTimeline EMPTY = new PersistentTimeline(Node.leaf(new TimeCodedLine[0]));
+
+    private final Node root;
+
+    private PersistentTimeline(final Node root) {
+        this.root = root;
+    }
+
+    /**
+     * @return the empty timeline
+     */
+    public static PersistentTimeline empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @param lines the lines of the timeline, in any order
+     *
+     * @return the timeline of the lines, built bottom-up in {@code O(n log n)} for the sort
+     */
+    public static PersistentTimeline of(final Collection<TimeCodedLine> lines) {
+        final TimeCodedLine[] sorted = lines.toArray(TimeCodedLine[]::new);
+        if (sorted.length == 0) return EMPTY;
+        Arrays.sort(sorted);
+        Node[] level = new Node[groups(sorted.length)];
+        for (int g = 0, from = 0; g < level.length; g++) {
+            final int to = boundary(sorted.length, level.length, g + 1);
+            level[g] = Node.leaf(Arrays.copyOfRange(sorted, from, to));
+            from = to;
+        }
+        while (level.length > 1) {
+            final Node[] parents = new Node[groups(level.length)];
+            for (int g = 0, from = 0; g < parents.length; g++) {
+                final int to = boundary(level.length, parents.length, g + 1);
+                parents[g] = Node.inner(Arrays.copyOfRange(level, from, to));
+                from = to;
+            }
+            level = parents;
+        }
+        return new PersistentTimeline(level[0]);
+    }
+
+    /**
+     * @return the number of nodes of at most {@link #MAX_WIDTH} entries needed for {@code count} entries
+     */
+    private static int groups(final int count) {
+        return (count + MAX_WIDTH - 1) / MAX_WIDTH;
+    }
+
+    /**
+     * @return the first entry of the {@code group}-th node when spreading {@code count} entries evenly
+     */
+    private static int boundary(
+            final int count,
+            final int groups,
+            final int group
+    ) {
+        return (int) ((long) count * group / groups);
+    }
+
+    /**
+     * @return the number of lines
+     */
+    public int size() {
+        return this.root.size;
+    }
+
+    /**
+     * @return {@code true} if and only if the timeline has no line
+     */
+    public boolean isEmpty() {
+        return this.root.size == 0;
+    }
+
+    /**
+     * @param index the index of a line
+     *
+     * @return the line at this index
+     *
+     * @throws java.lang.IndexOutOfBoundsException if and only if {@code index} is not between 0 and {@link #size()}
+     *                                             (excluded)
+     */
+    public TimeCodedLine get(final int index) {
+        Node node = this.root;
+        int i = Objects.checkIndex(index, node.size);
+        while (node.children != null) {
+            final int child = node.childAt(i);
+            i -= node.offset(child);
+            node = node.children[child];
+        }
+        return node.items[i];
+    }
+
+    /**
+     * @param time an absolute time
+     *
+     * @return the number of lines starting at or before {@code time}, so the index of the last of them is one less
+     */
+    public int countStartingBefore(final long time) {
+        Node node = this.root;
+        int count = 0;
+        while (node.children != null) {
+            int child = 0;
+            while (child < node.children.length - 1 && node.children[child].last.range().start() <= time) child++;
+            count += node.offset(child);
+            node = node.children[child];
+        }
+        for (final TimeCodedLine item : node.items) {
+            if (item.range().start() > time) break;
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * @param time an absolute time
+     *
+     * @return the line starting last at or before {@code time} if it is still sung at {@code time}, {@code null}
+     * otherwise
+     */
+    public TimeCodedLine lineAt(final long time) {
+        final int count = this.countStartingBefore(time);
+        if (count == 0) return null;
+        final TimeCodedLine line = this.get(count - 1);
+        return time < line.range().end() ? line : null;
+    }
+
+    /**
+     * @param line the line to add
+     *
+     * @return a new version with the line inserted at its position, after the lines of equal range
+     */
+    public PersistentTimeline with(final TimeCodedLine line) {
+        final Node[] inserted = this.root.insert(Objects.requireNonNull(line, "line must not be null"));
+        return new PersistentTimeline(inserted.length == 1 ? inserted[0] : Node.inner(inserted));
+    }
+
+    /**
+     * @param index the index of the line to remove
+     *
+     * @return a new version without the line
+     *
+     * @throws java.lang.IndexOutOfBoundsException if and only if {@code index} is not between 0 and {@link #size()}
+     *                                             (excluded)
+     */
+    public PersistentTimeline without(final int index) {
+        Node removed = this.root.remove(Objects.checkIndex(index, this.root.size));
+        while (removed.children != null && removed.children.length == 1) removed = removed.children[0];
+        return removed.size == 0 ? EMPTY : new PersistentTimeline(removed);
+    }
+
+    /**
+     * @param index the index of the line to move
+     * @param range the new period of the line
+     *
+     * @return a new version where the line is sung during {@code range}, at its new position
+     *
+     * @throws java.lang.IndexOutOfBoundsException if and only if {@code index} is not between 0 and {@link #size()}
+     *                                             (excluded)
+     * @see fr.byowares.game.miq.core.TimeCodedLine#withRange(fr.byowares.game.miq.core.Range)
+     */
+    public PersistentTimeline withRange(
+            final int index,
+            final Range range
+    ) {
+        return this.without(index).with(this.get(index).withRange(range));
+    }
+
+    /**
+     * @return an unmodifiable view of this version, iterated in {@code O(1)} per line
+     */
+    public List<TimeCodedLine> asList() {
+        return new ListView(this);
+    }
+
+    private static final class ListView
+            extends AbstractList<TimeCodedLine>
+            implements RandomAccess {
+
+        private final PersistentTimeline timeline;
+
+        private ListView(final PersistentTimeline timeline) {
+            this.timeline = timeline;
+        }
+
+        @Override
+        public TimeCodedLine get(final int index) {
+            return this.timeline.get(index);
+        }
+
+        @Override
+        public int size() {
+            return this.timeline.size();
+        }
+
+        @Override
+        public Iterator<TimeCodedLine> iterator() {
+            return new LeafIterator(this.timeline.root);
+        }
+    }
+
+    /**
+     * In-order iterator keeping the path to the current leaf.
+     */
+    private static final class LeafIterator
+            implements Iterator<TimeCodedLine> {
+
+        private final ArrayDeque<Node> nodes = new ArrayDeque<>();
+        private final ArrayDeque<Integer> positions = new ArrayDeque<>();
+        private TimeCodedLine[] leaf;
+        private int position;
+
+        private LeafIterator(final Node root) {
+            this.descend(root);
+        }
+
+        private void descend(final Node from) {
+            Node node = from;
+            while (node.children != null) {
+                this.nodes.push(node);
+                this.positions.push(0);
+                node = node.children[0];
+            }
+            this.leaf = node.items;
+            this.position = 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (this.position < this.leaf.length) return true;
+            while (!this.nodes.isEmpty()) {
+                final Node parent = this.nodes.peek();
+                final int next = this.positions.pop() + 1;
+                if (next < parent.children.length) {
+                    this.positions.push(next);
+                    this.descend(parent.children[next]);
+                    return true;
+                }
+                this.nodes.pop();
+            }
+            return false;
+        }
+
+        @Override
+        public TimeCodedLine next() {
+            if (!this.hasNext()) throw new NoSuchElementException();
+            return this.leaf[this.position++];
+        }
+    }
+
+    /**
+     * Leaf ({@code items} set) or inner ({@code children} set) node, never modified once built.
+     */
+    private static final class Node {
+
+        private final TimeCodedLine[] items;
+        private final Node[] children;
+        /** {@code ends[i]} is the number of lines in {@code children[0..i]} */
+        private final int[] ends;
+        private final int size;
+        private final TimeCodedLine last;
+
+        private Node(
+                final TimeCodedLine[] items,
+                final Node[] children,
+                final int[] ends,
+                final int size,
+                final TimeCodedLine last
+        ) {
+            this.items = items;
+            this.children = children;
+            this.ends = ends;
+            this.size = size;
+            this.last = last;
+        }
+
+        private static Node leaf(final TimeCodedLine[] items) {
+            return new Node(items, null, null, items.length, items.length == 0 ? null : items[items.length - 1]);
+        }
+
+        private static Node inner(final Node[] children) {
+            final int[] ends = new int[children.length];
+            int size = 0;
+            for (int i = 0; i < children.length; i++) {
+                size += children[i].size;
+                ends[i] = size;
+            }
+            return new Node(null, children, ends, size, children[children.length - 1].last);
+        }
+
+        private int width() {
+            return this.children == null ? this.items.length : this.children.length;
+        }
+
+        private int offset(final int child) {
+            return child == 0 ? 0 : this.ends[child - 1];
+        }
+
+        private int childAt(final int index) {
+            int child = 0;
+            while (this.ends[child] <= index) child++;
+            return child;
+        }
+
+        /**
+         * @return this node with the line inserted, split in two nodes if it became too wide
+         */
+        private Node[] insert(final TimeCodedLine line) {
+            if (this.children == null) {
+                int position = this.items.length;
+                while (position > 0 && this.items[position - 1].compareTo(line) > 0) position--;
+                return split(insert(this.items, position, line), Node::leaf);
+            }
+            int child = 0;
+            while (child < this.children.length - 1 && this.children[child].last.compareTo(line) <= 0) child++;
+            final Node[] inserted = this.children[child].insert(line);
+            final Node[] children;
+            if (inserted.length == 1) {
+                children = this.children.clone();
+                children[child] = inserted[0];
+            } else {
+                children = insert(this.children, child + 1, inserted[1]);
+                children[child] = inserted[0];
+            }
+            return split(children, Node::inner);
+        }
+
+        /**
+         * @return this node without the line, possibly narrower than {@link #MIN_WIDTH}
+         */
+        private Node remove(final int index) {
+            if (this.children == null) return leaf(remove(this.items, index));
+            final int child = this.childAt(index);
+            final Node removed = this.children[child].remove(index - this.offset(child));
+            final Node[] children = this.children.clone();
+            children[child] = removed;
+            if (removed.width() >= MIN_WIDTH || children.length == 1) return inner(children);
+            // Merge the narrow child with a sibling, splitting again if both were wide enough
+            final int left = child == 0 ? 0 : child - 1;
+            final Node[] merged = removed.children == null ?
+                                  split(concat(children[left].items, children[left + 1].items), Node::leaf) :
+                                  split(concat(children[left].children, children[left + 1].children), Node::inner);
+            final Node[] result = new Node[children.length - 2 + merged.length];
+            System.arraycopy(children, 0, result, 0, left);
+            System.arraycopy(merged, 0, result, left, merged.length);
+            System.arraycopy(children, left + 2, result, left + merged.length, children.length - left - 2);
+            return inner(result);
+        }
+
+        private static <T> Node[] split(
+                final T[] entries,
+                final Function<T[], Node> factory
+        ) {
+            if (entries.length <= MAX_WIDTH) return new Node[]{factory.apply(entries)};
+            final int half = entries.length / 2;
+            return new Node[]{factory.apply(Arrays.copyOfRange(entries, 0, half)),
+                              factory.apply(Arrays.copyOfRange(entries, half, entries.length))};
+        }
+
+        private static <T> T[] insert(
+                final T[] array,
+                final int position,
+                final T value
+        ) {
+            final T[] result = Arrays.copyOf(array, array.length + 1);
+            System.arraycopy(array, position, result, position + 1, array.length - position);
+            result[position] = value;
+            return result;
+        }
+
+        private static <T> T[] remove(
+                final T[] array,
+                final int position
+        ) {
+            final T[] result = Arrays.copyOf(array, array.length - 1);
+            System.arraycopy(array, position + 1, result, position, array.length - position - 1);
+            return result;
+        }
+
+        private static <T> T[] concat(
+                final T[] a,
+                final T[] b
+        ) {
+            final T[] result = Arrays.copyOf(a, a.length + b.length);
+            System.arraycopy(b, 0, result, a.length, b.length);
+            return result;
+        }
+    }
+}
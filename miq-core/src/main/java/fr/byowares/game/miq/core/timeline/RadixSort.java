@@ -0,0 +1,272 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.timeline;
+
+import fr.byowares.game.miq.core.TimeCodedLine;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntToLongFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Least significant digit radix sort of {@link fr.byowares.game.miq.core.TimeCodedLine} arrays, in the order of
+ * {@link fr.byowares.game.miq.core.Range#compareTo(fr.byowares.game.miq.core.Range)}.
+ * <p>
+ * The starts and ends are rebased on their minimum, so that only the significant bits are sorted. When the rebased
+ * start, the rebased end and the index of a line fit together in 64 bits, they are packed in a single primitive key;
+ * otherwise the ends then the starts are sorted, carrying the indices along. Digits shared by every key are skipped.
+ * The sort is stable: lines with equal ranges keep their relative order, as with
+ * {@link java.util.Arrays#sort(Object[])}.
+ *
+ * @since XXX
+ */
+public final class RadixSort {
+
+    private static final int DIGIT_BITS = 8;
+    private static final int RADIX = 1 << DIGIT_BITS;
+    private static final int MASK = RADIX - 1;
+    /** Below this size, the parallel variant sorts sequentially */
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+    /** Minimum number of keys handled by a task of a parallel pass */
+    private static final int MIN_CHUNK = 1 << 14;
+
+    private RadixSort() {
+        throw new AssertionError("No fr.byowares.game.miq.core.timeline.RadixSort instances for you!");
+    }
+
+    /**
+     * @param lines the lines to sort, unchanged
+     *
+     * @return the permutation sorting the lines, i.e. {@code lines[p[0]] <= lines[p[1]] <= ...}
+     */
+    public static int[] permutation(final TimeCodedLine[] lines) {
+        return permutation(lines, false);
+    }
+
+    /**
+     * Same as {@link #permutation(TimeCodedLine[])}, each pass being split among the common
+     * {@link java.util.concurrent.ForkJoinPool} for large arrays.
+     *
+     * @param lines the lines to sort, unchanged
+     *
+     * @return the permutation sorting the lines
+     */
+    public static int[] parallelPermutation(final TimeCodedLine[] lines) {
+        return permutation(lines, lines.length >= PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * @param lines the lines to sort in place
+     */
+    public static void sort(final TimeCodedLine[] lines) {
+        apply(lines, permutation(lines, false));
+    }
+
+    /**
+     * @param lines the lines to sort in place
+     */
+    public static void parallelSort(final TimeCodedLine[] lines) {
+        apply(lines, parallelPermutation(lines));
+    }
+
+    private static void apply(
+            final TimeCodedLine[] lines,
+            final int[] permutation
+    ) {
+        final TimeCodedLine[] sorted = new TimeCodedLine[lines.length];
+        for (int i = 0; i < sorted.length; i++) sorted[i] = lines[permutation[i]];
+        System.arraycopy(sorted, 0, lines, 0, sorted.length);
+    }
+
+    private static int[] permutation(
+            final TimeCodedLine[] lines,
+            final boolean parallel
+    ) {
+        final int n = lines.length;
+        if (n == 0) return new int[0];
+        long minStart = Long.MAX_VALUE;
+        long maxStart = Long.MIN_VALUE;
+        long minEnd = Long.MAX_VALUE;
+        long maxEnd = Long.MIN_VALUE;
+        for (final TimeCodedLine line : lines) {
+            minStart = Math.min(minStart, line.range().start());
+            maxStart = Math.max(maxStart, line.range().start());
+            minEnd = Math.min(minEnd, line.range().end());
+            maxEnd = Math.max(maxEnd, line.range().end());
+        }
+        // Differences are read as unsigned, so they never overflow
+        final int startBits = Long.SIZE - Long.numberOfLeadingZeros(maxStart - minStart);
+        final int endBits = Long.SIZE - Long.numberOfLeadingZeros(maxEnd - minEnd);
+        final int indexBits = Integer.SIZE - Integer.numberOfLeadingZeros(n - 1);
+        final long baseStart = minStart;
+        final long baseEnd = minEnd;
+        final long[] keys = new long[n];
+
+        if (startBits + endBits + indexBits <= Long.SIZE) {
+            final int startShift = endBits + indexBits;
+            setAll(keys, parallel, i -> (lines[i].range().start() - baseStart) << startShift
+                                        | (lines[i].range().end() - baseEnd) << indexBits
+                                        | i);
+            // Indices are already in order: only the range bits need sorting
+            sortBits(keys, null, indexBits, indexBits + endBits + startBits, parallel);
+            final long indexMask = (1L << indexBits) - 1L;
+            final int[] permutation = new int[n];
+            for (int i = 0; i < n; i++) permutation[i] = (int) (keys[i] & indexMask);
+            return permutation;
+        }
+
+        final int[] permutation = new int[n];
+        Arrays.setAll(permutation, i -> i);
+        setAll(keys, parallel, i -> lines[i].range().end() - baseEnd);
+        sortBits(keys, permutation, 0, endBits, parallel);
+        setAll(keys, parallel, i -> lines[permutation[i]].range().start() - baseStart);
+        sortBits(keys, permutation, 0, startBits, parallel);
+        return permutation;
+    }
+
+    private static void setAll(
+            final long[] keys,
+            final boolean parallel,
+            final IntToLongFunction generator
+    ) {
+        if (parallel) Arrays.parallelSetAll(keys, generator);
+        else Arrays.setAll(keys, generator);
+    }
+
+    /**
+     * Stable sort of the keys on their bits from {@code fromBit} included to {@code toBit} excluded.
+     *
+     * @param keys    the keys to sort
+     * @param indices moved along with the keys, may be {@code null}
+     */
+    private static void sortBits(
+            final long[] keys,
+            final int[] indices,
+            final int fromBit,
+            final int toBit,
+            final boolean parallel
+    ) {
+        final int n = keys.length;
+        long[] source = keys;
+        long[] target = new long[n];
+        int[] sourceIndices = indices;
+        int[] targetIndices = indices == null ? null : new int[n];
+        for (int shift = fromBit; shift < toBit; shift += DIGIT_BITS) {
+            final boolean moved = parallel
+                                  ? parallelPass(source, target, sourceIndices, targetIndices, shift)
+                                  : pass(source, target, sourceIndices, targetIndices, shift);
+            if (!moved) continue;
+            final long[] swap = source;
+            source = target;
+            target = swap;
+            final int[] swapIndices = sourceIndices;
+            sourceIndices = targetIndices;
+            targetIndices = swapIndices;
+        }
+        if (source != keys) {
+            System.arraycopy(source, 0, keys, 0, n);
+            if (indices != null) System.arraycopy(sourceIndices, 0, indices, 0, n);
+        }
+    }
+
+    private static int digit(
+            final long key,
+            final int shift
+    ) {
+        return (int) (key >>> shift) & MASK;
+    }
+
+    /**
+     * @return {@code false} if and only if every key has the same digit, in which case nothing is moved
+     */
+    private static boolean pass(
+            final long[] source,
+            final long[] target,
+            final int[] sourceIndices,
+            final int[] targetIndices,
+            final int shift
+    ) {
+        final int[] offsets = new int[RADIX];
+        for (final long key : source) offsets[digit(key, shift)]++;
+        if (offsets[digit(source[0], shift)] == source.length) return false;
+        int sum = 0;
+        for (int d = 0; d < RADIX; d++) {
+            final int count = offsets[d];
+            offsets[d] = sum;
+            sum += count;
+        }
+        scatter(source, target, sourceIndices, targetIndices, shift, offsets, 0, source.length);
+        return true;
+    }
+
+    private static void scatter(
+            final long[] source,
+            final long[] target,
+            final int[] sourceIndices,
+            final int[] targetIndices,
+            final int shift,
+            final int[] offsets,
+            final int from,
+            final int to
+    ) {
+        if (sourceIndices == null) {
+            for (int i = from; i < to; i++) target[offsets[digit(source[i], shift)]++] = source[i];
+        } else {
+            for (int i = from; i < to; i++) {
+                final int position = offsets[digit(source[i], shift)]++;
+                target[position] = source[i];
+                targetIndices[position] = sourceIndices[i];
+            }
+        }
+    }
+
+    /**
+     * Same as {@link #pass(long[], long[], int[], int[], int)}, with one histogram per chunk of keys so that the
+     * chunks are counted then scattered concurrently while keeping the sort stable.
+     */
+    private static boolean parallelPass(
+            final long[] source,
+            final long[] target,
+            final int[] sourceIndices,
+            final int[] targetIndices,
+            final int shift
+    ) {
+        final int n = source.length;
+        final int chunks = Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism() * 4, n / MIN_CHUNK));
+        final int chunkSize = (n + chunks - 1) / chunks;
+        final int[][] offsets = new int[chunks][RADIX];
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            final int[] counts = offsets[c];
+            final int to = Math.min(n, (c + 1) * chunkSize);
+            for (int i = c * chunkSize; i < to; i++) counts[digit(source[i], shift)]++;
+        });
+        int sum = 0;
+        for (int d = 0; d < RADIX; d++) {
+            final int start = sum;
+            for (final int[] counts : offsets) {
+                final int count = counts[d];
+                counts[d] = sum;
+                sum += count;
+            }
+            if (sum - start == n) return false;
+        }
+        IntStream.range(0, chunks).parallel().forEach(
+                c -> scatter(source, target, sourceIndices, targetIndices, shift, offsets[c], c * chunkSize,
+                             Math.min(n, (c + 1) * chunkSize)));
+        return true;
+    }
+}
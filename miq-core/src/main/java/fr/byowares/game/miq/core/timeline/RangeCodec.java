@@ -0,0 +1,232 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.timeline;
+
+import fr.byowares.game.miq.core.Range;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact binary encoding of sequences of {@link fr.byowares.game.miq.core.Range}.
+ * <p>
+ * The format is the number of ranges followed, for each range, by the difference between its start and the start
+ * of the previous range, then the difference between its duration and the duration of the previous range. Both
+ * differences are zig-zag encoded, so that small negative values stay small, and written as LEB128 varints. On a
+ * sorted timeline the start differences are small positive numbers and durations are similar from line to line,
+ * so most ranges take 3 to 5 bytes instead of 16. Unsorted sequences are still encoded correctly, only less
+ * compactly.
+ *
+ * @since XXX
+ */
+public final class RangeCodec {
+
+    private RangeCodec() {
+        throw new AssertionError("No fr.byowares.game.miq.core.timeline.RangeCodec instances for you!");
+    }
+
+    static long zigZag(final long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unZigZag(final long value) {
+        return (value >>> 1) ^ -(value & 1L);
+    }
+
+    /**
+     * @param ranges the ranges to encode
+     *
+     * @return the encoded ranges
+     */
+    public static byte[] encode(final List<Range> ranges) {
+        final int n = ranges.size();
+        final long[] starts = new long[n];
+        final long[] ends = new long[n];
+        for (int i = 0; i < n; i++) {
+            final Range range = ranges.get(i);
+            starts[i] = range.start();
+            ends[i] = range.end();
+        }
+        return encode(starts, ends, n);
+    }
+
+    /**
+     * @param starts the starting times of the ranges
+     * @param ends   the ending times of the ranges
+     * @param length the number of ranges to encode, from the beginning of the arrays
+     *
+     * @return the encoded ranges
+     *
+     * @throws java.lang.IllegalArgumentException if and only if {@code length} is negative or greater than the length
+     *                                            of an array, or a range ends before it starts
+     */
+    public static byte[] encode(
+            final long[] starts,
+            final long[] ends,
+            final int length
+    ) {
+        if (length < 0 || length > starts.length || length > ends.length)
+            throw new IllegalArgumentException("length (" + length + ") must be between 0 and the length of the arrays (" + starts.length + ", " + ends.length + ")");
+        // Most ranges fit in 5 bytes, the buffer grows if needed.
+        byte[] out = new byte[(int) Math.min(Integer.MAX_VALUE - 8, Math.max(16L, 5L * length + 5L))];
+        int pos = writeVarint(out, 0, length);
+        long previousStart = 0L;
+        long previousDuration = 0L;
+        for (int i = 0; i < length; i++) {
+            if (starts[i] > ends[i])
+                throw new IllegalArgumentException("start (" + starts[i] + ") must be inferior or equals to end (" + ends[i] + ")");
+            final long duration = ends[i] - starts[i];
+            if (out.length - pos < 2 * 10) out = Arrays.copyOf(out, out.length * 2);
+            pos = writeVarint(out, pos, zigZag(starts[i] - previousStart));
+            pos = writeVarint(out, pos, zigZag(duration - previousDuration));
+            previousStart = starts[i];
+            previousDuration = duration;
+        }
+        return Arrays.copyOf(out, pos);
+    }
+
+    /**
+     * @param encoded ranges encoded by this codec
+     *
+     * @return the decoded ranges
+     *
+     * @throws java.lang.IllegalArgumentException if and only if the encoded data is malformed or truncated
+     */
+    public static List<Range> decode(final byte[] encoded) {
+        final Decoder decoder = new Decoder(encoded, 0);
+        // The count comes from the data, never trust it for sizing beyond what the data can hold
+        final List<Range> ranges = new ArrayList<>(Math.min(decoder.remaining(), encoded.length));
+        final long[] starts = new long[256];
+        final long[] ends = new long[256];
+        int n;
+        while ((n = decoder.decode(starts, ends, 0, starts.length)) > 0)
+            for (int i = 0; i < n; i++) ranges.add(Range.fromAbsoluteTimes(starts[i], ends[i]));
+        return ranges;
+    }
+
+    private static int writeVarint(
+            final byte[] out,
+            final int position,
+            final long value
+    ) {
+        int pos = position;
+        long v = value;
+        while ((v & ~0x7FL) != 0L) {
+            out[pos++] = (byte) ((v & 0x7FL) | 0x80L);
+            v >>>= 7;
+        }
+        out[pos++] = (byte) v;
+        return pos;
+    }
+
+    /**
+     * Streaming decoder of encoded ranges into primitive buffers, reusable chunk after chunk without allocating.
+     * <p>
+     * A decoder is not thread-safe.
+     */
+    public static final class Decoder {
+
+        private final byte[] data;
+        private int position;
+        private int remaining;
+        private long previousStart;
+        private long previousDuration;
+
+        /**
+         * @param data   the encoded ranges
+         * @param offset the index of the first byte of the encoded ranges in {@code data}
+         *
+         * @throws java.lang.IllegalArgumentException if and only if the encoded data is malformed
+         */
+        public Decoder(
+                final byte[] data,
+                final int offset
+        ) {
+            this.data = data;
+            this.position = offset;
+            final long count = this.readVarint();
+            // Each range takes at least 2 bytes
+            if (count < 0L || count > (data.length - this.position) / 2)
+                throw new IllegalArgumentException("Invalid number of ranges: " + count);
+            this.remaining = (int) count;
+        }
+
+        /**
+         * @return the number of ranges not decoded yet
+         */
+        public int remaining() {
+            return this.remaining;
+        }
+
+        /**
+         * @param starts receive the starting times of the decoded ranges
+         * @param ends   receive the ending times of the decoded ranges
+         * @param offset the index of the first range to write in the arrays
+         * @param max    the maximum number of ranges to decode
+         *
+         * @return the number of decoded ranges, 0 when everything has been decoded
+         *
+         * @throws java.lang.IllegalArgumentException if and only if the encoded data is malformed or truncated
+         */
+        public int decode(
+                final long[] starts,
+                final long[] ends,
+                final int offset,
+                final int max
+        ) {
+            final int n = Math.min(max, this.remaining);
+            long start = this.previousStart;
+            long duration = this.previousDuration;
+            for (int i = offset; i < offset + n; i++) {
+                start += unZigZag(this.readVarint());
+                duration += unZigZag(this.readVarint());
+                starts[i] = start;
+                ends[i] = start + duration;
+            }
+            this.previousStart = start;
+            this.previousDuration = duration;
+            this.remaining -= n;
+            return n;
+        }
+
+        private long readVarint() {
+            final byte[] d = this.data;
+            int pos = this.position;
+            if (pos >= d.length) throw new IllegalArgumentException("Truncated data at " + pos);
+            long b = d[pos++];
+            if (b >= 0L) {
+                // Fast path: single byte
+                this.position = pos;
+                return b;
+            }
+            long value = b & 0x7FL;
+            int shift = 7;
+            while (true) {
+                if (shift >= Long.SIZE) throw new IllegalArgumentException("Malformed varint at " + this.position);
+                if (pos >= d.length) throw new IllegalArgumentException("Truncated data at " + pos);
+                b = d[pos++];
+                // The 10th byte only holds the highest bit
+                if (shift == 63 && (b & 0x7FL) > 1L) throw new IllegalArgumentException("Malformed varint at " + this.position);
+                value |= (b & 0x7FL) << shift;
+                if (b >= 0L) break;
+                shift += 7;
+            }
+            this.position = pos;
+            return value;
+        }
+    }
+}
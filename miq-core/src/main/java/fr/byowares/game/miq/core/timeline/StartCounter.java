@@ -0,0 +1,39 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.timeline;
+
+/**
+ * Counting step of the {@link fr.byowares.game.miq.core.timeline.TimelineIndex} search on small timelines, as a
+ * service so that it can be provided by a module using the incubating vector API.
+ * <p>
+ * Providers are only looked for when {@code jdk.incubator.vector} is in the boot layer, see
+ * {@link fr.byowares.game.miq.core.timeline.TimelineIndex#isVectorAvailable()}.
+ *
+ * @since XXX
+ */
+public interface StartCounter {
+
+    /**
+     * @param starts the sorted starts of the lines of a timeline
+     * @param time   an absolute time
+     *
+     * @return the number of starts at or before {@code time}
+     */
+    int countAtOrBefore(
+            long[] starts,
+            long time
+    );
+}
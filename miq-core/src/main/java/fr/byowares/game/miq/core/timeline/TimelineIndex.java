@@ -0,0 +1,207 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.timeline;
+
+import fr.byowares.game.miq.core.TimeCodedLine;
+
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * Find the line sung at a given time in a sorted timeline, without the unpredictable branches of a binary search.
+ * <p>
+ * The starts and ends of the lines are packed in {@code long} arrays. Tiny timelines are searched by counting the
+ * starts before the time in a branch-free loop over the whole array. Larger ones are searched in an Eytzinger
+ * (breadth-first) copy of the starts, where each step of the binary search is a conditional move and the next
+ * candidates are adjacent in memory: from a few dozen lines on, this beats both the full scan and
+ * {@link java.util.Collections#binarySearch(java.util.List, java.lang.Object)} on the lines.
+ * <p>
+ * When {@code jdk.incubator.vector} is in the boot layer and a {@link fr.byowares.game.miq.core.timeline.StartCounter}
+ * is provided, e.g. by the miq-vector module, the counting compares a whole vector of starts at a time, which keeps
+ * it ahead of the Eytzinger search on medium timelines too. Otherwise the scalar searches are used.
+ *
+ * @since XXX
+ */
+public final class TimelineIndex {
+
+    /** Size up to which counting is faster than the Eytzinger search, see the miq-sim benchmark */
+    static final int LINEAR_THRESHOLD = 16;
+    /** Size up to which counting with vectors is faster than the Eytzinger search, see the miq-sim benchmark */
+    static final int VECTOR_THRESHOLD = 48;
+    private static final StartCounter SCALAR = TimelineIndex::countAtOrBefore;
+    /** Counter using the vector API, {@code null} if the module is not in the boot layer or no provider is found */
+    private static final StartCounter VECTOR = loadVectorCounter();
+
+    private final long[] starts;
+    private final long[] ends;
+    /** Counts the starts at or before a time, {@code null} if searched in Eytzinger layout */
+    private final StartCounter counter;
+    /** {@code eytzinger[k]} is the start of rank {@code ranks[k]}, for k in [1, n], {@code null} if counted */
+    private final long[] eytzinger;
+    private final int[] ranks;
+
+    /**
+     * @param counter the counter to use, {@code null} for the Eytzinger search
+     */
+    private TimelineIndex(
+            final List<TimeCodedLine> timeline,
+            final StartCounter counter
+    ) {
+        this.counter = counter;
+        final int n = timeline.size();
+        this.starts = new long[n];
+        this.ends = new long[n];
+        for (int i = 0; i < n; i++) {
+            this.starts[i] = timeline.get(i).range().start();
+            this.ends[i] = timeline.get(i).range().end();
+            if (i > 0 && this.starts[i] < this.starts[i - 1])
+                throw new IllegalArgumentException("timeline must be sorted, line " + i + " starts too early");
+        }
+        if (counter != null) {
+            this.eytzinger = null;
+            this.ranks = null;
+        } else {
+            this.eytzinger = new long[n + 1];
+            this.ranks = new int[n + 1];
+            this.fill(0, 1);
+        }
+    }
+
+    private static StartCounter loadVectorCounter() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) return null;
+        return ServiceLoader.load(StartCounter.class).findFirst().orElse(null);
+    }
+
+    /**
+     * @return {@code true} if and only if timelines can be searched with the vector API, i.e. the
+     * {@code jdk.incubator.vector} module is in the boot layer and a
+     * {@link fr.byowares.game.miq.core.timeline.StartCounter} is provided
+     */
+    public static boolean isVectorAvailable() {
+        return VECTOR != null;
+    }
+
+    /**
+     * @param timeline a timeline sorted by range
+     *
+     * @return the index of the timeline, using the search that suits its size
+     *
+     * @throws java.lang.IllegalArgumentException if and only if the timeline is not sorted
+     */
+    public static TimelineIndex of(final List<TimeCodedLine> timeline) {
+        final int n = timeline.size();
+        if (VECTOR != null && n <= VECTOR_THRESHOLD) return new TimelineIndex(timeline, VECTOR);
+        return new TimelineIndex(timeline, n <= LINEAR_THRESHOLD ? SCALAR : null);
+    }
+
+    /**
+     * @param timeline a timeline sorted by range
+     *
+     * @return the index of the timeline, always searched by counting
+     *
+     * @throws java.lang.IllegalArgumentException if and only if the timeline is not sorted
+     */
+    public static TimelineIndex linear(final List<TimeCodedLine> timeline) {
+        return new TimelineIndex(timeline, SCALAR);
+    }
+
+    /**
+     * @param timeline a timeline sorted by range
+     *
+     * @return the index of the timeline, always searched by counting with the vector API
+     *
+     * @throws java.lang.IllegalArgumentException if and only if the timeline is not sorted
+     * @throws java.lang.IllegalStateException    if and only if the vector API is not available, see
+     *                                            {@link #isVectorAvailable()}
+     */
+    public static TimelineIndex vector(final List<TimeCodedLine> timeline) {
+        if (VECTOR == null) throw new IllegalStateException("No vector search: jdk.incubator.vector or miq-vector is missing");
+        return new TimelineIndex(timeline, VECTOR);
+    }
+
+    /**
+     * @param timeline a timeline sorted by range
+     *
+     * @return the index of the timeline, always searched in Eytzinger layout
+     *
+     * @throws java.lang.IllegalArgumentException if and only if the timeline is not sorted
+     */
+    public static TimelineIndex eytzinger(final List<TimeCodedLine> timeline) {
+        return new TimelineIndex(timeline, null);
+    }
+
+    /**
+     * In-order walk of the implicit tree rooted at {@code k}, giving it the ranks from {@code rank}.
+     *
+     * @return the next rank to give
+     */
+    private int fill(
+            final int rank,
+            final int k
+    ) {
+        if (k >= this.eytzinger.length) return rank;
+        int next = this.fill(rank, 2 * k);
+        this.eytzinger[k] = this.starts[next];
+        this.ranks[k] = next++;
+        return this.fill(next, 2 * k + 1);
+    }
+
+    private static int countAtOrBefore(
+            final long[] starts,
+            final long time
+    ) {
+        int count = 0;
+        for (int i = 0; i < starts.length; i++) count += starts[i] <= time ? 1 : 0;
+        return count;
+    }
+
+    /**
+     * @return the number of lines
+     */
+    public int size() {
+        return this.starts.length;
+    }
+
+    /**
+     * @param time an absolute time
+     *
+     * @return the index of the last line starting at or before {@code time}, -1 if there is none
+     */
+    public int floor(final long time) {
+        return this.eytzinger == null ? this.counter.countAtOrBefore(this.starts, time) - 1 : this.floorEytzinger(time);
+    }
+
+    private int floorEytzinger(final long time) {
+        final long[] e = this.eytzinger;
+        final int n = e.length - 1;
+        int k = 1;
+        while (k <= n) k = 2 * k + (e[k] <= time ? 1 : 0);
+        // Cancel the final right turns: k becomes the first start after time, 0 if there is none
+        k >>>= Integer.numberOfTrailingZeros(~k) + 1;
+        return (k == 0 ? n : this.ranks[k]) - 1;
+    }
+
+    /**
+     * @param time an absolute time
+     *
+     * @return the index of the line starting last at or before {@code time} if it is still sung at {@code time}, -1
+     * otherwise
+     */
+    public int lineAt(final long time) {
+        final int floor = this.floor(time);
+        return floor >= 0 && time < this.ends[floor] ? floor : -1;
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.timeline;
+
+/**
+ * @param kind  the kind of the issue
+ * @param index the index of the line where the issue was detected, the previous line being the other culprit when
+ *              the issue involves two lines
+ *
+ * @since XXX
+ */
+public record TimelineIssue(Kind kind, int index) {
+
+    /**
+     * Kinds of issues detected by {@link fr.byowares.game.miq.core.timeline.TimelineValidator}.
+     */
+    public enum Kind {
+        /** The line is sorted before the previous one */
+        UNORDERED,
+        /** The line has the same range and text as the previous one */
+        DUPLICATE,
+        /** The line starts before a previous line ends */
+        OVERLAP,
+        /** The line lasts zero time */
+        ZERO_LENGTH,
+        /** The line starts too long after all previous lines ended */
+        GAP
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.timeline;
+
+import fr.byowares.game.miq.core.TimeCodedLine;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazily merge several sorted timelines, each shifted by its own offset, e.g. the songs of a medley round.
+ * <p>
+ * The merge is a loser tree over the current line of each source: getting the next line replays a single path of
+ * {@code log2(k)} comparisons, and the memory used is proportional to the number {@code k} of sources, whatever
+ * their lengths. Lines of equal ranges are returned in the order of their sources.
+ *
+ * @since XXX
+ */
+public final class TimelineMerger
+        implements Iterator<TimeCodedLine> {
+
+    private final Iterator<TimeCodedLine>[] sources;
+    private final long[] offsets;
+    /** The next line of each source, already shifted, {@code null} once the source is exhausted */
+    private final TimeCodedLine[] heads;
+    /** {@code tree[0]} is the source of the smallest head, the other nodes hold the loser of their match */
+    private final int[] tree;
+    private int source = -1;
+
+    @SuppressWarnings("unchecked")
+    private TimelineMerger(
+            final List<? extends Iterable<TimeCodedLine>> sources,
+            final long[] offsets
+    ) {
+        final int k = sources.size();
+        this.sources = (Iterator<TimeCodedLine>[]) new Iterator<?>[k];
+        this.offsets = offsets.clone();
+        this.heads = new TimeCodedLine[k];
+        this.tree = new int[Math.max(k, 1)];
+        for (int i = 0; i < k; i++) {
+            this.sources[i] = sources.get(i).iterator();
+            this.heads[i] = this.sources[i].hasNext() ? this.sources[i].next().shiftedBy(offsets[i]) : null;
+        }
+        // Source k stands for a line smaller than all the others, so that every real source is played once
+        Arrays.fill(this.tree, k);
+        for (int i = k - 1; i >= 0; i--) this.replay(i);
+    }
+
+    /**
+     * @param sources the timelines to merge, each sorted by range
+     * @param offsets the time added to the lines of each source
+     *
+     * @return an iterator over the lines of all the sources, sorted by range
+     *
+     * @throws java.lang.IllegalArgumentException if and only if there is not one offset per source
+     */
+    public static TimelineMerger of(
+            final List<? extends Iterable<TimeCodedLine>> sources,
+            final long[] offsets
+    ) {
+        if (sources.size() != offsets.length) throw new IllegalArgumentException(
+                "offsets.length (" + offsets.length + ") must be the number of sources (" + sources.size() + ")");
+        return new TimelineMerger(sources, offsets);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return this.sources.length > 0 && this.heads[this.tree[0]] != null;
+    }
+
+    /**
+     * @return the next line, shifted by the offset of its source
+     *
+     * @throws java.lang.IllegalStateException if and only if a source turns out not to be sorted
+     */
+    @Override
+    public TimeCodedLine next() {
+        if (!this.hasNext()) throw new NoSuchElementException();
+        final int winner = this.tree[0];
+        final TimeCodedLine line = this.heads[winner];
+        final Iterator<TimeCodedLine> iterator = this.sources[winner];
+        if (iterator.hasNext()) {
+            final TimeCodedLine next = iterator.next().shiftedBy(this.offsets[winner]);
+            if (next.compareTo(line) < 0) throw new IllegalStateException(
+                    "source " + winner + " is not sorted: " + next.range() + " after " + line.range());
+            this.heads[winner] = next;
+        } else {
+            this.heads[winner] = null;
+        }
+        this.replay(winner);
+        this.source = winner;
+        return line;
+    }
+
+    /**
+     * @return the index of the source of the line last returned by {@link #next()}, -1 before the first call
+     */
+    public int source() {
+        return this.source;
+    }
+
+    /**
+     * Replay the matches from the leaf of {@code source} up to the root, after its head changed.
+     */
+    private void replay(final int source) {
+        int winner = source;
+        for (int node = (source + this.sources.length) >>> 1; node > 0; node >>>= 1) {
+            if (this.beats(this.tree[node], winner)) {
+                final int loser = winner;
+                winner = this.tree[node];
+                this.tree[node] = loser;
+            }
+        }
+        this.tree[0] = winner;
+    }
+
+    private boolean beats(
+            final int a,
+            final int b
+    ) {
+        final int k = this.sources.length;
+        if (a == k || b == k) return a == k;
+        final TimeCodedLine lineA = this.heads[a];
+        final TimeCodedLine lineB = this.heads[b];
+        if (lineA == null || lineB == null) return lineB == null && (lineA != null || a < b);
+        final int order = lineA.compareTo(lineB);
+        return order < 0 || order == 0 && a < b;
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.timeline;
+
+import fr.byowares.game.miq.core.Range;
+import fr.byowares.game.miq.core.TimeCodedLine;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * Detect, and optionally repair, the defects of imported timelines.
+ * <p>
+ * Validation is a single linear pass comparing each line with the previous one and with the furthest end seen so
+ * far, so a line nested inside a long previous line is reported as an overlap as well.
+ *
+ * @since XXX
+ */
+public final class TimelineValidator {
+
+    private final long maxGap;
+
+    /**
+     * @param maxGap the longest silence allowed between two consecutive lines before reporting a
+     *               {@link fr.byowares.game.miq.core.timeline.TimelineIssue.Kind#GAP}
+     *
+     * @throws java.lang.IllegalArgumentException if and only if {@code maxGap} is negative
+     */
+    public TimelineValidator(final long maxGap) {
+        if (maxGap < 0L) throw new IllegalArgumentException("maxGap (" + maxGap + ") must be positive or zero");
+        this.maxGap = maxGap;
+    }
+
+    private static boolean sameText(
+            final TimeCodedLine a,
+            final TimeCodedLine b
+    ) {
+        return a.line().toString().contentEquals(b.line());
+    }
+
+    /**
+     * @param timeline the timeline to check, expected to be sorted
+     *
+     * @return the issues found in the timeline
+     */
+    public ValidationReport validate(final List<TimeCodedLine> timeline) {
+        final List<TimelineIssue> issues = new ArrayList<>();
+        TimeCodedLine previous = null;
+        long furthestEnd = Long.MIN_VALUE;
+        int i = 0;
+        for (final TimeCodedLine line : timeline) {
+            final Range range = line.range();
+            if (range.duration() == 0L) issues.add(new TimelineIssue(TimelineIssue.Kind.ZERO_LENGTH, i));
+            if (previous != null) {
+                final int order = line.compareTo(previous);
+                if (order < 0) {
+                    issues.add(new TimelineIssue(TimelineIssue.Kind.UNORDERED, i));
+                } else if (order == 0 && sameText(previous, line)) {
+                    issues.add(new TimelineIssue(TimelineIssue.Kind.DUPLICATE, i));
+                } else if (range.start() < furthestEnd) {
+                    issues.add(new TimelineIssue(TimelineIssue.Kind.OVERLAP, i));
+                } else if (range.start() - furthestEnd > this.maxGap) {
+                    issues.add(new TimelineIssue(TimelineIssue.Kind.GAP, i));
+                }
+            }
+            furthestEnd = Math.max(furthestEnd, range.end());
+            previous = line;
+            i++;
+        }
+        return new ValidationReport(i, issues);
+    }
+
+    /**
+     * Validate all the timelines of a catalog in parallel.
+     *
+     * @param catalog the timelines to check, by song
+     * @param <K>     the type of the song identifiers
+     *
+     * @return the report of each song
+     */
+    public <K> ConcurrentMap<K, ValidationReport> validateAll(final Map<K, ? extends List<TimeCodedLine>> catalog) {
+        return catalog.entrySet()
+                      .parallelStream()
+                      .collect(Collectors.toConcurrentMap(Map.Entry::getKey, e -> this.validate(e.getValue())));
+    }
+
+    /**
+     * Build a timeline without ordering issues, duplicates, overlaps nor zero-length lines:
+     * <ul>
+     *     <li>lines are sorted;</li>
+     *     <li>duplicates and zero-length lines are dropped;</li>
+     *     <li>an overlapped line is cut where the next one starts, unless both start together, in which case the
+     *     next line is delayed until the first one ends, or dropped if it is entirely covered.</li>
+     * </ul>
+     * Gaps cannot be repaired since no lyric can be invented to fill them.
+     *
+     * @param timeline the timeline to repair, in any order
+     *
+     * @return a new repaired timeline, the given one being left untouched
+     */
+    public List<TimeCodedLine> repair(final Collection<TimeCodedLine> timeline) {
+        final List<TimeCodedLine> sorted = new ArrayList<>(timeline);
+        sorted.sort(null);
+        final List<TimeCodedLine> repaired = new ArrayList<>(sorted.size());
+        for (final TimeCodedLine line : sorted) {
+            TimeCodedLine current = line;
+            if (current.range().duration() == 0L) continue;
+            if (!repaired.isEmpty()) {
+                final int lastIndex = repaired.size() - 1;
+                final TimeCodedLine last = repaired.get(lastIndex);
+                final Range lastRange = last.range();
+                final Range range = current.range();
+                if (range.equals(lastRange) && sameText(last, current)) continue;
+                if (range.start() < lastRange.end()) {
+                    if (range.start() > lastRange.start()) {
+                        repaired.set(lastIndex,
+                                     last.withRange(Range.fromAbsoluteTimes(lastRange.start(), range.start())));
+                    } else if (range.end() > lastRange.end()) {
+                        current = current.withRange(Range.fromAbsoluteTimes(lastRange.end(), range.end()));
+                    } else {
+                        continue;
+                    }
+                }
+            }
+            repaired.add(current);
+        }
+        return repaired;
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.timeline;
+
+import java.util.List;
+
+/**
+ * @param lines  the number of validated lines
+ * @param issues the issues found, ordered by line index
+ *
+ * @since XXX
+ */
+public record ValidationReport(int lines, List<TimelineIssue> issues) {
+
+    /**
+     * @param lines  the number of validated lines
+     * @param issues the issues found, ordered by line index
+     */
+    public ValidationReport {
+        issues = List.copyOf(issues);
+    }
+
+    /**
+     * @return {@code true} if and only if no issue was found
+     */
+    public boolean isValid() {
+        return this.issues.isEmpty();
+    }
+
+    /**
+     * @param kind the kind of issue to count
+     *
+     * @return the number of issues of the given kind
+     */
+    public long count(final TimelineIssue.Kind kind) {
+        return this.issues.stream().filter(i -> i.kind() == kind).count();
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.timeline;
+
+import fr.byowares.game.miq.core.TimeCodedLine;
+
+import java.util.List;
+
+/**
+ * Count the lines of a timeline overlapping a time window, and the time sung during it, in {@code O(log n)} and
+ * without allocating.
+ * <p>
+ * Both the starts and the ends of the lines must be sorted, which is the case of any timeline without nested lines,
+ * e.g. a timeline repaired by {@link fr.byowares.game.miq.core.timeline.TimelineValidator}. The lines overlapping a
+ * window are then a contiguous run, found by two binary searches, and the time they are sung inside the window is
+ * derived from prefix sums of the starts and ends.
+ *
+ * @since XXX
+ */
+public final class WindowQueries {
+
+    private final long[] starts;
+    private final long[] ends;
+    /** {@code startSums[i]} is the sum of the {@code i} first starts, same for ends */
+    private final long[] startSums;
+    private final long[] endSums;
+
+    private WindowQueries(final List<TimeCodedLine> timeline) {
+        final int n = timeline.size();
+        this.starts = new long[n];
+        this.ends = new long[n];
+        this.startSums = new long[n + 1];
+        this.endSums = new long[n + 1];
+        for (int i = 0; i < n; i++) {
+            final long start = timeline.get(i).range().start();
+            final long end = timeline.get(i).range().end();
+            if (i > 0 && (start < this.starts[i - 1] || end < this.ends[i - 1]))
+                throw new IllegalArgumentException("timeline must have sorted starts and ends, not line " + i);
+            this.starts[i] = start;
+            this.ends[i] = end;
+            this.startSums[i + 1] = this.startSums[i] + start;
+            this.endSums[i + 1] = this.endSums[i] + end;
+        }
+    }
+
+    /**
+     * @param timeline a timeline whose starts and ends are both sorted
+     *
+     * @return the queries over the timeline
+     *
+     * @throws java.lang.IllegalArgumentException if and only if the starts or the ends are not sorted
+     */
+    public static WindowQueries of(final List<TimeCodedLine> timeline) {
+        return new WindowQueries(timeline);
+    }
+
+    private static void checkWindow(
+            final long start,
+            final long end
+    ) {
+        if (end < start)
+            throw new IllegalArgumentException("end (" + end + ") must be greater than or equal to start (" + start + ")");
+    }
+
+    /**
+     * @return the first index whose value is strictly greater than {@code key}
+     */
+    private static int upperBound(
+            final long[] values,
+            final long key
+    ) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (values[mid] <= key) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * @return the first index whose value is greater than or equal to {@code key}
+     */
+    private static int lowerBound(
+            final long[] values,
+            final long key
+    ) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (values[mid] < key) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * @return the number of lines
+     */
+    public int size() {
+        return this.starts.length;
+    }
+
+    /**
+     * @param start the start of the window
+     * @param end   the end of the window, excluded
+     *
+     * @return the index of the first line overlapping the window, i.e. ending after its start
+     *
+     * @throws java.lang.IllegalArgumentException if and only if {@code end} is before {@code start}
+     */
+    public int first(
+            final long start,
+            final long end
+    ) {
+        checkWindow(start, end);
+        return upperBound(this.ends, start);
+    }
+
+    /**
+     * @param start the start of the window
+     * @param end   the end of the window, excluded
+     *
+     * @return the number of lines sung, even partly, during the window
+     *
+     * @throws java.lang.IllegalArgumentException if and only if {@code end} is before {@code start}
+     */
+    public int count(
+            final long start,
+            final long end
+    ) {
+        checkWindow(start, end);
+        return Math.max(0, lowerBound(this.starts, end) - upperBound(this.ends, start));
+    }
+
+    /**
+     * @param start the start of the window
+     * @param end   the end of the window, excluded
+     *
+     * @return the sum, over the lines, of the time each line is sung during the window
+     *
+     * @throws java.lang.IllegalArgumentException if and only if {@code end} is before {@code start}
+     */
+    public long coveredDuration(
+            final long start,
+            final long end
+    ) {
+        checkWindow(start, end);
+        final int from = upperBound(this.ends, start);
+        final int to = lowerBound(this.starts, end);
+        if (to <= from) return 0L;
+        // Lines before endCut end inside the window, the others are cut by its end
+        final int endCut = Math.clamp(lowerBound(this.ends, end), from, to);
+        // Lines before startCut start before the window and are cut by its start, the others start inside
+        final int startCut = Math.clamp(upperBound(this.starts, start), from, to);
+        final long sungUntil = this.endSums[endCut] - this.endSums[from] + (to - endCut) * end;
+        final long sungFrom = (startCut - from) * start + this.startSums[to] - this.startSums[startCut];
+        return sungUntil - sungFrom;
+    }
+
+    /**
+     * @return a new cursor over the lines of a window, reusable for many windows
+     */
+    public Cursor cursor() {
+        return new Cursor(this);
+    }
+
+    /**
+     * Iterate over the lines overlapping a window without allocating:
+     * <pre>
+     * cursor.reset(start, end);
+     * while (cursor.next()) use(cursor.index(), cursor.overlapStart(), cursor.overlapEnd());
+     * </pre>
+     * A cursor is not thread-safe.
+     *
+     * @since XXX
+     */
+    public static final class Cursor {
+
+        private final WindowQueries queries;
+        private long windowStart;
+        private long windowEnd;
+        private int index;
+        private int to;
+
+        private Cursor(final WindowQueries queries) {
+            this.queries = queries;
+        }
+
+        /**
+         * @param start the start of the window
+         * @param end   the end of the window, excluded
+         *
+         * @return this cursor, positioned before the first line overlapping the window
+         *
+         * @throws java.lang.IllegalArgumentException if and only if {@code end} is before {@code start}
+         */
+        public Cursor reset(
+                final long start,
+                final long end
+        ) {
+            this.index = this.queries.first(start, end) - 1;
+            this.to = lowerBound(this.queries.starts, end);
+            this.windowStart = start;
+            this.windowEnd = end;
+            return this;
+        }
+
+        /**
+         * @return {@code true} if and only if the cursor moved to the next line overlapping the window
+         */
+        public boolean next() {
+            if (this.index + 1 >= this.to) return false;
+            this.index++;
+            return true;
+        }
+
+        /**
+         * @return the index of the current line in the timeline
+         */
+        public int index() {
+            return this.index;
+        }
+
+        /**
+         * @return the time the current line starts being sung in the window
+         */
+        public long overlapStart() {
+            return Math.max(this.queries.starts[this.index], this.windowStart);
+        }
+
+        /**
+         * @return the time the current line stops being sung in the window
+         */
+        public long overlapEnd() {
+            return Math.min(this.queries.ends[this.index], this.windowEnd);
+        }
+    }
+}
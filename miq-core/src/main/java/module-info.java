@@ -19,7 +19,19 @@
  */
 module fr.byowares.game.miq.core {
     exports fr.byowares.game.miq.core;
+    exports fr.byowares.game.miq.core.answer;
+    exports fr.byowares.game.miq.core.cache;
+    exports fr.byowares.game.miq.core.catalog;
+    exports fr.byowares.game.miq.core.dedup;
+    exports fr.byowares.game.miq.core.hint;
     exports fr.byowares.game.miq.core.info;
+    exports fr.byowares.game.miq.core.ingest;
+    exports fr.byowares.game.miq.core.schedule;
+    exports fr.byowares.game.miq.core.suggest;
+    exports fr.byowares.game.miq.core.text;
+    exports fr.byowares.game.miq.core.timeline;
 
     requires fr.byowares.game.utils;
+
+    uses fr.byowares.game.miq.core.timeline.StartCounter;
 }
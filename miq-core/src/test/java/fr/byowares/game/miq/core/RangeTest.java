@@ -61,6 +61,14 @@ void testInvalidRelativeRange() {
         assertEquals("start (11) must be inferior or equals to end (10)", e.getMessage());
     }
 
+    @Test
+    void testAccessors() {
+        final Range range = Range.fromRelativeTimes(TEN, 1L);
+        assertEquals(TEN, range.start());
+        assertEquals(ELEVEN, range.end());
+        assertEquals(1L, range.duration());
+    }
+
     @Test
     void testEquality() {
         final Range rel = Range.fromRelativeTimes(TEN, 1L);
@@ -0,0 +1,105 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WordTimingsTest {
+    private static final long START = 60_000L;
+    private static final String TEXT = "hello karaoke world";
+
+    private static KaraokeLine line() {
+        final long[] starts = {START, START + 500L, START + 1_500L};
+        final long[] ends = {START + 400L, START + 1_500L, START + 2_000L};
+        final WordTimings words = WordTimings.fromAbsoluteTimes(START, starts, ends, new int[]{0, 6, 14},
+                                                                new int[]{5, 13, 19});
+        return new KaraokeLine(new TimeCodedLine(Range.fromRelativeTimes(START, 2_000L), TEXT), words);
+    }
+
+    @Test
+    void testActiveWord() {
+        final KaraokeLine line = line();
+        assertEquals(3, line.words().size());
+        assertEquals(-1, line.activeWord(START - 1L));
+        assertEquals(0, line.activeWord(START));
+        assertEquals(0, line.activeWord(START + 399L));
+        assertEquals(-1, line.activeWord(START + 450L));
+        assertEquals(1, line.activeWord(START + 500L));
+        assertEquals(2, line.activeWord(START + 1_500L));
+        assertEquals(-1, line.activeWord(START + 2_000L));
+        assertEquals("karaoke", TEXT.substring(line.words().textBegin(1), line.words().textEnd(1)));
+        assertEquals(1_500, line.words().startOffset(2));
+    }
+
+    @Test
+    void testLineWithoutWords() {
+        final KaraokeLine line = new KaraokeLine(new TimeCodedLine(Range.fromRelativeTimes(START, 2_000L), TEXT),
+                                                 WordTimings.NONE);
+        assertEquals(-1, line.activeWord(START));
+    }
+
+    @Test
+    void testLinesIgnoreWords() {
+        final KaraokeLine karaoke = line();
+        final TimeCodedLine plain = new TimeCodedLine(karaoke.line().range(), TEXT);
+        assertEquals(plain, karaoke.line());
+        assertEquals(plain.hashCode(), karaoke.line().hashCode());
+        assertEquals(plain.toString(), karaoke.line().toString());
+        // Lines still accept any value, as records without validation
+        assertNull(new TimeCodedLine(null, null).range());
+        final TimeCodedLine unset = new TimeCodedLine(null, TEXT);
+        assertThrows(NullPointerException.class, () -> new KaraokeLine(unset, WordTimings.NONE));
+    }
+
+    @Test
+    void testWithRange() {
+        final KaraokeLine line = line();
+        assertEquals(line.words(), line.withRange(Range.fromRelativeTimes(START, 2_500L)).words());
+        assertSame(WordTimings.NONE, line.withRange(Range.fromRelativeTimes(START, 1_000L)).words());
+        assertSame(WordTimings.NONE, line.withRange(Range.fromRelativeTimes(START + 1L, 2_000L)).words());
+    }
+
+    @Test
+    void testShiftedBy() {
+        final KaraokeLine line = line();
+        final KaraokeLine shifted = line.shiftedBy(-500L);
+        assertEquals(Range.fromRelativeTimes(START - 500L, line.line().range().duration()), shifted.line().range());
+        assertSame(line.words(), shifted.words());
+        assertEquals(line.activeWord(START + 10L), shifted.activeWord(START - 490L));
+        assertSame(line, line.shiftedBy(0L));
+    }
+
+    @Test
+    void testInvalidWords() {
+        final long[] overlappingStarts = {START, START + 5L};
+        final long[] overlappingEnds = {START + 10L, START + 20L};
+        assertThrows(IllegalArgumentException.class,
+                     () -> WordTimings.fromAbsoluteTimes(START, overlappingStarts, overlappingEnds, new int[]{0, 1},
+                                                         new int[]{1, 2}));
+        final WordTimings tooLong = WordTimings.fromAbsoluteTimes(START, new long[]{START}, new long[]{START + 10L},
+                                                                  new int[]{0}, new int[]{1});
+        assertThrows(IllegalArgumentException.class,
+                     () -> new KaraokeLine(new TimeCodedLine(Range.fromRelativeTimes(START, 5L), TEXT), tooLong));
+        // Only the first word points past the end of the text
+        final WordTimings outside = WordTimings.fromAbsoluteTimes(START, new long[]{START, START + 1L},
+                                                                  new long[]{START + 1L, START + 2L},
+                                                                  new int[]{0, 0}, new int[]{TEXT.length() + 1, 1});
+        assertThrows(IllegalArgumentException.class,
+                     () -> new KaraokeLine(new TimeCodedLine(Range.fromRelativeTimes(START, 5L), TEXT), outside));
+    }
+}
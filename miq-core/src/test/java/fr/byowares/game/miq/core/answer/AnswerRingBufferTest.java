@@ -0,0 +1,101 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.answer;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnswerRingBufferTest {
+
+    @Test
+    void testFullAndBatches() {
+        final AnswerRingBuffer ring = new AnswerRingBuffer(4, 8);
+        final byte[] guess = "xhello".getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < 4; i++) assertTrue(ring.tryPublish(i, guess, 1, 5, 100L + i));
+        assertFalse(ring.tryPublish(4L, guess, 0, 1, 0L));
+        assertEquals(4, ring.size());
+
+        final List<String> seen = new ArrayList<>();
+        final AnswerHandler handler = (event, endOfBatch) -> seen.add(
+                event.playerId() + ":" + new String(event.guessBytes(), 0, event.guessLength(), StandardCharsets.UTF_8)
+                + ":" + event.nanoTime() + (endOfBatch ? "!" : ""));
+        assertEquals(3, ring.drain(handler, 3));
+        assertEquals(List.of("0:hello:100", "1:hello:101", "2:hello:102!"), seen);
+        // The freed slots are reused for the next round
+        assertTrue(ring.tryPublish(4L, guess, 0, 1, 104L));
+        seen.clear();
+        assertEquals(2, ring.drain(handler, 10));
+        assertEquals(List.of("3:hello:103", "4:x:104!"), seen);
+        assertEquals(0, ring.drain(handler, 10));
+        assertThrows(IllegalArgumentException.class, () -> ring.tryPublish(0L, new byte[9], 0, 9, 0L));
+        assertThrows(IllegalArgumentException.class, () -> new AnswerRingBuffer(6, 8));
+    }
+
+    @Test
+    void testRejectedPublishKeepsTheRingUsable() {
+        final AnswerRingBuffer ring = new AnswerRingBuffer(4, 8);
+        final byte[] guess = {1, 2, 3};
+        assertThrows(IndexOutOfBoundsException.class, () -> ring.tryPublish(0L, guess, 0, -1, 0L));
+        assertThrows(IndexOutOfBoundsException.class, () -> ring.tryPublish(0L, guess, 2, 2, 0L));
+        assertThrows(IndexOutOfBoundsException.class, () -> ring.tryPublish(0L, guess, -1, 1, 0L));
+        assertThrows(NullPointerException.class, () -> ring.tryPublish(0L, null, 0, 1, 0L));
+        assertEquals(0, ring.size());
+        for (int i = 0; i < 4; i++) assertTrue(ring.tryPublish(i, guess, 1, 2, i));
+        final List<Long> players = new ArrayList<>();
+        assertEquals(4, ring.drain((event, endOfBatch) -> players.add(event.playerId()), 10));
+        assertEquals(List.of(0L, 1L, 2L, 3L), players);
+    }
+
+    @Test
+    void testConcurrentProducers() throws InterruptedException {
+        final int producers = 4;
+        final int perProducer = 20_000;
+        final AnswerRingBuffer ring = new AnswerRingBuffer(64, 4);
+        final List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            final long player = p;
+            threads.add(Thread.ofPlatform().start(() -> {
+                final byte[] guess = new byte[4];
+                for (int i = 0; i < perProducer; i++) {
+                    guess[0] = (byte) i;
+                    guess[3] = (byte) (i >>> 8);
+                    ring.publish(player, guess, 0, 4, i);
+                }
+            }));
+        }
+        final long[] next = new long[producers];
+        final int[] received = {0};
+        final AnswerHandler handler = (event, endOfBatch) -> {
+            final int player = (int) event.playerId();
+            // Answers of a producer arrive in order, and their bytes are not torn
+            assertEquals(next[player]++, event.nanoTime());
+            assertEquals((byte) event.nanoTime(), event.guessBytes()[0]);
+            assertEquals((byte) (event.nanoTime() >>> 8), event.guessBytes()[3]);
+            received[0]++;
+        };
+        while (received[0] < producers * perProducer) {
+            if (ring.drain(handler, 16) == 0) Thread.onSpinWait();
+        }
+        for (final Thread thread : threads) thread.join();
+        assertEquals(0, ring.size());
+        for (final long n : next) assertEquals(perProducer, n);
+    }
+}
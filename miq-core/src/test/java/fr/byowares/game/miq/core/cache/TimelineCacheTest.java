@@ -0,0 +1,122 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.cache;
+
+import fr.byowares.game.miq.core.Range;
+import fr.byowares.game.miq.core.TimeCodedLine;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimelineCacheTest {
+
+    private static List<TimeCodedLine> song(final long id) {
+        final List<TimeCodedLine> lines = new ArrayList<>();
+        for (int i = 0; i < 10; i++)
+            lines.add(new TimeCodedLine(Range.fromRelativeTimes(i * 1_000L, 1_000L), "song " + id + " line " + i));
+        return lines;
+    }
+
+    private static final long SONG_BYTES = TimelineCache.estimatedBytes(song(0L));
+
+    @Test
+    void testLoadOnceAndHit() {
+        final AtomicInteger loads = new AtomicInteger();
+        final TimelineCache cache = new TimelineCache(100L * SONG_BYTES, 100, id -> {
+            loads.incrementAndGet();
+            return song(id);
+        }, Runnable::run);
+        assertNull(cache.getIfPresent(1L));
+        final List<TimeCodedLine> first = cache.get(1L).join();
+        assertSame(first, cache.get(1L).join());
+        assertSame(first, cache.getIfPresent(1L));
+        assertEquals(1, loads.get());
+        final CacheStats stats = cache.stats();
+        assertEquals(1L, stats.misses());
+        assertEquals(2L, stats.hits());
+        assertEquals(SONG_BYTES, stats.weightedSize());
+        cache.invalidate(1L);
+        assertNull(cache.getIfPresent(1L));
+        assertEquals(0L, cache.stats().weightedSize());
+    }
+
+    @Test
+    void testConcurrentLoadsAreShared() {
+        final List<Runnable> pending = new ArrayList<>();
+        final TimelineCache cache = new TimelineCache(100L * SONG_BYTES, 100, TimelineCacheTest::song, pending::add);
+        final CompletableFuture<List<TimeCodedLine>> a = cache.get(7L);
+        final CompletableFuture<List<TimeCodedLine>> b = cache.get(7L);
+        assertSame(a, b);
+        assertEquals(1, pending.size());
+        assertFalse(a.isDone());
+        pending.getFirst().run();
+        assertEquals(song(7L), a.join());
+    }
+
+    @Test
+    void testLoadFailureIsNotCached() {
+        final AtomicInteger loads = new AtomicInteger();
+        final TimelineCache cache = new TimelineCache(100L * SONG_BYTES, 100, id -> {
+            if (loads.getAndIncrement() == 0) throw new IllegalStateException("corrupted file");
+            return song(id);
+        }, Runnable::run);
+        assertThrows(CompletionException.class, () -> cache.get(3L).join());
+        assertEquals(1L, cache.stats().loadFailures());
+        assertEquals(song(3L), cache.get(3L).join());
+    }
+
+    @Test
+    void testFrequentSongsSurviveScan() {
+        final TimelineCache cache = new TimelineCache(20L * SONG_BYTES, 20, TimelineCacheTest::song, Runnable::run);
+        for (int round = 0; round < 5; round++) {
+            for (long hot = 0L; hot < 10L; hot++) cache.get(hot).join();
+        }
+        cache.cleanUp();
+        // A playlist rotating through many songs requested once
+        for (long cold = 1_000L; cold < 1_500L; cold++) cache.get(cold).join();
+        cache.cleanUp();
+        for (long hot = 0L; hot < 10L; hot++) assertNotNull(cache.getIfPresent(hot), "song " + hot);
+        final CacheStats stats = cache.stats();
+        assertTrue(stats.weightedSize() <= 20L * SONG_BYTES);
+        assertTrue(stats.evictions() >= 480L, "evictions " + stats.evictions());
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class,
+                     () -> new TimelineCache(0L, 1, TimelineCacheTest::song, Runnable::run));
+        assertThrows(IllegalArgumentException.class,
+                     () -> new TimelineCache(1L, 0, TimelineCacheTest::song, Runnable::run));
+        assertEquals(1d, new CacheStats(0L, 0L, 0L, 0L, 0L).hitRate());
+        assertEquals(0.75d, new CacheStats(3L, 1L, 0L, 0L, 0L).hitRate(), 1e-9);
+    }
+
+    @Test
+    void testFrequencySketch() {
+        final FrequencySketch sketch = new FrequencySketch(64);
+        for (int i = 0; i < 20; i++) sketch.increment(42L);
+        assertEquals(15, sketch.frequency(42L));
+        assertEquals(0, sketch.frequency(43L));
+        for (long key = 0L; key < 640L; key++) sketch.increment(key + 1_000L);
+        assertTrue(sketch.frequency(42L) < 15);
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.catalog;
+
+import fr.byowares.game.miq.core.Range;
+import fr.byowares.game.miq.core.TimeCodedLine;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LazyCatalogTest {
+
+    private static List<TimeCodedLine> song(
+            final long id,
+            final int lines
+    ) {
+        final List<TimeCodedLine> song = new ArrayList<>();
+        for (int i = 0; i < lines; i++)
+            song.add(new TimeCodedLine(Range.fromRelativeTimes(i * 2_000L, 1_500L), "Chanson " + id + " l'été " + i));
+        return song;
+    }
+
+    private static Path writeCatalog(final Map<Long, List<TimeCodedLine>> songs) throws IOException {
+        final Path file = Files.createTempFile("catalog", ".miq");
+        CatalogFile.write(songs, file);
+        return file;
+    }
+
+    @Test
+    void testDirectoryAndLoad() throws IOException {
+        final Map<Long, List<TimeCodedLine>> songs = new LinkedHashMap<>();
+        songs.put(42L, song(42L, 3));
+        songs.put(7L, song(7L, 0));
+        songs.put(1_000L, song(1_000L, 50));
+        final Path file = writeCatalog(songs);
+        try (final LazyCatalog catalog = LazyCatalog.open(file, Runnable::run)) {
+            final List<SongEntry> directory = List.copyOf(catalog.directory());
+            assertEquals(3, directory.size());
+            assertEquals(42L, directory.get(0).id());
+            assertEquals(3, directory.get(0).lineCount());
+            assertEquals(5_500L, directory.get(0).duration());
+            assertEquals(0, catalog.entry(7L).lineCount());
+            assertNull(catalog.entry(8L));
+            for (final Map.Entry<Long, List<TimeCodedLine>> song : songs.entrySet()) {
+                final List<TimeCodedLine> loaded = catalog.load(song.getKey());
+                assertEquals(song.getValue().size(), loaded.size());
+                for (int i = 0; i < loaded.size(); i++) {
+                    assertEquals(song.getValue().get(i).range(), loaded.get(i).range());
+                    assertEquals(song.getValue().get(i).line().toString(), loaded.get(i).line().toString());
+                }
+            }
+            assertThrows(IllegalArgumentException.class, () -> catalog.load(8L));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void testSongIsLoadedOnceInBackground() throws IOException {
+        final Path file = writeCatalog(Map.of(1L, song(1L, 4)));
+        final List<Runnable> pending = new ArrayList<>();
+        try (final LazyCatalog catalog = LazyCatalog.open(file, pending::add)) {
+            final CompletableFuture<List<TimeCodedLine>> a = catalog.song(1L);
+            assertSame(a, catalog.song(1L));
+            assertFalse(catalog.isLoaded(1L));
+            assertEquals(1, pending.size());
+            pending.getFirst().run();
+            assertTrue(catalog.isLoaded(1L));
+            assertEquals(4, a.join().size());
+
+            final CompletableFuture<List<TimeCodedLine>> missing = catalog.song(2L);
+            pending.get(1).run();
+            assertTrue(missing.isCompletedExceptionally());
+            assertNotSame(missing, catalog.song(2L));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void testRejectedLoadIsNotKept() throws IOException {
+        final Path file = writeCatalog(Map.of(1L, song(1L, 4)));
+        final boolean[] reject = {true};
+        try (final LazyCatalog catalog = LazyCatalog.open(file, task -> {
+            if (reject[0]) throw new RejectedExecutionException("saturated");
+            task.run();
+        })) {
+            final CompletableFuture<List<TimeCodedLine>> rejected = catalog.song(1L);
+            assertTrue(rejected.isCompletedExceptionally());
+            assertFalse(catalog.isLoaded(1L));
+            reject[0] = false;
+            final CompletableFuture<List<TimeCodedLine>> retried = catalog.song(1L);
+            assertNotSame(rejected, retried);
+            assertEquals(4, retried.join().size());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void testNotACatalog() throws IOException {
+        final Path file = Files.createTempFile("catalog", ".miq");
+        try {
+            Files.write(file, new byte[64]);
+            assertThrows(IllegalArgumentException.class, () -> LazyCatalog.open(file, Runnable::run));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
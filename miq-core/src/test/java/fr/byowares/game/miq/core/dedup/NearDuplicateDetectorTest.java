@@ -0,0 +1,101 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.dedup;
+
+import fr.byowares.game.miq.core.Range;
+import fr.byowares.game.miq.core.TimeCodedLine;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NearDuplicateDetectorTest {
+
+    private static List<TimeCodedLine> song(final String... lines) {
+        final List<TimeCodedLine> song = new ArrayList<>();
+        for (int i = 0; i < lines.length; i++)
+            song.add(new TimeCodedLine(Range.fromRelativeTimes(i * 1_000L, 1_000L), lines[i]));
+        return song;
+    }
+
+    @Test
+    void testSimilarity() {
+        final MinHasher hasher = new MinHasher(128, 42L);
+        final long[] a = hasher.signature("Sous le ciel de Paris s'envole une chanson");
+        assertEquals(1d, MinHasher.similarity(a, hasher.signature("SOUS le ciel de Paris, s’envole une chanson!")));
+        assertTrue(MinHasher.similarity(a, hasher.signature("Sous le ciel de Paris s'envole la chanson")) > 0.6d);
+        assertTrue(MinHasher.similarity(a, hasher.signature("Never gonna give you up")) < 0.1d);
+        assertThrows(IllegalArgumentException.class, () -> MinHasher.similarity(a, new long[1]));
+        assertThrows(IllegalArgumentException.class, () -> new MinHasher(0, 1L));
+    }
+
+    @Test
+    void testClusterLines() {
+        final NearDuplicateDetector detector = new NearDuplicateDetector(16, 4, 0.7d, 7L);
+        final DuplicateClusters clusters = detector.clusterLines(List.of(
+                "I will always love you",
+                "Never gonna give you up",
+                "I will always love you!",
+                "Never gonna let you down",
+                "i will always love you oh",
+                "Never gonna give you up"));
+        assertEquals(6, clusters.size());
+        assertEquals(0, clusters.representative(2));
+        assertEquals(0, clusters.representative(4));
+        assertEquals(1, clusters.representative(5));
+        assertEquals(3, clusters.representative(3));
+        assertEquals(3, clusters.distinctCount());
+        final List<int[]> groups = clusters.clusters();
+        assertEquals(2, groups.size());
+        assertArrayEquals(new int[]{0, 2, 4}, groups.get(0));
+        assertArrayEquals(new int[]{1, 5}, groups.get(1));
+    }
+
+    @Test
+    void testTextsWithoutShingles() {
+        final MinHasher hasher = new MinHasher(16, 42L);
+        assertEquals(0d, MinHasher.similarity(hasher.signature("!!!"), hasher.signature("?...")));
+        final NearDuplicateDetector detector = new NearDuplicateDetector(4, 4, 0.7d, 7L);
+        final DuplicateClusters clusters = detector.clusterLines(List.of("!!!", "?...", "", "Oh!", "Oh !"));
+        assertEquals(0, clusters.representative(0));
+        assertEquals(1, clusters.representative(1));
+        assertEquals(2, clusters.representative(2));
+        assertEquals(3, clusters.representative(4));
+        assertEquals(4, clusters.distinctCount());
+    }
+
+    @Test
+    void testClusterSongs() {
+        final NearDuplicateDetector detector = new NearDuplicateDetector(20, 5, 0.6d, 7L);
+        final DuplicateClusters clusters = detector.clusterSongs(List.of(
+                song("Sous le ciel de Paris", "S'envole une chanson", "Elle est née d'aujourd'hui"),
+                song("Is this the real life", "Is this just fantasy", "Caught in a landslide"),
+                song("Sous le ciel de Paris", "S'envole une chanson", "Hum hum", "Elle est née d'aujourd'hui")));
+        assertEquals(0, clusters.representative(2));
+        assertEquals(1, clusters.representative(1));
+        assertEquals(2, clusters.distinctCount());
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new NearDuplicateDetector(0, 4, 0.5d, 1L));
+        assertThrows(IllegalArgumentException.class, () -> new NearDuplicateDetector(4, 0, 0.5d, 1L));
+        assertThrows(IllegalArgumentException.class, () -> new NearDuplicateDetector(4, 4, 1.5d, 1L));
+        assertThrows(IllegalArgumentException.class, () -> new NearDuplicateDetector(4, 4, Double.NaN, 1L));
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.hint;
+
+import fr.byowares.game.miq.core.Range;
+import fr.byowares.game.miq.core.TimeCodedLine;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HintMasksTest {
+
+    @Test
+    void testRevealOneLetterPerStep() {
+        final String line = "Déjà vu, j'ai déjà vu";
+        final HintMasks masks = HintMasks.of(line, 50L);
+        final HintBuffer buffer = new HintBuffer(4);
+        assertEquals(15, masks.steps());
+        assertEquals("____ __, _'__ ____ __", buffer.render(masks, 0).toString());
+        String previous = buffer.toString();
+        for (int step = 1; step <= masks.steps(); step++) {
+            final String current = buffer.render(masks, step).toString();
+            int changed = 0;
+            for (int i = 0; i < line.length(); i++) {
+                if (current.charAt(i) == previous.charAt(i)) continue;
+                changed++;
+                assertEquals(HintMasks.HIDDEN, previous.charAt(i));
+                assertEquals(line.charAt(i), current.charAt(i));
+                assertTrue(masks.isShown(step, i));
+                assertFalse(masks.isShown(step - 1, i));
+            }
+            assertEquals(1, changed, "step " + step);
+            previous = current;
+        }
+        assertEquals(line, previous);
+        assertEquals(line, buffer.render(masks, 1_000).toString());
+        assertThrows(IllegalArgumentException.class, () -> masks.render(-1, new char[line.length()]));
+    }
+
+    @Test
+    void testReproducible() {
+        final String line = "a".repeat(70) + " " + "b".repeat(70);
+        final HintBuffer first = new HintBuffer(0);
+        final HintBuffer second = new HintBuffer(0);
+        final Set<String> orders = new HashSet<>();
+        for (final long seed : new long[]{1L, 2L, 3L}) {
+            final HintMasks a = HintMasks.of(line, seed);
+            final HintMasks b = HintMasks.of(line, seed);
+            final StringBuilder order = new StringBuilder();
+            for (int step = 0; step <= a.steps(); step++) {
+                assertEquals(first.render(a, step).toString(), second.render(b, step).toString());
+                order.append(first.length() == line.length() ? first.toString().indexOf('_') : -1).append(',');
+            }
+            orders.add(order.toString());
+        }
+        assertEquals(3, orders.size());
+    }
+
+    @Test
+    void testTimeline() {
+        final List<TimeCodedLine> timeline = List.of(new TimeCodedLine(Range.fromRelativeTimes(0L, 1L), "abc"),
+                                                     new TimeCodedLine(Range.fromRelativeTimes(1L, 1L), "..."));
+        final HintMasks[] masks = HintMasks.of(timeline, 7L);
+        assertEquals(3, masks[0].steps());
+        assertEquals(0, masks[1].steps());
+        final HintBuffer buffer = new HintBuffer(0);
+        assertEquals("...", buffer.render(masks[1], 0).toString());
+        assertEquals(3, buffer.length());
+        assertEquals('.', buffer.charAt(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> buffer.charAt(3));
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.ingest;
+
+import fr.byowares.game.miq.core.Range;
+import fr.byowares.game.miq.core.TimeCodedLine;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngestionPipelineTest {
+
+    /** Parses "id:line|line|..." with one second per line */
+    private static SongLines parse(final String source) {
+        final int colon = source.indexOf(':');
+        final long id = Long.parseLong(source.substring(0, colon));
+        final List<TimeCodedLine> lines = new ArrayList<>();
+        for (final String text : source.substring(colon + 1).split("\\|")) {
+            lines.add(new TimeCodedLine(Range.fromRelativeTimes(lines.size() * 1_000L, 1_000L), text));
+        }
+        return new SongLines(id, lines);
+    }
+
+    @Test
+    void testAllStagesRun() throws InterruptedException {
+        final Map<Long, List<TimeCodedLine>> persisted = new ConcurrentHashMap<>();
+        final Queue<String> errors = new ConcurrentLinkedQueue<>();
+        final AtomicInteger maxBatch = new AtomicInteger();
+        final List<IngestionPipeline.Stage> stages = List.of(
+                new IngestionPipeline.Stage(new StageOptions("validate", 2, 4, 8), batch -> {
+                    maxBatch.accumulateAndGet(batch.size(), Math::max);
+                    if (batch.stream().anyMatch(s -> s.songId() == 13L)) throw new IllegalStateException("13");
+                    return batch.stream().filter(s -> s.songId() % 2 == 0).toList();
+                }),
+                new IngestionPipeline.Stage(new StageOptions("normalize", 3, 1, 2), batch -> batch.stream().map(
+                        s -> new SongLines(s.songId(), s.lines().stream().map(
+                                l -> new TimeCodedLine(l.range(), l.line().toString().toUpperCase())).toList())).toList()),
+                new IngestionPipeline.Stage(new StageOptions("persist", 1, 16, 4), batch -> {
+                    for (final SongLines s : batch) assertNull(persisted.put(s.songId(), s.lines()));
+                    return List.of();
+                }));
+        final IngestionPipeline<String> pipeline = new IngestionPipeline<>(
+                new StageOptions("parse", 2, 8, 16), IngestionPipelineTest::parse, stages, Thread.ofPlatform().factory(),
+                (stage, e) -> errors.add(stage + ": " + e.getMessage()));
+        for (int id = 0; id < 200; id++) pipeline.submit(id + ":a|b|c" + id);
+        pipeline.submit("not a song");
+        pipeline.finish();
+        assertThrows(IllegalStateException.class, () -> pipeline.submit("0:a"));
+        assertTrue(maxBatch.get() <= 4, "" + maxBatch.get());
+        assertTrue(errors.stream().anyMatch(e -> e.startsWith("parse: ")));
+        assertTrue(errors.contains("validate: 13"));
+        // Songs of the failed validation batch are dropped, the others went through every stage
+        assertTrue(persisted.size() > 90 && persisted.size() <= 100, "" + persisted.size());
+        persisted.forEach((id, lines) -> {
+            assertEquals(0L, id % 2);
+            assertEquals(List.of("A", "B", "C" + id), lines.stream().map(l -> l.line().toString()).toList());
+        });
+        assertEquals(2, errors.size());
+    }
+
+    @Test
+    void testBackpressure() throws InterruptedException {
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger submitted = new AtomicInteger();
+        final AtomicInteger persisted = new AtomicInteger();
+        final List<IngestionPipeline.Stage> stages = List.of(
+                new IngestionPipeline.Stage(new StageOptions("persist", 1, 1, 2), batch -> {
+                    release.await();
+                    persisted.addAndGet(batch.size());
+                    return List.of();
+                }));
+        final IngestionPipeline<String> pipeline = new IngestionPipeline<>(
+                new StageOptions("parse", 1, 1, 2), IngestionPipelineTest::parse, stages, Thread.ofPlatform().factory(),
+                (stage, e) -> fail(stage + ": " + e));
+        final Thread producer = Thread.ofPlatform().start(() -> {
+            try {
+                for (int id = 0; id < 1_000; id++) {
+                    pipeline.submit(id + ":x");
+                    submitted.incrementAndGet();
+                }
+            } catch (final InterruptedException e) {
+                throw new AssertionError(e);
+            }
+        });
+        while (producer.getState() != Thread.State.WAITING) Thread.onSpinWait();
+        // 1 song blocked in persist, 2 queued for it, 1 held by the parser, 2 queued for it
+        assertTrue(submitted.get() <= 6, "" + submitted.get());
+        release.countDown();
+        producer.join();
+        pipeline.finish();
+        assertEquals(1_000, persisted.get());
+    }
+
+    @Test
+    void testDeadStageFailsFast() throws InterruptedException {
+        final Queue<String> threads = new ConcurrentLinkedQueue<>();
+        final List<IngestionPipeline.Stage> stages = List.of(
+                new IngestionPipeline.Stage(new StageOptions("index", 1, 1, 1), batch -> {
+                    threads.add(Thread.currentThread().getName());
+                    return batch;
+                }),
+                new IngestionPipeline.Stage(new StageOptions("persist", 2, 1, 1), batch -> {
+                    throw new OutOfMemoryError("disk");
+                }));
+        final IngestionPipeline<String> pipeline = new IngestionPipeline<>(
+                new StageOptions("parse", 1, 1, 1), IngestionPipelineTest::parse, stages, Thread.ofPlatform().factory(),
+                (stage, e) -> fail(stage + ": " + e));
+        // Without failing fast, the producer would block forever once the small queues are full
+        final IllegalStateException submitFailure = assertThrows(IllegalStateException.class, () -> {
+            for (int id = 0; id < 1_000; id++) pipeline.submit(id + ":x");
+        });
+        assertEquals("Stage persist failed", submitFailure.getMessage());
+        final IllegalStateException finishFailure = assertThrows(IllegalStateException.class, pipeline::finish);
+        assertInstanceOf(OutOfMemoryError.class, finishFailure.getCause());
+        assertEquals("ingest-index-0", threads.peek());
+    }
+
+    @Test
+    void testThrowingHandlerFailsFast() throws InterruptedException {
+        final List<IngestionPipeline.Stage> stages = List.of(
+                new IngestionPipeline.Stage(new StageOptions("validate", 1, 1, 1), batch -> {
+                    throw new IllegalArgumentException("invalid");
+                }));
+        final IngestionPipeline<String> pipeline = new IngestionPipeline<>(
+                new StageOptions("parse", 1, 1, 1), IngestionPipelineTest::parse, stages, Thread.ofPlatform().factory(),
+                (stage, e) -> {
+                    throw new IllegalStateException("handler");
+                });
+        assertThrows(IllegalStateException.class, () -> {
+            for (int id = 0; id < 1_000; id++) pipeline.submit(id + ":x");
+        });
+        final IllegalStateException failure = assertThrows(IllegalStateException.class, pipeline::finish);
+        assertEquals("handler", failure.getCause().getMessage());
+    }
+
+    @Test
+    void testInterruptionFailsFast() throws InterruptedException {
+        final List<IngestionPipeline.Stage> stages = List.of(
+                new IngestionPipeline.Stage(new StageOptions("persist", 1, 1, 1), batch -> {
+                    throw new InterruptedException("persist");
+                }));
+        final IngestionPipeline<String> interruptedStage = new IngestionPipeline<>(
+                new StageOptions("parse", 1, 1, 1), IngestionPipelineTest::parse, stages, Thread.ofPlatform().factory(),
+                (stage, e) -> fail(stage + ": " + e));
+        // An interrupted worker must not leave the previous stages blocked on its queue
+        assertThrows(IllegalStateException.class, () -> {
+            for (int id = 0; id < 1_000; id++) interruptedStage.submit(id + ":x");
+        });
+        final IllegalStateException stageFailure = assertThrows(IllegalStateException.class, interruptedStage::finish);
+        assertEquals("persist", stageFailure.getCause().getMessage());
+
+        // Nor is an interrupted parser reported as a dropped song
+        final IngestionPipeline<String> interruptedParser = new IngestionPipeline<>(
+                new StageOptions("parse", 1, 1, 1), source -> {
+                    throw new InterruptedException("parse");
+                }, List.of(), Thread.ofPlatform().factory(), (stage, e) -> fail(stage + ": " + e));
+        assertThrows(IllegalStateException.class, () -> {
+            for (int id = 0; id < 1_000; id++) interruptedParser.submit(id + ":x");
+        });
+        final IllegalStateException parserFailure = assertThrows(IllegalStateException.class, interruptedParser::finish);
+        assertInstanceOf(InterruptedException.class, parserFailure.getCause());
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.schedule;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoundSchedulerTest {
+
+    @Test
+    void testSmallRoomIsNotStarved() throws InterruptedException {
+        final ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            final RoundScheduler scheduler = new RoundScheduler(pool, 8, 4, (room, e) -> fail(e.getMessage()));
+            final List<Long> order = Collections.synchronizedList(new ArrayList<>());
+            final CountDownLatch submitted = new CountDownLatch(1);
+            final CountDownLatch done = new CountDownLatch(1_010);
+            final List<Runnable> huge = new ArrayList<>();
+            huge.add(() -> {
+                try {
+                    submitted.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                order.add(1L);
+                done.countDown();
+            });
+            for (int i = 0; i < 999; i++) huge.add(() -> {
+                order.add(1L);
+                done.countDown();
+            });
+            scheduler.submitAll(1L, huge);
+            for (int i = 0; i < 10; i++) scheduler.submit(2L, () -> {
+                order.add(2L);
+                done.countDown();
+            });
+            assertEquals(10, scheduler.pending(2L));
+            submitted.countDown();
+            assertTrue(done.await(10L, TimeUnit.SECONDS));
+            // Room 2 gets 8 tasks after the first turn of room 1, then the 2 others after its second turn
+            assertEquals(8, order.indexOf(2L));
+            assertEquals(25, order.lastIndexOf(2L));
+            assertEquals(0, scheduler.pending(1L));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testParallelDrainAndErrors() throws InterruptedException {
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final AtomicInteger errors = new AtomicInteger();
+            final RoundScheduler scheduler = new RoundScheduler(pool, 16, 8, (room, e) -> errors.incrementAndGet());
+            final CountDownLatch done = new CountDownLatch(5_000);
+            for (long room = 0L; room < 50L; room++) {
+                final List<Runnable> tasks = new ArrayList<>();
+                for (int i = 0; i < 100; i++) tasks.add(() -> {
+                    done.countDown();
+                    if (done.getCount() % 1_000 == 0) throw new IllegalStateException("boom");
+                });
+                scheduler.submitAll(room, tasks);
+            }
+            assertTrue(done.await(10L, TimeUnit.SECONDS));
+            assertTrue(pool.awaitQuiescence(10L, TimeUnit.SECONDS));
+            assertTrue(errors.get() >= 1);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testThrowingHandlerKeepsDraining() throws InterruptedException {
+        final ForkJoinPool pool = new ForkJoinPool(1, ForkJoinPool.defaultForkJoinWorkerThreadFactory, (t, e) -> {},
+                                                   false);
+        try {
+            final RoundScheduler scheduler = new RoundScheduler(pool, 8, 4, (room, e) -> {
+                throw new IllegalStateException("handler");
+            });
+            // More failing rounds than the pool has workers: a leaked drainer slot would stop the scheduling
+            for (int round = 0; round < 5; round++) {
+                final CountDownLatch done = new CountDownLatch(3);
+                scheduler.submitAll(1L, List.of(() -> {
+                    done.countDown();
+                    throw new IllegalArgumentException("task");
+                }, done::countDown, done::countDown));
+                assertTrue(done.await(10L, TimeUnit.SECONDS), "round " + round);
+                assertTrue(pool.awaitQuiescence(10L, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testRejectedDrainerKeepsTasks() {
+        final ForkJoinPool pool = new ForkJoinPool(1);
+        pool.shutdown();
+        final RoundScheduler scheduler = new RoundScheduler(pool, 8, 4, (room, e) -> {});
+        assertThrows(RejectedExecutionException.class, () -> scheduler.submit(1L, () -> {}));
+        assertThrows(RejectedExecutionException.class, () -> scheduler.submitAll(1L, List.of(() -> {}, () -> {})));
+        assertEquals(3, scheduler.pending(1L));
+    }
+
+    @Test
+    void testInvalidArguments() {
+        final ForkJoinPool pool = ForkJoinPool.commonPool();
+        assertThrows(IllegalArgumentException.class, () -> new RoundScheduler(pool, 0, 1, (r, e) -> {}));
+        assertThrows(IllegalArgumentException.class, () -> new RoundScheduler(pool, 1, 0, (r, e) -> {}));
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.schedule;
+
+import fr.byowares.game.miq.core.Range;
+import fr.byowares.game.miq.core.TimeCodedLine;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimelinePublisherTest {
+
+    private static final List<TimeCodedLine> TIMELINE = List.of(
+            new TimeCodedLine(Range.fromRelativeTimes(0L, 10L), "zero"),
+            new TimeCodedLine(Range.fromRelativeTimes(10L, 10L), "one"),
+            new TimeCodedLine(Range.fromRelativeTimes(15L, 20L), "two"),
+            new TimeCodedLine(Range.fromRelativeTimes(40L, 10L), "three"),
+            new TimeCodedLine(Range.fromRelativeTimes(60L, 10L), "four"));
+
+    private static String describe(final List<TimelineEvent> batch) {
+        final StringBuilder sb = new StringBuilder();
+        for (final TimelineEvent event : batch) {
+            if (!sb.isEmpty()) sb.append(' ');
+            sb.append(event.kind() == TimelineEvent.Kind.ENTER ? '+' : '-').append(event.index());
+        }
+        return sb.toString();
+    }
+
+    @Test
+    void testEventsInTimeOrder() {
+        final Recorder recorder = new Recorder();
+        try (final TimelinePublisher publisher = new TimelinePublisher(TIMELINE, -1L, Runnable::run, 16, 16)) {
+            publisher.subscribe(recorder);
+            recorder.subscription.request(Long.MAX_VALUE);
+            publisher.advanceTo(12L);
+            publisher.advanceTo(55L);
+            assertThrows(IllegalArgumentException.class, () -> publisher.advanceTo(50L));
+        }
+        assertEquals(List.of("+0 -0 +1", "+2 -1 -2 +3 -3"), recorder.batches);
+        assertTrue(recorder.completed);
+    }
+
+    @Test
+    void testBackpressureAndBatching() {
+        final Recorder recorder = new Recorder();
+        final TimelinePublisher publisher = new TimelinePublisher(TIMELINE, -1L, Runnable::run, 16, 3);
+        publisher.subscribe(recorder);
+        publisher.advanceTo(100L);
+        assertEquals(List.of(), recorder.batches);
+        recorder.subscription.request(1L);
+        assertEquals(List.of("+0 -0 +1"), recorder.batches);
+        recorder.subscription.request(5L);
+        assertEquals(List.of("+0 -0 +1", "+2 -1 -2", "+3 -3 +4", "-4"), recorder.batches);
+        publisher.close();
+        assertTrue(recorder.completed);
+    }
+
+    @Test
+    void testSlowSubscriberCoalesces() {
+        final Recorder recorder = new Recorder();
+        final TimelinePublisher publisher = new TimelinePublisher(TIMELINE, 5L, Runnable::run, 4, 16);
+        publisher.subscribe(recorder);
+        recorder.subscription.request(1L);
+        assertEquals(List.of("+0"), recorder.batches);
+        publisher.advanceTo(65L);
+        recorder.subscription.request(1L);
+        assertEquals(List.of("+0", "-0 +4"), recorder.batches);
+    }
+
+    @Test
+    void testSeek() {
+        final Recorder recorder = new Recorder();
+        final TimelinePublisher publisher = new TimelinePublisher(TIMELINE, 12L, Runnable::run, 16, 16);
+        publisher.subscribe(recorder);
+        recorder.subscription.request(Long.MAX_VALUE);
+        publisher.seek(17L);
+        publisher.seek(45L);
+        publisher.seek(0L);
+        assertEquals(0L, publisher.time());
+        assertEquals(List.of("+1", "+2", "-1 -2 +3", "-3 +0"), recorder.batches);
+        recorder.subscription.cancel();
+        publisher.advanceTo(100L);
+        assertEquals(4, recorder.batches.size());
+        assertFalse(recorder.completed);
+    }
+
+    @Test
+    void testNoSignalBeforeOnSubscribeReturns() throws InterruptedException {
+        final TimelinePublisher publisher = new TimelinePublisher(TIMELINE, 5L, Runnable::run, 16, 16);
+        final List<String> signals = new ArrayList<>();
+        final boolean[] subscribed = {false};
+        publisher.subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(final Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+                // Emissions and completion from another thread while the subscriber is not ready yet
+                final Thread other = Thread.ofPlatform().start(() -> {
+                    publisher.advanceTo(12L);
+                    publisher.close();
+                });
+                try {
+                    other.join();
+                } catch (final InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+                synchronized (signals) {
+                    signals.add("subscribed");
+                }
+                subscribed[0] = true;
+            }
+
+            @Override
+            public void onNext(final List<TimelineEvent> item) {
+                synchronized (signals) {
+                    signals.add(describe(item));
+                }
+            }
+
+            @Override
+            public void onError(final Throwable throwable) {
+                fail(throwable.toString());
+            }
+
+            @Override
+            public void onComplete() {
+                synchronized (signals) {
+                    signals.add("complete");
+                }
+            }
+        });
+        assertTrue(subscribed[0]);
+        assertEquals(List.of("subscribed", "+0", "-0 +1", "complete"), signals);
+    }
+
+    @Test
+    void testInvalidRequest() {
+        final Recorder recorder = new Recorder();
+        final TimelinePublisher publisher = new TimelinePublisher(TIMELINE, 0L, Runnable::run, 16, 16);
+        publisher.subscribe(recorder);
+        recorder.subscription.request(0L);
+        assertInstanceOf(IllegalArgumentException.class, recorder.error);
+        assertThrows(IllegalArgumentException.class, () -> new TimelinePublisher(TIMELINE, 0L, Runnable::run, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new TimelinePublisher(TIMELINE, 0L, Runnable::run, 1, 0));
+    }
+
+    private static final class Recorder
+            implements Flow.Subscriber<List<TimelineEvent>> {
+
+        private final List<String> batches = new ArrayList<>();
+        private Flow.Subscription subscription;
+        private boolean completed;
+        private Throwable error;
+
+        @Override
+        public void onSubscribe(final Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(final List<TimelineEvent> item) {
+            this.batches.add(describe(item));
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            this.error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            this.completed = true;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.schedule;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+    private static final long TICK = 1_000_000L;
+
+    @Test
+    void testFiresAtDeadlineInSchedulingOrder() {
+        final VirtualClock clock = new VirtualClock(123L);
+        final TimingWheel wheel = new TimingWheel(clock, TICK);
+        final List<String> fired = new ArrayList<>();
+        wheel.scheduleAfter(5 * TICK, () -> fired.add("a"));
+        wheel.scheduleAfter(5 * TICK, () -> fired.add("b"));
+        wheel.scheduleAfter(3 * TICK, () -> fired.add("c"));
+
+        clock.advance(2 * TICK);
+        assertEquals(0, wheel.advance());
+        clock.advance(TICK);
+        assertEquals(1, wheel.advance());
+        assertEquals(List.of("c"), fired);
+        clock.advance(2 * TICK - 1L);
+        assertEquals(0, wheel.advance());
+        clock.advance(1L);
+        assertEquals(2, wheel.advance());
+        assertEquals(List.of("c", "a", "b"), fired);
+        assertEquals(0, wheel.pending());
+    }
+
+    @Test
+    void testHugeDelaysNeverFire() {
+        // A negative origin, as System.nanoTime may give, makes the deadlines overflow twice
+        final VirtualClock clock = new VirtualClock(-5L * TICK);
+        final TimingWheel wheel = new TimingWheel(clock, TICK);
+        final List<String> fired = new ArrayList<>();
+        clock.advance(10L * TICK);
+        wheel.scheduleAfter(Long.MAX_VALUE, () -> fired.add("after"));
+        wheel.scheduleAt(Long.MAX_VALUE, () -> fired.add("at"));
+        wheel.scheduleAfter(TICK, () -> fired.add("soon"));
+        clock.advance(TICK);
+        wheel.advance();
+        clock.advance(1L << 40);
+        wheel.advance();
+        assertEquals(List.of("soon"), fired);
+        assertEquals(2, wheel.pending());
+    }
+
+    @Test
+    void testCancel() {
+        final VirtualClock clock = new VirtualClock(0L);
+        final TimingWheel wheel = new TimingWheel(clock, TICK);
+        final List<String> fired = new ArrayList<>();
+        final Timeout a = wheel.scheduleAfter(10 * TICK, () -> fired.add("a"));
+        final Timeout b = wheel.scheduleAfter(10 * TICK, () -> fired.add("b"));
+        wheel.scheduleAfter(10 * TICK, () -> fired.add("c"));
+        assertTrue(b.cancel());
+        assertFalse(b.cancel());
+        assertEquals(2, wheel.pending());
+
+        clock.advance(10 * TICK);
+        wheel.advance();
+        assertEquals(List.of("a", "c"), fired);
+        assertTrue(a.isExpired());
+        assertTrue(b.isCancelled());
+        assertFalse(a.cancel());
+    }
+
+    @Test
+    void testCancelWhileFiring() {
+        final VirtualClock clock = new VirtualClock(0L);
+        final TimingWheel wheel = new TimingWheel(clock, TICK);
+        final List<String> fired = new ArrayList<>();
+        final Timeout[] second = new Timeout[1];
+        wheel.scheduleAfter(TICK, () -> second[0].cancel());
+        second[0] = wheel.scheduleAfter(TICK, () -> fired.add("second"));
+        wheel.scheduleAfter(TICK, () -> wheel.scheduleAfter(0L, () -> fired.add("rescheduled")));
+
+        clock.advance(TICK);
+        assertEquals(2, wheel.advance());
+        assertEquals(List.of(), fired);
+        clock.advance(TICK);
+        assertEquals(1, wheel.advance());
+        assertEquals(List.of("rescheduled"), fired);
+        assertEquals(0, wheel.pending());
+    }
+
+    @Test
+    void testRandomDeadlinesAcrossLevels() {
+        final SplittableRandom random = new SplittableRandom(42L);
+        final VirtualClock clock = new VirtualClock(-7L);
+        final TimingWheel wheel = new TimingWheel(clock, TICK);
+        final int tasks = 10_000;
+        final long[] deadlines = new long[tasks];
+        final long[] firedAt = new long[tasks];
+        for (int i = 0; i < tasks; i++) {
+            final int index = i;
+            deadlines[i] = clock.nanoTime() + random.nextLong(1L, 1L << random.nextInt(1, 40));
+            wheel.scheduleAt(deadlines[i], () -> firedAt[index] = clock.nanoTime());
+        }
+        while (wheel.pending() > 0) {
+            clock.advance(random.nextLong(1L, 1L << random.nextInt(1, 36)));
+            wheel.advance();
+        }
+        for (int i = 0; i < tasks; i++) {
+            assertTrue(firedAt[i] >= deadlines[i], "task " + i + " fired too early");
+        }
+    }
+
+    @Test
+    void testFiringIsNotLate() {
+        final VirtualClock clock = new VirtualClock(0L);
+        final TimingWheel wheel = new TimingWheel(clock, TICK);
+        final long[] firedAt = {-1L};
+        final long deadline = 5_000_000 * TICK + 3L;
+        wheel.scheduleAt(deadline, () -> firedAt[0] = clock.nanoTime());
+        while (firedAt[0] < 0L) {
+            clock.advance(TICK);
+            wheel.advance();
+        }
+        assertTrue(firedAt[0] >= deadline);
+        assertTrue(firedAt[0] <= deadline + TICK);
+    }
+
+    @Test
+    void testLongPausesAreSkipped() {
+        // One tick per nanosecond: stepping tick by tick over these pauses would never end
+        final VirtualClock clock = new VirtualClock(0L);
+        final TimingWheel wheel = new TimingWheel(clock, 1L);
+        final List<String> fired = new ArrayList<>();
+        wheel.scheduleAt(1L << 55, () -> fired.add("far"));
+        wheel.scheduleAt(3L << 50, () -> fired.add("near"));
+        wheel.scheduleAt(1L << 40, () -> fired.add("cancelled")).cancel();
+
+        clock.advance((3L << 50) - 1L);
+        assertEquals(0, wheel.advance());
+        clock.advance(1L);
+        assertEquals(1, wheel.advance());
+        assertEquals(List.of("near"), fired);
+        clock.advance((1L << 55) - (3L << 50) - 1L);
+        assertEquals(0, wheel.advance());
+        clock.advance(1L);
+        assertEquals(1, wheel.advance());
+        assertEquals(List.of("near", "far"), fired);
+        assertEquals(0, wheel.pending());
+    }
+
+    @Test
+    void testFailingTaskDoesNotPreventOthers() {
+        final VirtualClock clock = new VirtualClock(0L);
+        final TimingWheel wheel = new TimingWheel(clock, TICK);
+        final List<String> fired = new ArrayList<>();
+        wheel.scheduleAfter(TICK, () -> {
+            throw new IllegalStateException("boom");
+        });
+        wheel.scheduleAfter(TICK, () -> fired.add("ok"));
+        clock.advance(TICK);
+        final IllegalStateException e = assertThrows(IllegalStateException.class, wheel::advance);
+        assertEquals("boom", e.getMessage());
+        assertEquals(List.of("ok"), fired);
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.suggest;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AutocompleteIndexTest {
+
+    private static final List<Suggestion> TITLES = List.of(
+            new Suggestion("Sous le ciel de Paris", 50L),
+            new Suggestion("Sous le vent", 80L),
+            new Suggestion("Soulman", 10L),
+            new Suggestion("Bohemian Rhapsody", 100L),
+            new Suggestion("La Bohème", 70L),
+            new Suggestion("L'Été indien", 60L),
+            new Suggestion("Sous", 5L));
+
+    @Test
+    void testSuggest() {
+        final AutocompleteIndex index = AutocompleteIndex.build(TITLES, 3);
+        assertEquals(7, index.size());
+        assertEquals(3, index.k());
+        assertEquals(List.of("Sous le vent", "Sous le ciel de Paris", "Soulman"), index.suggest("so"));
+        assertEquals(List.of("Sous le vent", "Sous le ciel de Paris", "Sous"), index.suggest("SOUS"));
+        assertEquals(List.of("Sous le ciel de Paris"), index.suggest("sous le c"));
+        assertEquals(List.of("L'Été indien"), index.suggest("lete"));
+        assertEquals(List.of("Bohemian Rhapsody", "Sous le vent", "La Bohème"), index.suggest(""));
+        assertEquals(List.of(), index.suggest("sousx"));
+        assertEquals(List.of(), index.suggest("z"));
+    }
+
+    @Test
+    void testSuggestIds() {
+        final AutocompleteIndex index = AutocompleteIndex.build(TITLES, 3);
+        final int[] ids = new int[2];
+        assertEquals(2, index.suggest("l", new StringBuilder(), ids));
+        assertEquals("La Bohème", index.text(ids[0]));
+        assertEquals(70L, index.weight(ids[0]));
+        assertEquals("L'Été indien", index.text(ids[1]));
+    }
+
+    @Test
+    void testRoundTrip() throws IOException {
+        final AutocompleteIndex index = AutocompleteIndex.build(TITLES, 2);
+        final Path file = Files.createTempFile("autocomplete", ".idx");
+        try {
+            try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                index.writeTo(channel);
+            }
+            final AutocompleteIndex mapped = AutocompleteIndex.map(file);
+            assertEquals(List.of("Sous le vent", "Sous le ciel de Paris"), mapped.suggest("sou"));
+            assertEquals(2, mapped.k());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void testInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> AutocompleteIndex.build(TITLES, 0));
+        assertThrows(IllegalArgumentException.class, () -> AutocompleteIndex.of(ByteBuffer.allocate(64)));
+        assertThrows(IllegalArgumentException.class, () -> new Suggestion("x", -1L));
+        assertThrows(NullPointerException.class, () -> new Suggestion(null, 1L));
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.text;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LyricNormalizerTest {
+
+    private static String unicode(final String text) {
+        final StringBuilder sb = new StringBuilder();
+        LyricNormalizer.normalizeUnicode(text, sb);
+        return sb.toString();
+    }
+
+    @Test
+    void testAscii() {
+        assertEquals("dont stop me now", LyricNormalizer.normalize("  Don't STOP me -- now!! "));
+        assertEquals("", LyricNormalizer.normalize(" ?! "));
+        final String normalized = "already normalized 42";
+        assertSame(normalized, LyricNormalizer.normalize(normalized));
+    }
+
+    @Test
+    void testLatin1() {
+        assertEquals("lete deja", LyricNormalizer.normalize("L'Été,  déjà!"));
+        assertEquals("strasse aeon", LyricNormalizer.normalize("Straße Æon"));
+        assertEquals("1 4 de 2", LyricNormalizer.normalize("¼ de ²"));
+    }
+
+    @Test
+    void testUnicodeFallback() {
+        assertEquals("coeur lete", LyricNormalizer.normalize("Cœur — l’été"));
+        assertEquals("cafe", LyricNormalizer.normalize("café"));
+        assertEquals("full width", LyricNormalizer.normalize("ＦＵＬＬ　width"));
+        assertEquals("привет мир", LyricNormalizer.normalize("Привет, мир!"));
+    }
+
+    @Test
+    void testPathsAgreeOnLatin1() {
+        for (char c = 0; c < 0x180; c++) {
+            final String s = "a" + c + "b " + c;
+            assertEquals(unicode(s), LyricNormalizer.normalize(s), "char " + (int) c);
+        }
+    }
+
+    @Test
+    void testEqualsNormalizedReusesBuffer() {
+        final StringBuilder scratch = new StringBuilder(64);
+        final LyricText line = new LyricText("Je t'aime, moi non plus");
+        assertTrue(LyricNormalizer.equalsNormalized(line.normalized(), "je taime moi non plus", scratch));
+        assertTrue(LyricNormalizer.equalsNormalized(line.normalized(), "JE T’AIME... MOI NON PLUS", scratch));
+        assertFalse(LyricNormalizer.equalsNormalized(line.normalized(), "je t'aime moi non", scratch));
+    }
+
+    @Test
+    void testLyricTextCachesNormalizedForm() {
+        final LyricText text = new LyricText("Hello, World");
+        assertSame(text.normalized(), text.normalized());
+        assertSame(text.normalized(), LyricNormalizer.normalized(text));
+        assertEquals("Hello, World", text.toString());
+        assertEquals(new LyricText("Hello, World"), text);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.text;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PhoneticIndexTest {
+
+    private static List<String> keys(
+            final PhoneticEncoder encoder,
+            final String word
+    ) {
+        final List<String> keys = new ArrayList<>();
+        encoder.encode(word, k -> keys.add(PhoneticEncoder.unpack(k)));
+        return keys;
+    }
+
+    @Test
+    void testPacking() {
+        final long packed = PhoneticEncoder.pack(DoubleMetaphone.TAG, "SM0");
+        assertEquals("SM0", PhoneticEncoder.unpack(packed));
+        assertNotEquals(packed, PhoneticEncoder.pack(FrenchPhonetic.TAG, "SM0"));
+        assertNotEquals(PhoneticEncoder.pack(1, "AB"), PhoneticEncoder.pack(1, "ABA"));
+    }
+
+    @Test
+    void testDoubleMetaphone() {
+        assertEquals(List.of("SM0", "XMT"), keys(PhoneticEncoder.DOUBLE_METAPHONE, "smith"));
+        assertEquals(List.of("XMT", "SMT"), keys(PhoneticEncoder.DOUBLE_METAPHONE, "schmidt"));
+        assertEquals(List.of("NT"), keys(PhoneticEncoder.DOUBLE_METAPHONE, "knight"));
+        assertEquals(List.of("FLP"), keys(PhoneticEncoder.DOUBLE_METAPHONE, "philip"));
+        assertEquals(keys(PhoneticEncoder.DOUBLE_METAPHONE, "night"), keys(PhoneticEncoder.DOUBLE_METAPHONE, "nite"));
+        assertEquals(List.of(), keys(PhoneticEncoder.DOUBLE_METAPHONE, ""));
+    }
+
+    @Test
+    void testFrench() {
+        assertEquals(keys(PhoneticEncoder.FRENCH, "photo"), keys(PhoneticEncoder.FRENCH, "foto"));
+        assertEquals(keys(PhoneticEncoder.FRENCH, "chanson"), keys(PhoneticEncoder.FRENCH, "shanson"));
+        assertEquals(keys(PhoneticEncoder.FRENCH, "pain"), keys(PhoneticEncoder.FRENCH, "pin"));
+        assertEquals(keys(PhoneticEncoder.FRENCH, "gateau"), keys(PhoneticEncoder.FRENCH, "gato"));
+        assertEquals(keys(PhoneticEncoder.FRENCH, "aimer"), keys(PhoneticEncoder.FRENCH, "aimez"));
+        assertEquals(List.of("x2t2", "x2t"), keys(PhoneticEncoder.FRENCH, "chantent"));
+        assertNotEquals(keys(PhoneticEncoder.FRENCH, "amour"), keys(PhoneticEncoder.FRENCH, "toujours"));
+    }
+
+    @Test
+    void testMatchingWords() {
+        final PhoneticIndex index = PhoneticIndex.of(new LyricText("Tonight I'm gonna have myself a real good time"),
+                                                     PhoneticEncoder.DOUBLE_METAPHONE);
+        assertEquals(9, index.words());
+        final StringBuilder scratch = new StringBuilder();
+        assertEquals(3, index.matchingWords("tonite gona hav", scratch));
+        assertEquals(0, index.matchingWords("xylophone", scratch));
+    }
+
+    @Test
+    void testFrenchLine() {
+        final PhoneticIndex index = PhoneticIndex.of("Les feuilles mortes se ramassent à la pelle",
+                                                     PhoneticEncoder.FRENCH, PhoneticEncoder.DOUBLE_METAPHONE);
+        final StringBuilder scratch = new StringBuilder();
+        assertEquals(3, index.matchingWords("feuiles mortent ramasse", scratch));
+        assertTrue(index.size() > index.words());
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.text;
+
+import fr.byowares.game.miq.core.Range;
+import fr.byowares.game.miq.core.TimeCodedLine;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrigramPrefilterTest {
+
+    @Test
+    void testBloomFilterHasNoFalseNegative() {
+        final BloomFilter filter = BloomFilter.withCapacity(10_000, 12);
+        for (long i = 0L; i < 10_000L; i++) filter.add(BloomFilter.mix(i));
+        for (long i = 0L; i < 10_000L; i++) assertTrue(filter.mightContain(BloomFilter.mix(i)));
+    }
+
+    @Test
+    void testBloomFilterFalsePositiveRate() {
+        final BloomFilter filter = BloomFilter.withCapacity(10_000, 12);
+        for (long i = 0L; i < 10_000L; i++) filter.add(BloomFilter.mix(i));
+        int falsePositives = 0;
+        for (long i = 10_000L; i < 110_000L; i++) if (filter.mightContain(BloomFilter.mix(i))) falsePositives++;
+        final double observed = falsePositives / 100_000d;
+        assertTrue(observed < 0.03d, "observed " + observed);
+        assertEquals(observed, filter.estimatedFalsePositiveRate(), 0.01d);
+    }
+
+    @Test
+    void testPrefilter() {
+        final TrigramPrefilter prefilter = TrigramPrefilter.of(new LyricText("I will always love you"));
+        final StringBuilder scratch = new StringBuilder();
+        assertTrue(prefilter.mayMatch("I will always love you", scratch, 1d));
+        assertTrue(prefilter.mayMatch("i wil allways lov you", scratch, 0.6d));
+        assertFalse(prefilter.mayMatch("never gonna give you up", scratch, 0.6d));
+        assertFalse(prefilter.mayMatch("?!", scratch, 0d));
+        assertTrue(prefilter.mightContainWord("always"));
+        assertTrue(prefilter.estimatedFalsePositiveRate() < 0.05d);
+    }
+
+    @Test
+    void testSongPrefilterAndMetrics() {
+        final List<TimeCodedLine> song = List.of(
+                new TimeCodedLine(Range.fromRelativeTimes(0L, 1_000L), "Sous le ciel de Paris"),
+                new TimeCodedLine(Range.fromRelativeTimes(1_000L, 1_000L), "S'envole une chanson"));
+        final TrigramPrefilter prefilter = TrigramPrefilter.of(song);
+        final PrefilterMetrics metrics = new PrefilterMetrics();
+        final StringBuilder scratch = new StringBuilder();
+        final SplittableRandom random = new SplittableRandom(1L);
+        for (int i = 0; i < 1_000; i++) {
+            final String guess = Long.toString(random.nextLong(), 36);
+            if (prefilter.mayMatch(guess, scratch, 0.5d)) metrics.recordPassed(false);
+            else metrics.recordRejected();
+        }
+        assertTrue(prefilter.mayMatch("senvole une chanson", scratch, 1d));
+        metrics.recordPassed(true);
+        assertEquals(1_001L, metrics.checked());
+        assertTrue(metrics.falsePositiveRate() < 0.01d, "observed " + metrics.falsePositiveRate());
+    }
+}
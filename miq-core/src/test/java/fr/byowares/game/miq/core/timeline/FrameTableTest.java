@@ -0,0 +1,100 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.timeline;
+
+import fr.byowares.game.miq.core.Range;
+import fr.byowares.game.miq.core.TimeCodedLine;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrameTableTest {
+
+    /** Lines whose starts are often close, so that several of them start in the same bucket, or together */
+    private static List<TimeCodedLine> crowdedLines(
+            final SplittableRandom random,
+            final int size
+    ) {
+        final List<TimeCodedLine> lines = new ArrayList<>();
+        long start = random.nextLong(5_000L);
+        for (int i = 0; i < size; i++) {
+            start += random.nextInt(3) == 0 ? random.nextLong(20L) : random.nextLong(1L, 3_000L);
+            lines.add(new TimeCodedLine(Range.fromRelativeTimes(start, random.nextLong(2_500L)), "l" + i));
+        }
+        return lines;
+    }
+
+    @Test
+    void testSameAsTimelineIndex() {
+        final SplittableRandom random = new SplittableRandom(49L);
+        for (final int size : new int[]{0, 1, 2, 30, 400}) {
+            final List<TimeCodedLine> lines = crowdedLines(random, size);
+            final TimelineIndex index = TimelineIndex.of(lines);
+            for (final long bucket : new long[]{1L, 10L, 1_000L}) {
+                final FrameTable table = FrameTable.of(lines, bucket);
+                final long last = size == 0 ? 0L : lines.getLast().range().end();
+                for (int i = 0; i < 2_000; i++) {
+                    final long time = random.nextLong(-100L, last + 100L);
+                    assertEquals(index.floor(time), table.floor(time), size + " lines at " + time);
+                    assertEquals(index.lineAt(time), table.lineAt(time));
+                }
+            }
+        }
+    }
+
+    @Test
+    void testFramesAreSampleAccurate() {
+        // Milliseconds timeline played at 44.1 kHz: frame 44100 is the first one at 1000 ms
+        final List<TimeCodedLine> lines = List.of(new TimeCodedLine(Range.fromAbsoluteTimes(1_000L, 2_000L), "a"),
+                                                  new TimeCodedLine(Range.fromAbsoluteTimes(2_000L, 2_500L), "b"));
+        final FrameTable table = FrameTable.of(lines, 10L, 44_100L, 1_000L);
+        assertEquals(-1, table.lineAtFrame(44_099L));
+        assertEquals(0, table.lineAtFrame(44_100L));
+        assertEquals(0, table.lineAtFrame(88_199L));
+        assertEquals(1, table.lineAtFrame(88_200L));
+        assertEquals(1, table.lineAtFrame(110_249L));
+        assertEquals(-1, table.lineAtFrame(110_250L));
+    }
+
+    @Test
+    void testSizeFollowsDuration() {
+        final List<TimeCodedLine> few = new ArrayList<>();
+        final List<TimeCodedLine> many = new ArrayList<>();
+        for (int i = 0; i <= 100; i++) {
+            final TimeCodedLine line = new TimeCodedLine(Range.fromRelativeTimes(i * 1_800L, 1_000L), "l" + i);
+            many.add(line);
+            if (i % 50 == 0) few.add(line);
+        }
+        assertEquals(18_001, FrameTable.of(few, 10L).bucketCount());
+        assertEquals(18_001, FrameTable.of(many, 10L).bucketCount());
+    }
+
+    @Test
+    void testInvalid() {
+        final List<TimeCodedLine> unsorted = List.of(new TimeCodedLine(Range.fromRelativeTimes(10L, 5L), "a"),
+                                                     new TimeCodedLine(Range.fromRelativeTimes(0L, 5L), "b"));
+        assertThrows(IllegalArgumentException.class, () -> FrameTable.of(unsorted, 10L));
+        assertThrows(IllegalArgumentException.class, () -> FrameTable.of(List.of(), 0L));
+        assertThrows(IllegalArgumentException.class, () -> FrameTable.of(List.of(), 10L, 0L, 1_000L));
+        final List<TimeCodedLine> huge = List.of(new TimeCodedLine(Range.fromAbsoluteTimes(0L, 1L), "a"),
+                                                 new TimeCodedLine(Range.fromAbsoluteTimes(1L << 40, 1L << 40), "b"));
+        assertThrows(IllegalArgumentException.class, () -> FrameTable.of(huge, 1L));
+    }
+}
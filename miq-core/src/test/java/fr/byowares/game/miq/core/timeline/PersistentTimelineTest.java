@@ -0,0 +1,115 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.timeline;
+
+import fr.byowares.game.miq.core.Range;
+import fr.byowares.game.miq.core.TimeCodedLine;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentTimelineTest {
+
+    private static TimeCodedLine line(
+            final long start,
+            final long duration
+    ) {
+        return new TimeCodedLine(Range.fromRelativeTimes(start, duration), "line " + start);
+    }
+
+    @Test
+    void testEmpty() {
+        final PersistentTimeline empty = PersistentTimeline.empty();
+        assertTrue(empty.isEmpty());
+        assertEquals(0, empty.size());
+        assertEquals(List.of(), empty.asList());
+        assertNull(empty.lineAt(0L));
+        assertThrows(IndexOutOfBoundsException.class, () -> empty.get(0));
+        assertSame(empty, PersistentTimeline.of(List.of()));
+        assertSame(empty, empty.with(line(0L, 1L)).without(0));
+    }
+
+    @Test
+    void testRandomEditsMatchSortedList() {
+        final SplittableRandom random = new SplittableRandom(3L);
+        final List<TimeCodedLine> expected = new ArrayList<>();
+        for (int i = 0; i < 500; i++) expected.add(line(random.nextLong(10_000L), 1 + random.nextLong(100L)));
+        PersistentTimeline timeline = PersistentTimeline.of(expected);
+        Collections.sort(expected);
+        assertEquals(expected, timeline.asList());
+        final List<PersistentTimeline> versions = new ArrayList<>();
+        final List<List<TimeCodedLine>> snapshots = new ArrayList<>();
+        for (int step = 0; step < 3_000; step++) {
+            if (expected.isEmpty() || random.nextBoolean()) {
+                final TimeCodedLine added = line(random.nextLong(10_000L), 1 + random.nextLong(100L));
+                timeline = timeline.with(added);
+                int position = expected.size();
+                while (position > 0 && expected.get(position - 1).compareTo(added) > 0) position--;
+                expected.add(position, added);
+            } else {
+                final int index = random.nextInt(expected.size());
+                assertSame(expected.get(index), timeline.get(index));
+                timeline = timeline.without(index);
+                expected.remove(index);
+            }
+            if (step % 500 == 0) {
+                versions.add(timeline);
+                snapshots.add(List.copyOf(expected));
+            }
+        }
+        assertEquals(expected.size(), timeline.size());
+        assertEquals(expected, timeline.asList());
+        for (int i = 0; i < expected.size(); i++) assertSame(expected.get(i), timeline.get(i));
+        for (int v = 0; v < versions.size(); v++) assertEquals(snapshots.get(v), versions.get(v).asList());
+    }
+
+    @Test
+    void testRemoveEverything() {
+        final List<TimeCodedLine> lines = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) lines.add(line(i * 10L, 5L));
+        PersistentTimeline timeline = PersistentTimeline.of(lines);
+        for (int i = 0; i < 1_000; i++) timeline = timeline.without(timeline.size() / 2);
+        assertEquals(1_000, timeline.size());
+        assertEquals(lines.subList(0, 500), timeline.asList().subList(0, 500));
+        assertEquals(lines.subList(1_500, 2_000), timeline.asList().subList(500, 1_000));
+        while (!timeline.isEmpty()) timeline = timeline.without(0);
+        assertSame(PersistentTimeline.empty(), timeline);
+    }
+
+    @Test
+    void testLineAtAndWithRange() {
+        final List<TimeCodedLine> lines = new ArrayList<>();
+        for (int i = 0; i < 100; i++) lines.add(line(i * 10L, 5L));
+        final PersistentTimeline timeline = PersistentTimeline.of(lines);
+        assertNull(timeline.lineAt(-1L));
+        assertSame(lines.get(42), timeline.lineAt(423L));
+        assertNull(timeline.lineAt(427L));
+        assertEquals(43, timeline.countStartingBefore(420L));
+        assertEquals(100, timeline.countStartingBefore(Long.MAX_VALUE));
+
+        final PersistentTimeline moved = timeline.withRange(0, Range.fromRelativeTimes(2_000L, 5L));
+        assertEquals(100, moved.size());
+        assertEquals(2_000L, moved.get(99).range().start());
+        assertEquals("line 0", moved.get(99).line());
+        assertSame(lines.get(1), moved.get(0));
+        assertSame(lines.get(0), timeline.get(0));
+    }
+}
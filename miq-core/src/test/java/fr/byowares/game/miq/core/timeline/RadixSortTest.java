@@ -0,0 +1,91 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.timeline;
+
+import fr.byowares.game.miq.core.Range;
+import fr.byowares.game.miq.core.TimeCodedLine;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RadixSortTest {
+
+    private static TimeCodedLine[] lines(
+            final SplittableRandom random,
+            final int size,
+            final long maxTime
+    ) {
+        final TimeCodedLine[] lines = new TimeCodedLine[size];
+        for (int i = 0; i < size; i++) {
+            // Few distinct values, so that many ranges are equal and stability matters
+            final long start = random.nextLong(-maxTime, maxTime);
+            lines[i] = new TimeCodedLine(Range.fromRelativeTimes(start, random.nextLong(maxTime)), "l" + i);
+        }
+        return lines;
+    }
+
+    private static int[] expected(final TimeCodedLine[] lines) {
+        final Integer[] boxed = new Integer[lines.length];
+        Arrays.setAll(boxed, i -> i);
+        Arrays.sort(boxed, (a, b) -> lines[a].compareTo(lines[b]));
+        return Arrays.stream(boxed).mapToInt(Integer::intValue).toArray();
+    }
+
+    @Test
+    void testSameOrderAsCompareTo() {
+        final SplittableRandom random = new SplittableRandom(45L);
+        for (final int size : new int[]{0, 1, 2, 255, 256, 257, 10_000}) {
+            for (final long maxTime : new long[]{1L, 100L, 10_000_000L}) {
+                final TimeCodedLine[] lines = lines(random, size, maxTime);
+                final int[] expected = expected(lines);
+                assertArrayEquals(expected, RadixSort.permutation(lines), size + " lines up to " + maxTime);
+                assertArrayEquals(expected, RadixSort.parallelPermutation(lines));
+            }
+        }
+    }
+
+    @Test
+    void testUnpackableKeys() {
+        // Starts and ends spanning the whole long range cannot be packed with the indices
+        final TimeCodedLine[] lines = {
+                new TimeCodedLine(Range.fromAbsoluteTimes(Long.MAX_VALUE, Long.MAX_VALUE), "a"),
+                new TimeCodedLine(Range.fromAbsoluteTimes(Long.MIN_VALUE, -1L), "b"),
+                new TimeCodedLine(Range.fromAbsoluteTimes(0L, 1L), "c"),
+                new TimeCodedLine(Range.fromAbsoluteTimes(Long.MIN_VALUE, Long.MIN_VALUE), "d"),
+                new TimeCodedLine(Range.fromAbsoluteTimes(0L, 0L), "e"),
+                new TimeCodedLine(Range.fromAbsoluteTimes(0L, 1L), "f")};
+        assertArrayEquals(expected(lines), RadixSort.permutation(lines));
+        final TimeCodedLine[] sorted = lines.clone();
+        RadixSort.sort(sorted);
+        final TimeCodedLine[] reference = lines.clone();
+        Arrays.sort(reference);
+        assertArrayEquals(reference, sorted);
+    }
+
+    @Test
+    void testParallelSortLargeInput() {
+        final SplittableRandom random = new SplittableRandom(46L);
+        final TimeCodedLine[] lines = lines(random, 200_000, 1L << 40);
+        final TimeCodedLine[] sorted = lines.clone();
+        RadixSort.parallelSort(sorted);
+        final TimeCodedLine[] reference = lines.clone();
+        Arrays.sort(reference);
+        for (int i = 0; i < lines.length; i++) assertSame(reference[i], sorted[i]);
+    }
+}
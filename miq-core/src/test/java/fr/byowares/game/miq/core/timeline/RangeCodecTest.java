@@ -0,0 +1,118 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.timeline;
+
+import fr.byowares.game.miq.core.Range;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RangeCodecTest {
+
+    private static List<Range> sortedTimeline(final int size) {
+        final SplittableRandom random = new SplittableRandom(7L);
+        final List<Range> ranges = new ArrayList<>(size);
+        long start = 0L;
+        for (int i = 0; i < size; i++) {
+            start += random.nextLong(2_000L);
+            final long duration = random.nextLong(1_500L, 5_000L);
+            ranges.add(Range.fromRelativeTimes(start, duration));
+            start += duration;
+        }
+        return ranges;
+    }
+
+    @Test
+    void testZigZag() {
+        for (final long v : new long[]{0L, 1L, -1L, 63L, -64L, Long.MAX_VALUE, Long.MIN_VALUE})
+            assertEquals(v, RangeCodec.unZigZag(RangeCodec.zigZag(v)));
+        assertEquals(1L, RangeCodec.zigZag(-1L));
+        assertEquals(2L, RangeCodec.zigZag(1L));
+    }
+
+    @Test
+    void testRoundTripIsCompact() {
+        final List<Range> ranges = sortedTimeline(1_000);
+        final byte[] encoded = RangeCodec.encode(ranges);
+        assertEquals(ranges, RangeCodec.decode(encoded));
+        assertTrue(encoded.length < 5 * ranges.size(), "encoded in " + encoded.length + " bytes");
+    }
+
+    @Test
+    void testUnsortedAndExtremeValues() {
+        final List<Range> ranges = List.of(Range.fromAbsoluteTimes(1_000L, 2_000L), Range.fromAbsoluteTimes(-5L, 0L),
+                                           Range.fromAbsoluteTimes(Long.MIN_VALUE, Long.MAX_VALUE),
+                                           Range.fromAbsoluteTimes(Long.MAX_VALUE, Long.MAX_VALUE));
+        assertEquals(ranges, RangeCodec.decode(RangeCodec.encode(ranges)));
+        assertEquals(List.of(), RangeCodec.decode(RangeCodec.encode(List.of())));
+    }
+
+    @Test
+    void testStreamingDecode() {
+        final List<Range> ranges = sortedTimeline(100);
+        final RangeCodec.Decoder decoder = new RangeCodec.Decoder(RangeCodec.encode(ranges), 0);
+        assertEquals(100, decoder.remaining());
+        final long[] starts = new long[7];
+        final long[] ends = new long[7];
+        int index = 0;
+        int n;
+        while ((n = decoder.decode(starts, ends, 1, 6)) > 0) {
+            for (int i = 1; i <= n; i++) {
+                assertEquals(ranges.get(index).start(), starts[i]);
+                assertEquals(ranges.get(index).end(), ends[i]);
+                index++;
+            }
+        }
+        assertEquals(100, index);
+        assertEquals(0, decoder.remaining());
+    }
+
+    @Test
+    void testInvalidRange() {
+        assertThrows(IllegalArgumentException.class,
+                     () -> RangeCodec.encode(new long[]{10L}, new long[]{5L}, 1));
+        assertThrows(IllegalArgumentException.class,
+                     () -> RangeCodec.encode(new long[]{10L}, new long[]{15L}, -1));
+        assertThrows(IllegalArgumentException.class,
+                     () -> RangeCodec.encode(new long[]{10L, 20L}, new long[]{15L}, 2));
+    }
+
+    @Test
+    void testCorruptData() {
+        final byte[] encoded = RangeCodec.encode(List.of(Range.fromAbsoluteTimes(1_000L, 5_000L),
+                                                         Range.fromAbsoluteTimes(70_000L, 90_000L)));
+        for (int length = 0; length < encoded.length; length++) {
+            final byte[] truncated = Arrays.copyOf(encoded, length);
+            assertThrows(IllegalArgumentException.class, () -> RangeCodec.decode(truncated), "length " + length);
+        }
+        // A count far beyond what the data can hold must not be trusted to size anything
+        final byte[] hostile = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07, 0, 0};
+        assertThrows(IllegalArgumentException.class, () -> RangeCodec.decode(hostile));
+        // A 10th varint byte can only hold the highest bit of a long
+        final byte[] overflow = new byte[12];
+        overflow[0] = 1;
+        Arrays.fill(overflow, 1, 10, (byte) 0xFF);
+        overflow[10] = 0x02;
+        assertThrows(IllegalArgumentException.class, () -> RangeCodec.decode(overflow));
+        overflow[10] = 0x01;
+        assertEquals(Long.MIN_VALUE, RangeCodec.decode(overflow).getFirst().start());
+    }
+}
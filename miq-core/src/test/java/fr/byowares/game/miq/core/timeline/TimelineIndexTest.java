@@ -0,0 +1,91 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.timeline;
+
+import fr.byowares.game.miq.core.Range;
+import fr.byowares.game.miq.core.TimeCodedLine;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimelineIndexTest {
+
+    /** Sorted lines, a quarter of which start together with the previous one */
+    private static List<TimeCodedLine> linesStartingTogether(
+            final SplittableRandom random,
+            final int size
+    ) {
+        final List<TimeCodedLine> lines = new ArrayList<>();
+        long start = 0L;
+        for (int i = 0; i < size; i++) {
+            start += random.nextInt(4) == 0 ? 0L : random.nextLong(1L, 3_000L);
+            lines.add(new TimeCodedLine(Range.fromRelativeTimes(start, random.nextLong(2_000L)), "l" + i));
+        }
+        return lines;
+    }
+
+    private static int expectedFloor(
+            final List<TimeCodedLine> lines,
+            final long time
+    ) {
+        int floor = -1;
+        for (int i = 0; i < lines.size(); i++) if (lines.get(i).range().start() <= time) floor = i;
+        return floor;
+    }
+
+    @Test
+    void testAllStrategiesAgree() {
+        final SplittableRandom random = new SplittableRandom(9L);
+        for (final int size : new int[]{0, 1, 2, 3, 7, 8, 50, 127, 128, 129, 500, 1_023, 1_024}) {
+            // Some lines start together, to check that floor returns the last of them
+            final List<TimeCodedLine> lines = linesStartingTogether(random, size);
+            final TimelineIndex linear = TimelineIndex.linear(lines);
+            final TimelineIndex eytzinger = TimelineIndex.eytzinger(lines);
+            final TimelineIndex auto = TimelineIndex.of(lines);
+            assertEquals(size, auto.size());
+            final long last = size == 0 ? 0L : lines.getLast().range().end();
+            for (int i = 0; i < 2_000; i++) {
+                final long time = random.nextLong(-100L, last + 100L);
+                final int expected = expectedFloor(lines, time);
+                assertEquals(expected, linear.floor(time), "linear " + size + " at " + time);
+                assertEquals(expected, eytzinger.floor(time), "eytzinger " + size + " at " + time);
+                assertEquals(expected, auto.floor(time));
+                final int active = expected >= 0 && time < lines.get(expected).range().end() ? expected : -1;
+                assertEquals(active, auto.lineAt(time));
+            }
+        }
+    }
+
+    @Test
+    void testUnsorted() {
+        final List<TimeCodedLine> lines = List.of(new TimeCodedLine(Range.fromRelativeTimes(10L, 5L), "a"),
+                                                  new TimeCodedLine(Range.fromRelativeTimes(0L, 5L), "b"));
+        assertThrows(IllegalArgumentException.class, () -> TimelineIndex.of(lines));
+    }
+
+    @Test
+    void testVectorNeedsTheIncubatorModule() {
+        // The default build does not add miq-vector, see VectorStartCounterTest for the other case
+        if (TimelineIndex.isVectorAvailable()) return;
+        final List<TimeCodedLine> lines = List.of(new TimeCodedLine(Range.fromRelativeTimes(0L, 5L), "a"));
+        assertThrows(IllegalStateException.class, () -> TimelineIndex.vector(lines));
+        assertEquals(0, TimelineIndex.of(lines).floor(3L));
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.timeline;
+
+import fr.byowares.game.miq.core.Range;
+import fr.byowares.game.miq.core.TimeCodedLine;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimelineMergerTest {
+
+    private static List<TimeCodedLine> sorted(
+            final SplittableRandom random,
+            final int size,
+            final String name
+    ) {
+        final List<TimeCodedLine> lines = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            lines.add(new TimeCodedLine(Range.fromRelativeTimes(random.nextLong(1_000L), random.nextLong(50L)),
+                                        name + i));
+        }
+        Collections.sort(lines);
+        return lines;
+    }
+
+    @Test
+    void testMergeMatchesStableSort() {
+        final SplittableRandom random = new SplittableRandom(5L);
+        for (final int k : new int[]{1, 2, 3, 5, 8, 13}) {
+            final List<List<TimeCodedLine>> sources = new ArrayList<>();
+            final long[] offsets = new long[k];
+            final List<TimeCodedLine> expected = new ArrayList<>();
+            final List<Integer> expectedSources = new ArrayList<>();
+            for (int s = 0; s < k; s++) {
+                sources.add(sorted(random, random.nextInt(40), "s" + s + "-"));
+                offsets[s] = random.nextLong(-200L, 200L);
+                for (final TimeCodedLine line : sources.get(s)) expected.add(line.shiftedBy(offsets[s]));
+            }
+            expected.sort(null);
+            final TimelineMerger merger = TimelineMerger.of(sources, offsets);
+            final List<TimeCodedLine> merged = new ArrayList<>();
+            while (merger.hasNext()) {
+                final TimeCodedLine line = merger.next();
+                merged.add(line);
+                assertTrue(line.line().toString().startsWith("s" + merger.source() + "-"));
+            }
+            assertEquals(expected, merged);
+            assertThrows(NoSuchElementException.class, merger::next);
+        }
+    }
+
+    @Test
+    void testEqualRangesFollowSourceOrder() {
+        final TimeCodedLine a = new TimeCodedLine(Range.fromRelativeTimes(10L, 5L), "a");
+        final TimeCodedLine b = new TimeCodedLine(Range.fromRelativeTimes(0L, 5L), "b");
+        final long[] offsets = {0L, 0L, 10L};
+        final TimelineMerger merger = TimelineMerger.of(List.of(List.of(a), List.of(), List.of(b)), offsets);
+        assertEquals(-1, merger.source());
+        assertSame(a, merger.next());
+        assertEquals(0, merger.source());
+        assertEquals("b", merger.next().line());
+        assertEquals(2, merger.source());
+        assertFalse(merger.hasNext());
+    }
+
+    @Test
+    void testInvalidSources() {
+        assertFalse(TimelineMerger.of(List.of(), new long[0]).hasNext());
+        assertThrows(IllegalArgumentException.class, () -> TimelineMerger.of(List.of(List.of()), new long[2]));
+        final List<TimeCodedLine> unsorted = List.of(new TimeCodedLine(Range.fromRelativeTimes(10L, 5L), "a"),
+                                                     new TimeCodedLine(Range.fromRelativeTimes(0L, 5L), "b"));
+        final TimelineMerger merger = TimelineMerger.of(List.of(unsorted), new long[1]);
+        assertThrows(IllegalStateException.class, merger::next);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.timeline;
+
+import fr.byowares.game.miq.core.Range;
+import fr.byowares.game.miq.core.TimeCodedLine;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimelineValidatorTest {
+    private static final TimelineValidator VALIDATOR = new TimelineValidator(1_000L);
+
+    private static TimeCodedLine line(
+            final long start,
+            final long end,
+            final String text
+    ) {
+        return new TimeCodedLine(Range.fromAbsoluteTimes(start, end), text);
+    }
+
+    private static List<TimelineIssue> issues(final TimeCodedLine... lines) {
+        return VALIDATOR.validate(List.of(lines)).issues();
+    }
+
+    @Test
+    void testValidTimeline() {
+        final ValidationReport report = VALIDATOR.validate(List.of(line(0L, 10L, "a"), line(10L, 20L, "b"),
+                                                                   line(500L, 900L, "c")));
+        assertTrue(report.isValid());
+        assertEquals(3, report.lines());
+    }
+
+    @Test
+    void testIssues() {
+        assertEquals(List.of(new TimelineIssue(TimelineIssue.Kind.UNORDERED, 1)),
+                     issues(line(10L, 20L, "a"), line(0L, 5L, "b")));
+        assertEquals(List.of(new TimelineIssue(TimelineIssue.Kind.DUPLICATE, 1)),
+                     issues(line(0L, 10L, "a"), line(0L, 10L, "a")));
+        assertEquals(List.of(new TimelineIssue(TimelineIssue.Kind.ZERO_LENGTH, 0)), issues(line(5L, 5L, "a")));
+        assertEquals(List.of(new TimelineIssue(TimelineIssue.Kind.GAP, 1)),
+                     issues(line(0L, 10L, "a"), line(1_011L, 1_020L, "b")));
+    }
+
+    @Test
+    void testNestedOverlapIsDetected() {
+        assertEquals(List.of(new TimelineIssue(TimelineIssue.Kind.OVERLAP, 1),
+                             new TimelineIssue(TimelineIssue.Kind.OVERLAP, 2)),
+                     issues(line(0L, 100L, "long"), line(10L, 20L, "inner"), line(30L, 40L, "inner too")));
+    }
+
+    @Test
+    void testValidateAll() {
+        final Map<String, ValidationReport> reports = VALIDATOR.validateAll(
+                Map.of("ok", List.of(line(0L, 10L, "a")), "ko", List.of(line(0L, 0L, "a"))));
+        assertTrue(reports.get("ok").isValid());
+        assertEquals(1L, reports.get("ko").count(TimelineIssue.Kind.ZERO_LENGTH));
+    }
+
+    @Test
+    void testRepair() {
+        final List<TimeCodedLine> repaired = VALIDATOR.repair(List.of(
+                line(50L, 60L, "d"), line(0L, 20L, "a"), line(0L, 20L, "a"), line(15L, 30L, "b"),
+                line(15L, 40L, "c"), line(45L, 45L, "empty"), line(16L, 25L, "covered")));
+        assertEquals(List.of(line(0L, 15L, "a"), line(15L, 30L, "b"), line(30L, 40L, "c"), line(50L, 60L, "d")),
+                     repaired);
+        assertTrue(VALIDATOR.validate(repaired).isValid());
+    }
+}
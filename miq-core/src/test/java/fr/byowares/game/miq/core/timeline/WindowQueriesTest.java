@@ -0,0 +1,86 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.core.timeline;
+
+import fr.byowares.game.miq.core.Range;
+import fr.byowares.game.miq.core.TimeCodedLine;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WindowQueriesTest {
+
+    /** Lines that may overlap or be empty, but are never nested */
+    private static List<TimeCodedLine> overlappingLines(
+            final SplittableRandom random,
+            final int size
+    ) {
+        final List<TimeCodedLine> lines = new ArrayList<>();
+        long start = 0L;
+        long end = 0L;
+        for (int i = 0; i < size; i++) {
+            start += random.nextLong(0L, 3_000L);
+            end = Math.max(end, start + random.nextLong(0L, 4_000L));
+            lines.add(new TimeCodedLine(Range.fromAbsoluteTimes(start, end), "l" + i));
+        }
+        return lines;
+    }
+
+    @Test
+    void testAgainstScan() {
+        final SplittableRandom random = new SplittableRandom(44L);
+        for (final int size : new int[]{0, 1, 2, 10, 200}) {
+            final List<TimeCodedLine> lines = overlappingLines(random, size);
+            final WindowQueries queries = WindowQueries.of(lines);
+            final WindowQueries.Cursor cursor = queries.cursor();
+            final long last = size == 0 ? 0L : lines.getLast().range().end();
+            for (int i = 0; i < 2_000; i++) {
+                final long start = random.nextLong(-100L, last + 100L);
+                final long end = start + random.nextLong(0L, 10_000L);
+                int count = 0;
+                long covered = 0L;
+                cursor.reset(start, end);
+                for (int l = 0; l < size; l++) {
+                    final Range range = lines.get(l).range();
+                    if (range.start() >= end || range.end() <= start) continue;
+                    count++;
+                    covered += Math.min(range.end(), end) - Math.max(range.start(), start);
+                    assertTrue(cursor.next());
+                    assertEquals(l, cursor.index());
+                    assertEquals(Math.max(range.start(), start), cursor.overlapStart());
+                    assertEquals(Math.min(range.end(), end), cursor.overlapEnd());
+                }
+                assertFalse(cursor.next());
+                assertEquals(count, queries.count(start, end), start + "-" + end);
+                assertEquals(covered, queries.coveredDuration(start, end), start + "-" + end);
+            }
+        }
+    }
+
+    @Test
+    void testInvalid() {
+        final List<TimeCodedLine> nested = List.of(new TimeCodedLine(Range.fromAbsoluteTimes(0L, 10L), "a"),
+                                                   new TimeCodedLine(Range.fromAbsoluteTimes(2L, 5L), "b"));
+        assertThrows(IllegalArgumentException.class, () -> WindowQueries.of(nested));
+        final WindowQueries queries = WindowQueries.of(List.of());
+        assertThrows(IllegalArgumentException.class, () -> queries.count(5L, 4L));
+        assertEquals(0L, queries.coveredDuration(5L, 5L));
+    }
+}
@@ -0,0 +1,25 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.sim;
+
+/**
+ * @param botId        the bot who answered
+ * @param guess        what the bot typed
+ * @param responseTime the time between the line reveal and the answer, in the timeline unit
+ *
+ * @since XXX
+ */
+record Answer(int botId, CharSequence guess, long responseTime) {}
@@ -0,0 +1,61 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.sim;
+
+import fr.byowares.game.miq.core.TimeCodedLine;
+import fr.byowares.game.miq.core.text.LyricNormalizer;
+
+/**
+ * Decide whether a guess matches the expected line.
+ *
+ * @since XXX
+ */
+@FunctionalInterface
+public interface AnswerMatcher {
+
+    /**
+     * Case-insensitive comparison of the guess with the whole line.
+     */
+    AnswerMatcher EXACT_IGNORE_CASE = (expected, guess) -> expected.line().toString().equalsIgnoreCase(guess.toString());
+
+    /**
+     * Comparison of the normalized guess with the normalized line, see
+     * {@link fr.byowares.game.miq.core.text.LyricNormalizer}.
+     */
+    AnswerMatcher NORMALIZED = new AnswerMatcher() {
+        private final ThreadLocal<StringBuilder> scratch = ThreadLocal.withInitial(StringBuilder::new);
+
+        @Override
+        public boolean matches(
+                final TimeCodedLine expected,
+                final CharSequence guess
+        ) {
+            return LyricNormalizer.equalsNormalized(LyricNormalizer.normalized(expected.line()), guess,
+                                                    this.scratch.get());
+        }
+    };
+
+    /**
+     * @param expected the line that should be found
+     * @param guess    the guess of the player
+     *
+     * @return {@code true} if and only if the guess is considered as a good answer
+     */
+    boolean matches(
+            TimeCodedLine expected,
+            CharSequence guess
+    );
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.sim;
+
+import fr.byowares.game.miq.core.TimeCodedLine;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * A fake player answering with a given accuracy and think time.
+ *
+ * @since XXX
+ */
+final class Bot {
+
+    private final int id;
+    private final double accuracy;
+    private final LatencyDistribution thinkTime;
+
+    Bot(
+            final int id,
+            final double accuracy,
+            final LatencyDistribution thinkTime
+    ) {
+        this.id = id;
+        this.accuracy = accuracy;
+        this.thinkTime = thinkTime;
+    }
+
+    private static CharSequence misspell(
+            final CharSequence line,
+            final RandomGenerator random
+    ) {
+        if (line.isEmpty()) return "?";
+        final char[] chars = line.toString().toCharArray();
+        final int i = random.nextInt(chars.length);
+        chars[i] = chars[i] == 'x' ? 'y' : 'x';
+        return new String(chars);
+    }
+
+    Answer answer(
+            final TimeCodedLine line,
+            final RandomGenerator random
+    ) {
+        final long responseTime = this.thinkTime.sample(random);
+        final boolean right = random.nextDouble() < this.accuracy;
+        return new Answer(this.id, right ? line.line() : misspell(line.line(), random), responseTime);
+    }
+}
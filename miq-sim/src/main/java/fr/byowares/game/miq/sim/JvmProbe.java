@@ -0,0 +1,108 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.sim;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measure allocations and garbage collection pauses between {@link #start()} and {@link #stop()}.
+ * <p>
+ * Allocations are only accounted for threads still alive when the probe is stopped.
+ *
+ * @since XXX
+ */
+final class JvmProbe
+        implements NotificationListener {
+
+    private final com.sun.management.ThreadMXBean threads;
+    private final Map<Long, Long> allocatedAtStart = new HashMap<>();
+    private final LongAdder pauses = new LongAdder();
+    private final LongAdder pauseTotalMillis = new LongAdder();
+    private final AtomicLong pauseMaxMillis = new AtomicLong();
+
+    private JvmProbe() {
+        this.threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    }
+
+    static JvmProbe start() {
+        final JvmProbe probe = new JvmProbe();
+        if (probe.allocationsSupported()) {
+            probe.threads.setThreadAllocatedMemoryEnabled(true);
+            probe.snapshotAllocations(probe.allocatedAtStart);
+        }
+        for (final GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+            if (gc instanceof NotificationEmitter emitter) emitter.addNotificationListener(probe, null, null);
+        return probe;
+    }
+
+    private boolean allocationsSupported() {
+        return this.threads.isThreadAllocatedMemorySupported();
+    }
+
+    private void snapshotAllocations(final Map<Long, Long> into) {
+        final long[] ids = this.threads.getAllThreadIds();
+        final long[] allocated = this.threads.getThreadAllocatedBytes(ids);
+        for (int i = 0; i < ids.length; i++) if (allocated[i] >= 0L) into.put(ids[i], allocated[i]);
+    }
+
+    @Override
+    public void handleNotification(
+            final Notification notification,
+            final Object handback
+    ) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) return;
+        final GarbageCollectionNotificationInfo info =
+                GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        // Concurrent cycles run alongside the application, they are not pauses.
+        if (info.getGcName().contains("Concurrent")) return;
+        final long duration = info.getGcInfo().getDuration();
+        this.pauses.increment();
+        this.pauseTotalMillis.add(duration);
+        this.pauseMaxMillis.accumulateAndGet(duration, Math::max);
+    }
+
+    JvmStats stop() {
+        for (final GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (!(gc instanceof NotificationEmitter emitter)) continue;
+            try {
+                emitter.removeNotificationListener(this);
+            } catch (final ListenerNotFoundException e) {
+                // Already removed, nothing to do
+            }
+        }
+        long allocated = -1L;
+        if (this.allocationsSupported()) {
+            final Map<Long, Long> allocatedAtStop = new HashMap<>();
+            this.snapshotAllocations(allocatedAtStop);
+            allocated = 0L;
+            for (final Map.Entry<Long, Long> e : allocatedAtStop.entrySet())
+                allocated += e.getValue() - this.allocatedAtStart.getOrDefault(e.getKey(), 0L);
+        }
+        return new JvmStats(allocated, this.pauses.sum(), this.pauseTotalMillis.sum(), this.pauseMaxMillis.get());
+    }
+}
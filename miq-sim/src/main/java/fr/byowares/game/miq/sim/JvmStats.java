@@ -0,0 +1,27 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.sim;
+
+/**
+ * @param allocatedBytes     the number of bytes allocated by all threads during the measure, or -1 if the JVM does
+ *                           not support allocation accounting
+ * @param gcPauses           the number of stop-the-world collections during the measure
+ * @param gcPauseTotalMillis the cumulated duration of those collections
+ * @param gcPauseMaxMillis   the duration of the longest of those collections
+ *
+ * @since XXX
+ */
+public record JvmStats(long allocatedBytes, long gcPauses, long gcPauseTotalMillis, long gcPauseMaxMillis) {}
@@ -0,0 +1,87 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.sim;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Distribution of the time a bot needs to answer once a line is revealed.
+ * <p>
+ * Samples are expressed in the same unit as the {@link fr.byowares.game.miq.core.Range} of the timeline.
+ *
+ * @since XXX
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+    /**
+     * @param value the latency always returned
+     *
+     * @return a distribution always returning {@code value}
+     *
+     * @throws java.lang.IllegalArgumentException if and only if {@code value} is negative
+     */
+    static LatencyDistribution constant(final long value) {
+        if (value < 0L) throw new IllegalArgumentException("value (" + value + ") must be positive or zero");
+        return random -> value;
+    }
+
+    /**
+     * @param min the lowest latency (inclusive)
+     * @param max the highest latency (inclusive)
+     *
+     * @return a distribution uniformly spread between {@code min} and {@code max}
+     *
+     * @throws java.lang.IllegalArgumentException if and only if {@code min} is negative or greater than {@code max}
+     */
+    static LatencyDistribution uniform(
+            final long min,
+            final long max
+    ) {
+        if (min < 0L || min > max)
+            throw new IllegalArgumentException("min (" + min + ") must be positive and inferior or equals to max (" + max + ")");
+        return random -> random.nextLong(min, max + 1L);
+    }
+
+    /**
+     * Human reaction times are right-skewed: most answers come quickly, a few come very late. A log-normal
+     * distribution models that tail well.
+     *
+     * @param median the median latency
+     * @param sigma  the standard deviation of the underlying normal distribution, the higher the longer the tail
+     *
+     * @return a log-normal distribution of latencies
+     *
+     * @throws java.lang.IllegalArgumentException if and only if {@code median} or {@code sigma} is not strictly
+     *                                            positive
+     */
+    static LatencyDistribution logNormal(
+            final double median,
+            final double sigma
+    ) {
+        if (!(median > 0d) || !(sigma > 0d))
+            throw new IllegalArgumentException("median (" + median + ") and sigma (" + sigma + ") must be strictly positive");
+        final double mu = Math.log(median);
+        return random -> Math.round(Math.exp(mu + sigma * random.nextGaussian()));
+    }
+
+    /**
+     * @param random the source of randomness to use
+     *
+     * @return a latency, positive or zero
+     */
+    long sample(RandomGenerator random);
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.sim;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free log-linear histogram of positive values (typically nanoseconds).
+ * <p>
+ * Each power of two is split in {@value #SUB_BUCKETS} linear sub-buckets, so the relative error of a percentile
+ * is bounded by about 3% whatever the magnitude of the values, with a fixed footprint of a few kilobytes.
+ *
+ * @since XXX
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = bucketOf(Long.MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Create an empty histogram.
+     */
+    public LatencyHistogram() {
+        // Nothing to initialize
+    }
+
+    static int bucketOf(final long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        final int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return SUB_BUCKETS + shift * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    static long lowestValueOf(final int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        final int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + (bucket - SUB_BUCKETS) % SUB_BUCKETS) << shift;
+    }
+
+    static long highestValueOf(final int bucket) {
+        return bucket + 1 < BUCKETS ? lowestValueOf(bucket + 1) - 1L : Long.MAX_VALUE;
+    }
+
+    /**
+     * @param value the value to record, negative values are recorded as zero
+     */
+    public void record(final long value) {
+        final long v = Math.max(0L, value);
+        this.counts.incrementAndGet(bucketOf(v));
+        this.count.incrementAndGet();
+        this.max.accumulateAndGet(v, Math::max);
+    }
+
+    /**
+     * @return the number of recorded values
+     */
+    public long count() {
+        return this.count.get();
+    }
+
+    /**
+     * @return the highest recorded value, or 0 if nothing was recorded
+     */
+    public long max() {
+        return this.max.get();
+    }
+
+    /**
+     * @param percentile the percentile to compute, between 0 and 100
+     *
+     * @return an upper bound of the value under which {@code percentile} percents of the recorded values are, or 0
+     *         if nothing was recorded
+     *
+     * @throws java.lang.IllegalArgumentException if and only if {@code percentile} is not between 0 and 100
+     */
+    public long valueAt(final double percentile) {
+        if (!(percentile >= 0d && percentile <= 100d))
+            throw new IllegalArgumentException("percentile (" + percentile + ") must be between 0 and 100");
+        final long total = this.count.get();
+        if (total == 0L) return 0L;
+        final long rank = Math.max(1L, (long) Math.ceil(percentile / 100d * total));
+        long seen = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += this.counts.get(i);
+            if (seen >= rank) return Math.min(this.max.get(), highestValueOf(i));
+        }
+        return this.max.get();
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.sim;
+
+import fr.byowares.game.miq.sim.bench.Benchmarks;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command line entry point, e.g. {@code --rooms=200 --bots=50 --accuracy=0.3}.
+ * <p>
+ * Known options: {@code rooms}, {@code bots}, {@code lines}, {@code accuracy}, {@code latency-median},
+ * {@code latency-sigma}, {@code workers} and {@code seed}.
+ * <p>
+ * {@code bench [name...]} runs micro-benchmarks instead, see {@link fr.byowares.game.miq.sim.bench.Benchmarks}.
+ *
+ * @since XXX
+ */
+public final class Main {
+
+    private Main() {
+        throw new AssertionError("No fr.byowares.game.miq.sim.Main instances for you!");
+    }
+
+    /**
+     * @param args the options of the simulation, as {@code --key=value}, or {@code bench} followed by the names of
+     *             the benchmarks to run
+     *
+     * @throws java.lang.IllegalArgumentException if and only if an option is malformed or unknown
+     */
+    public static void main(final String[] args) {
+        if (args.length > 0 && "bench".equals(args[0])) {
+            Benchmarks.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        final Map<String, String> options = new HashMap<>();
+        options.put("rooms", "100");
+        options.put("bots", "50");
+        options.put("lines", "40");
+        options.put("accuracy", "0.3");
+        options.put("latency-median", "2500");
+        options.put("latency-sigma", "0.6");
+        options.put("workers", Integer.toString(Runtime.getRuntime().availableProcessors()));
+        options.put("seed", "42");
+        for (final String arg : args) {
+            final int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) throw new IllegalArgumentException("Malformed option: " + arg);
+            final String key = arg.substring(2, eq);
+            if (!options.containsKey(key)) throw new IllegalArgumentException("Unknown option: " + key);
+            options.put(key, arg.substring(eq + 1));
+        }
+
+        final SimulationConfig config = new SimulationConfig(
+                Integer.parseInt(options.get("rooms")), Integer.parseInt(options.get("bots")),
+                Integer.parseInt(options.get("lines")), Double.parseDouble(options.get("accuracy")),
+                LatencyDistribution.logNormal(Double.parseDouble(options.get("latency-median")),
+                                              Double.parseDouble(options.get("latency-sigma"))),
+                Integer.parseInt(options.get("workers")), Long.parseLong(options.get("seed")));
+        final SimulationReport report = new Simulation(config, AnswerMatcher.NORMALIZED).run();
+        System.out.println(report.summary());
+    }
+}
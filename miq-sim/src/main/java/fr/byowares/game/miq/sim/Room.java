@@ -0,0 +1,64 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.sim;
+
+import fr.byowares.game.miq.core.TimeCodedLine;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * A room playing one song with its bots.
+ *
+ * @since XXX
+ */
+final class Room {
+
+    private static final Comparator<Answer> BY_RESPONSE_TIME = Comparator.comparingLong(Answer::responseTime);
+
+    private final List<TimeCodedLine> timeline;
+    private final List<Bot> bots;
+    private final RandomGenerator random;
+
+    Room(
+            final List<TimeCodedLine> timeline,
+            final List<Bot> bots,
+            final RandomGenerator random
+    ) {
+        this.timeline = timeline;
+        this.bots = bots;
+        this.random = random;
+    }
+
+    TimeCodedLine line(final int index) {
+        return this.timeline.get(index);
+    }
+
+    /**
+     * @param index the index of the revealed line
+     *
+     * @return the answers of all bots, in the order they would arrive
+     */
+    List<Answer> answers(final int index) {
+        final TimeCodedLine line = this.timeline.get(index);
+        final List<Answer> answers = new ArrayList<>(this.bots.size());
+        for (final Bot bot : this.bots) answers.add(bot.answer(line, this.random));
+        answers.sort(BY_RESPONSE_TIME);
+        return answers;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.sim;
+
+import fr.byowares.game.miq.core.TimeCodedLine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process load generator: every room reveals its lines in lockstep, and all its bots answer each revealed line.
+ * <p>
+ * Answers of every room are submitted in bursts to a shared pool of workers, the way a game node receives them
+ * right after a reveal. Bot think times only order the answers within a burst: the simulation runs as fast as the
+ * workers can go, so the reported figures are the capacity of the node, not the pace of a real game.
+ *
+ * @since XXX
+ */
+public final class Simulation {
+
+    private final SimulationConfig config;
+    private final AnswerMatcher matcher;
+
+    /**
+     * @param config  the size and behaviour of the simulated load
+     * @param matcher the answer matching under test
+     */
+    public Simulation(
+            final SimulationConfig config,
+            final AnswerMatcher matcher
+    ) {
+        this.config = config;
+        this.matcher = matcher;
+    }
+
+    private List<Room> createRooms() {
+        final SplittableRandom seeds = new SplittableRandom(this.config.seed());
+        final List<Room> rooms = new ArrayList<>(this.config.rooms());
+        for (int r = 0; r < this.config.rooms(); r++) {
+            final SplittableRandom random = seeds.split();
+            final List<TimeCodedLine> timeline = TimelineGenerator.generate(random, this.config.linesPerSong());
+            final List<Bot> bots = new ArrayList<>(this.config.botsPerRoom());
+            for (int b = 0; b < this.config.botsPerRoom(); b++)
+                bots.add(new Bot(b, this.config.accuracy(), this.config.thinkTime()));
+            rooms.add(new Room(timeline, bots, random));
+        }
+        return rooms;
+    }
+
+    /**
+     * Run the whole simulation and block until every answer has been processed.
+     *
+     * @return the measures of the run
+     *
+     * @throws java.lang.IllegalStateException if the calling thread is interrupted while waiting for the workers
+     */
+    public SimulationReport run() {
+        final List<Room> rooms = this.createRooms();
+        final LatencyHistogram latencies = new LatencyHistogram();
+        final LongAdder correct = new LongAdder();
+        final ExecutorService workers = Executors.newFixedThreadPool(this.config.workers());
+        final JvmProbe probe = JvmProbe.start();
+        try {
+            final long begin = System.nanoTime();
+            for (int l = 0; l < this.config.linesPerSong(); l++) {
+                final CountDownLatch processed = new CountDownLatch(rooms.size() * this.config.botsPerRoom());
+                for (final Room room : rooms) {
+                    final TimeCodedLine line = room.line(l);
+                    for (final Answer answer : room.answers(l)) {
+                        final long submitted = System.nanoTime();
+                        workers.execute(() -> {
+                            if (this.matcher.matches(line, answer.guess())) correct.increment();
+                            latencies.record(System.nanoTime() - submitted);
+                            processed.countDown();
+                        });
+                    }
+                }
+                processed.await();
+            }
+            final long elapsed = System.nanoTime() - begin;
+            final JvmStats jvm = probe.stop();
+            return new SimulationReport(latencies.count(), correct.sum(), elapsed,
+                                        SimulationReport.Latencies.of(latencies), jvm);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            probe.stop();
+            throw new IllegalStateException("Simulation interrupted", e);
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+}
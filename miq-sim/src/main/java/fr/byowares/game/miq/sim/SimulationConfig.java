@@ -0,0 +1,48 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.sim;
+
+/**
+ * @param rooms        the number of rooms playing at the same time
+ * @param botsPerRoom  the number of bots in each room
+ * @param linesPerSong the number of lines of the song played in each room
+ * @param accuracy     the probability, between 0 and 1, that a bot gives the right answer
+ * @param thinkTime    the time bots need to answer once a line is revealed
+ * @param workers      the number of threads processing the answers
+ * @param seed         the seed of the simulation, the same seed gives the same bots and timelines
+ *
+ * @since XXX
+ */
+public record SimulationConfig(int rooms, int botsPerRoom, int linesPerSong, double accuracy,
+                               LatencyDistribution thinkTime, int workers, long seed) {
+
+    /**
+     * @throws java.lang.IllegalArgumentException if and only if one of the counts is not strictly positive or the
+     *                                            accuracy is not between 0 and 1
+     * @throws java.lang.NullPointerException     if and only if {@code thinkTime} is {@code null}
+     */
+    public SimulationConfig {
+        if (rooms <= 0) throw new IllegalArgumentException("rooms (" + rooms + ") must be strictly positive");
+        if (botsPerRoom <= 0)
+            throw new IllegalArgumentException("botsPerRoom (" + botsPerRoom + ") must be strictly positive");
+        if (linesPerSong <= 0)
+            throw new IllegalArgumentException("linesPerSong (" + linesPerSong + ") must be strictly positive");
+        if (!(accuracy >= 0d && accuracy <= 1d))
+            throw new IllegalArgumentException("accuracy (" + accuracy + ") must be between 0 and 1");
+        if (thinkTime == null) throw new NullPointerException("thinkTime must not be null");
+        if (workers <= 0) throw new IllegalArgumentException("workers (" + workers + ") must be strictly positive");
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.sim;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @param answers        the number of processed answers
+ * @param correctAnswers the number of answers accepted by the matcher
+ * @param elapsedNanos   the wall-clock duration of the simulation
+ * @param latencies      the latency percentiles between the submission of an answer and its verdict
+ * @param jvm            the allocations and garbage collections during the simulation
+ *
+ * @since XXX
+ */
+public record SimulationReport(long answers, long correctAnswers, long elapsedNanos, Latencies latencies,
+                               JvmStats jvm) {
+
+    private static double perSecond(
+            final long value,
+            final long nanos
+    ) {
+        return nanos == 0L ? 0d : value * (double) TimeUnit.SECONDS.toNanos(1L) / nanos;
+    }
+
+    /**
+     * @return the number of answers processed per second
+     */
+    public double throughput() {
+        return perSecond(this.answers, this.elapsedNanos);
+    }
+
+    /**
+     * @return the number of bytes allocated per second, or a negative value if allocations were not measured
+     */
+    public double allocationRate() {
+        return this.jvm.allocatedBytes() < 0L ? -1d : perSecond(this.jvm.allocatedBytes(), this.elapsedNanos);
+    }
+
+    /**
+     * @return a human-readable multi-line summary of the report
+     */
+    public String summary() {
+        final String s = System.lineSeparator();
+        return String.format("answers       : %d (%d correct) in %d ms%s", this.answers, this.correctAnswers,
+                             TimeUnit.NANOSECONDS.toMillis(this.elapsedNanos), s) +
+               String.format("throughput    : %.0f answers/s%s", this.throughput(), s) +
+               String.format("latency (us)  : p50=%d p90=%d p99=%d p99.9=%d max=%d%s", this.latencies.p50() / 1_000L,
+                             this.latencies.p90() / 1_000L, this.latencies.p99() / 1_000L,
+                             this.latencies.p999() / 1_000L, this.latencies.max() / 1_000L, s) +
+               String.format("allocation    : %.1f MB/s (%d bytes)%s", this.allocationRate() / (1 << 20),
+                             this.jvm.allocatedBytes(), s) +
+               String.format("gc pauses     : %d (total=%d ms, max=%d ms)", this.jvm.gcPauses(),
+                             this.jvm.gcPauseTotalMillis(), this.jvm.gcPauseMaxMillis());
+    }
+
+    /**
+     * @param p50  the median latency in nanoseconds
+     * @param p90  the 90th percentile in nanoseconds
+     * @param p99  the 99th percentile in nanoseconds
+     * @param p999 the 99.9th percentile in nanoseconds
+     * @param max  the highest latency in nanoseconds
+     */
+    public record Latencies(long p50, long p90, long p99, long p999, long max) {
+
+        static Latencies of(final LatencyHistogram histogram) {
+            return new Latencies(histogram.valueAt(50d), histogram.valueAt(90d), histogram.valueAt(99d),
+                                 histogram.valueAt(99.9d), histogram.max());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.sim;
+
+import fr.byowares.game.miq.core.Range;
+import fr.byowares.game.miq.core.TimeCodedLine;
+import fr.byowares.game.miq.core.text.LyricText;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Generate plausible timelines: sorted, non-overlapping lines of a few words separated by short gaps.
+ * <p>
+ * Lines are {@link fr.byowares.game.miq.core.text.LyricText}, as they would be once loaded from the catalog.
+ *
+ * @since XXX
+ */
+public final class TimelineGenerator {
+
+    private static final String[] WORDS = {
+            "love", "night", "heart", "baby", "dance", "fire", "dream", "never", "forever", "tonight", "amour", "toujours",
+            "soleil", "coeur", "nuit", "jamais", "rain", "light", "home", "road", "again", "together", "alone", "sky"
+    };
+    private static final int MIN_WORDS = 3;
+    private static final int MAX_WORDS = 9;
+    private static final long MIN_LINE_DURATION = 1_500L;
+    private static final long MAX_LINE_DURATION = 5_000L;
+    private static final long MAX_GAP = 2_000L;
+
+    private TimelineGenerator() {
+        throw new AssertionError("No fr.byowares.game.miq.sim.TimelineGenerator instances for you!");
+    }
+
+    /**
+     * @param random the source of randomness to use, the same seed gives the same timeline
+     * @param lines  the number of lines to generate
+     *
+     * @return a sorted timeline of {@code lines} lines
+     */
+    public static List<TimeCodedLine> generate(
+            final RandomGenerator random,
+            final int lines
+    ) {
+        final List<TimeCodedLine> timeline = new ArrayList<>(lines);
+        long start = 0L;
+        for (int i = 0; i < lines; i++) {
+            start += random.nextLong(MAX_GAP + 1L);
+            final long duration = random.nextLong(MIN_LINE_DURATION, MAX_LINE_DURATION + 1L);
+            timeline.add(new TimeCodedLine(Range.fromRelativeTimes(start, duration), randomLine(random)));
+            start += duration;
+        }
+        return timeline;
+    }
+
+    private static LyricText randomLine(final RandomGenerator random) {
+        final int words = random.nextInt(MIN_WORDS, MAX_WORDS + 1);
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) sb.append(' ');
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return new LyricText(sb);
+    }
+}
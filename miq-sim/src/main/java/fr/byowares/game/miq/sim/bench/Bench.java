@@ -0,0 +1,68 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.sim.bench;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Minimal benchmark loop: warm the code up, then keep the best of several timed runs.
+ * <p>
+ * Results of the measured code are accumulated in a volatile sink so that the JIT cannot remove the computation.
+ *
+ * @since XXX
+ */
+final class Bench {
+
+    private static final int WARMUP_RUNS = 20;
+    private static final int MEASURED_RUNS = 20;
+    @SuppressWarnings("unused")
+    private static volatile long sink;
+
+    private Bench() {
+        throw new AssertionError("No fr.byowares.game.miq.sim.bench.Bench instances for you!");
+    }
+
+    /**
+     * @param body the code to measure, returning any value depending on its computation
+     *
+     * @return the duration of the fastest run, in nanoseconds
+     */
+    static long bestNanos(final LongSupplier body) {
+        long accumulator = 0L;
+        for (int i = 0; i < WARMUP_RUNS; i++) accumulator += body.getAsLong();
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            final long begin = System.nanoTime();
+            accumulator += body.getAsLong();
+            best = Math.min(best, System.nanoTime() - begin);
+        }
+        sink = accumulator;
+        return best;
+    }
+
+    /**
+     * @param bytes the number of bytes produced by a run
+     * @param nanos the duration of the run
+     *
+     * @return the throughput in GB/s
+     */
+    static double gigabytesPerSecond(
+            final long bytes,
+            final long nanos
+    ) {
+        return bytes / (double) nanos;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.sim.bench;
+
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Entry point of the micro-benchmarks.
+ *
+ * @since XXX
+ */
+public final class Benchmarks {
+
+    private static final Map<String, Consumer<PrintStream>> BENCHMARKS = new LinkedHashMap<>();
+
+    static {
+        BENCHMARKS.put("range-codec", RangeCodecBenchmark::run);
+        BENCHMARKS.put("timeline-search", TimelineSearchBenchmark::run);
+        BENCHMARKS.put("radix-sort", RadixSortBenchmark::run);
+    }
+
+    private Benchmarks() {
+        throw new AssertionError("No fr.byowares.game.miq.sim.bench.Benchmarks instances for you!");
+    }
+
+    /**
+     * @param args the names of the benchmarks to run, all of them if empty
+     *
+     * @throws java.lang.IllegalArgumentException if and only if a benchmark name is unknown
+     */
+    public static void main(final String[] args) {
+        final String[] names = args.length == 0 ? BENCHMARKS.keySet().toArray(String[]::new) : args;
+        for (final String name : names) {
+            final Consumer<PrintStream> benchmark = BENCHMARKS.get(name);
+            if (benchmark == null)
+                throw new IllegalArgumentException("Unknown benchmark: " + name + ", expected one of " + BENCHMARKS.keySet());
+            benchmark.accept(System.out);
+        }
+    }
+}
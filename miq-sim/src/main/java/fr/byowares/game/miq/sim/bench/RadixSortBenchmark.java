@@ -0,0 +1,66 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.sim.bench;
+
+import fr.byowares.game.miq.core.TimeCodedLine;
+import fr.byowares.game.miq.core.timeline.RadixSort;
+import fr.byowares.game.miq.sim.TimelineGenerator;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * Speed of {@link fr.byowares.game.miq.core.timeline.RadixSort} against {@link java.util.Arrays#sort(Object[])} on
+ * the lines of many songs, as when building a catalog-wide sorted view.
+ *
+ * @since XXX
+ */
+final class RadixSortBenchmark {
+
+    private static final int[] SONGS = {100, 1_000, 10_000};
+    private static final int LINES_PER_SONG = 50;
+
+    private RadixSortBenchmark() {
+        throw new AssertionError("No fr.byowares.game.miq.sim.bench.RadixSortBenchmark instances for you!");
+    }
+
+    static void run(final PrintStream out) {
+        final SplittableRandom random = new SplittableRandom(42L);
+        out.printf("radix-sort: ms per sort of %d-line songs%n", LINES_PER_SONG);
+        out.printf("  %9s %10s %10s %10s%n", "lines", "sort", "radix", "parallel");
+        for (final int songs : SONGS) {
+            final List<TimeCodedLine> all = new ArrayList<>(songs * LINES_PER_SONG);
+            for (int s = 0; s < songs; s++) all.addAll(TimelineGenerator.generate(random, LINES_PER_SONG));
+            Collections.shuffle(all, new Random(random.nextLong()));
+            final TimeCodedLine[] lines = all.toArray(TimeCodedLine[]::new);
+
+            final long sortNanos = Bench.bestNanos(() -> {
+                final TimeCodedLine[] copy = lines.clone();
+                Arrays.sort(copy);
+                return copy[0].range().start();
+            });
+            final long radixNanos = Bench.bestNanos(() -> RadixSort.permutation(lines)[0]);
+            final long parallelNanos = Bench.bestNanos(() -> RadixSort.parallelPermutation(lines)[0]);
+            out.printf("  %9d %10.2f %10.2f %10.2f%n", lines.length, sortNanos / 1e6, radixNanos / 1e6,
+                       parallelNanos / 1e6);
+        }
+    }
+}
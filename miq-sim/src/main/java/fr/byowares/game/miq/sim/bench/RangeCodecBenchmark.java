@@ -0,0 +1,95 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.sim.bench;
+
+import fr.byowares.game.miq.core.Range;
+import fr.byowares.game.miq.core.TimeCodedLine;
+import fr.byowares.game.miq.core.timeline.RangeCodec;
+import fr.byowares.game.miq.sim.TimelineGenerator;
+
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Size and decoding speed of {@link fr.byowares.game.miq.core.timeline.RangeCodec} against raw pairs of longs.
+ *
+ * @since XXX
+ */
+final class RangeCodecBenchmark {
+
+    private static final int SONGS = 200;
+    private static final int LINES = 500;
+    private static final int BUFFER = 512;
+
+    private RangeCodecBenchmark() {
+        throw new AssertionError("No fr.byowares.game.miq.sim.bench.RangeCodecBenchmark instances for you!");
+    }
+
+    static void run(final PrintStream out) {
+        final SplittableRandom random = new SplittableRandom(42L);
+        final byte[][] encoded = new byte[SONGS][];
+        final ByteBuffer[] raw = new ByteBuffer[SONGS];
+        long encodedBytes = 0L;
+        for (int s = 0; s < SONGS; s++) {
+            final List<Range> ranges = TimelineGenerator.generate(random, LINES)
+                                                        .stream()
+                                                        .map(TimeCodedLine::range)
+                                                        .toList();
+            encoded[s] = RangeCodec.encode(ranges);
+            encodedBytes += encoded[s].length;
+            raw[s] = ByteBuffer.allocate(ranges.size() * 2 * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            for (final Range r : ranges) raw[s].putLong(r.start()).putLong(r.end());
+        }
+        final long ranges = (long) SONGS * LINES;
+        final long decodedBytes = ranges * 2L * Long.BYTES;
+        final long[] starts = new long[BUFFER];
+        final long[] ends = new long[BUFFER];
+
+        final long varintNanos = Bench.bestNanos(() -> {
+            long checksum = 0L;
+            for (final byte[] song : encoded) {
+                final RangeCodec.Decoder decoder = new RangeCodec.Decoder(song, 0);
+                int n;
+                while ((n = decoder.decode(starts, ends, 0, BUFFER)) > 0) checksum += ends[n - 1];
+            }
+            return checksum;
+        });
+        final long[] pairs = new long[2 * BUFFER];
+        final long rawNanos = Bench.bestNanos(() -> {
+            long checksum = 0L;
+            for (final ByteBuffer song : raw) {
+                final LongBuffer longs = song.clear().asLongBuffer();
+                while (longs.hasRemaining()) {
+                    final int n = Math.min(pairs.length, longs.remaining());
+                    longs.get(pairs, 0, n);
+                    checksum += pairs[n - 1];
+                }
+            }
+            return checksum;
+        });
+
+        out.printf("range-codec   : %d ranges%n", ranges);
+        out.printf("  varint      : %.2f bytes/range, decode %.2f GB/s (%.1f ns/range)%n",
+                   encodedBytes / (double) ranges, Bench.gigabytesPerSecond(decodedBytes, varintNanos),
+                   varintNanos / (double) ranges);
+        out.printf("  raw longs   : %.2f bytes/range, decode %.2f GB/s (%.1f ns/range)%n",
+                   2d * Long.BYTES, Bench.gigabytesPerSecond(decodedBytes, rawNanos), rawNanos / (double) ranges);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.sim.bench;
+
+import fr.byowares.game.miq.core.Range;
+import fr.byowares.game.miq.core.TimeCodedLine;
+import fr.byowares.game.miq.core.timeline.FrameTable;
+import fr.byowares.game.miq.core.timeline.TimelineIndex;
+import fr.byowares.game.miq.sim.TimelineGenerator;
+
+import java.io.PrintStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Speed of {@link fr.byowares.game.miq.core.timeline.TimelineIndex} searches and
+ * {@link fr.byowares.game.miq.core.timeline.FrameTable} lookups against
+ * {@link java.util.Collections#binarySearch(List, Object)} on the lines, for several timeline sizes.
+ * <p>
+ * The vector counting search is only measured when miq-vector is on the module path, see
+ * {@link fr.byowares.game.miq.core.timeline.TimelineIndex#isVectorAvailable()}.
+ *
+ * @since XXX
+ */
+final class TimelineSearchBenchmark {
+
+    private static final int[] SIZES = {8, 16, 32, 50, 128, 500, 5_000};
+    private static final int QUERIES = 4_096;
+    private static final long BUCKET_DURATION = 10L;
+
+    private TimelineSearchBenchmark() {
+        throw new AssertionError("No fr.byowares.game.miq.sim.bench.TimelineSearchBenchmark instances for you!");
+    }
+
+    static void run(final PrintStream out) {
+        final boolean vector = TimelineIndex.isVectorAvailable();
+        final SplittableRandom random = new SplittableRandom(42L);
+        out.printf("timeline-search: ns/lookup over %d random times%n", QUERIES);
+        if (!vector) out.println("  (vector not measured, build with -Pvector)");
+        out.printf("  %6s %14s %10s %10s %10s %10s%n", "lines", "binarySearch", "linear", "vector", "eytzinger",
+                   "frameTable");
+        for (final int size : SIZES) {
+            final List<TimeCodedLine> lines = TimelineGenerator.generate(random, size);
+            final long end = lines.getLast().range().end();
+            final long[] times = new long[QUERIES];
+            final TimeCodedLine[] probes = new TimeCodedLine[QUERIES];
+            for (int i = 0; i < QUERIES; i++) {
+                times[i] = random.nextLong(end);
+                // Sorts after every line starting at or before the time
+                probes[i] = new TimeCodedLine(Range.fromAbsoluteTimes(times[i], Long.MAX_VALUE), "");
+            }
+            final TimelineIndex linear = TimelineIndex.linear(lines);
+            final TimelineIndex eytzinger = TimelineIndex.eytzinger(lines);
+            final FrameTable table = FrameTable.of(lines, BUCKET_DURATION);
+
+            final long binaryNanos = Bench.bestNanos(() -> {
+                long checksum = 0L;
+                for (final TimeCodedLine probe : probes) checksum += -Collections.binarySearch(lines, probe) - 2;
+                return checksum;
+            });
+            final long linearNanos = Bench.bestNanos(() -> {
+                long checksum = 0L;
+                for (final long time : times) checksum += linear.floor(time);
+                return checksum;
+            });
+            String vectorNanos = "-";
+            if (vector) {
+                final TimelineIndex vectorIndex = TimelineIndex.vector(lines);
+                final long nanos = Bench.bestNanos(() -> {
+                    long checksum = 0L;
+                    for (final long time : times) checksum += vectorIndex.floor(time);
+                    return checksum;
+                });
+                vectorNanos = String.format("%.1f", nanos / (double) QUERIES);
+            }
+            final long eytzingerNanos = Bench.bestNanos(() -> {
+                long checksum = 0L;
+                for (final long time : times) checksum += eytzinger.floor(time);
+                return checksum;
+            });
+            final long tableNanos = Bench.bestNanos(() -> {
+                long checksum = 0L;
+                for (final long time : times) checksum += table.floor(time);
+                return checksum;
+            });
+            out.printf("  %6d %14.1f %10.1f %10s %10.1f %10.1f%n", size, binaryNanos / (double) QUERIES,
+                       linearNanos / (double) QUERIES, vectorNanos, eytzingerNanos / (double) QUERIES,
+                       tableNanos / (double) QUERIES);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.sim.footprint;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.IntConsumer;
+
+/**
+ * Count the bytes allocated by an operation on the current thread, with
+ * {@link com.sun.management.ThreadMXBean#getCurrentThreadAllocatedBytes()}.
+ * <p>
+ * The operation is first run enough times to be compiled, since the JIT removes allocations that do not escape,
+ * then measured over several rounds; the lowest round is kept, as noise only adds allocations.
+ *
+ * @since XXX
+ */
+public final class AllocationCounter {
+
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURED_ROUNDS = 5;
+
+    private final com.sun.management.ThreadMXBean threads;
+    private final int iterations;
+
+    /**
+     * @param iterations the number of times the operation is run in a round
+     *
+     * @throws java.lang.IllegalArgumentException    if and only if {@code iterations} is not strictly positive
+     * @throws java.lang.UnsupportedOperationException if and only if the JVM does not count allocations
+     */
+    public AllocationCounter(final int iterations) {
+        if (iterations <= 0)
+            throw new IllegalArgumentException("iterations (" + iterations + ") must be strictly positive");
+        this.threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!this.threads.isThreadAllocatedMemorySupported())
+            throw new UnsupportedOperationException("This JVM does not count allocated bytes");
+        this.threads.setThreadAllocatedMemoryEnabled(true);
+        this.iterations = iterations;
+    }
+
+    /**
+     * @param operation called with the iteration index, from {@code 0} to the number of iterations excluded
+     *
+     * @return the number of bytes allocated by a call to the operation
+     */
+    public double bytesPerOperation(final IntConsumer operation) {
+        for (int r = 0; r < WARMUP_ROUNDS; r++) this.round(operation);
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < MEASURED_ROUNDS; r++) best = Math.min(best, this.round(operation));
+        return best / (double) this.iterations;
+    }
+
+    private long round(final IntConsumer operation) {
+        final long before = this.threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < this.iterations; i++) operation.accept(i);
+        return this.threads.getCurrentThreadAllocatedBytes() - before;
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.sim.footprint;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+import fr.byowares.game.miq.core.KaraokeLine;
+import fr.byowares.game.miq.core.TimeCodedLine;
+import fr.byowares.game.miq.core.WordTimings;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.List;
+
+/**
+ * Estimate the size of objects as laid out by the running HotSpot JVM, in the manner of JOL.
+ * <p>
+ * The header, reference and alignment sizes are read from the VM options. An instance takes its header plus its
+ * fields, declared by the class and its superclasses, rounded up to the alignment; since JDK 15 HotSpot packs fields
+ * across the hierarchy, so this is exact unless fields leave holes. Field values are never read, so no access to
+ * the measured classes is required.
+ *
+ * @since XXX
+ */
+public final class ObjectLayout {
+
+    private final int headerBytes;
+    private final int arrayHeaderBytes;
+    private final int referenceBytes;
+    private final int alignment;
+    private final boolean compactStrings;
+
+    private ObjectLayout(
+            final boolean compressedOops,
+            final boolean compressedClassPointers,
+            final int alignment,
+            final boolean compactStrings
+    ) {
+        this.headerBytes = compressedClassPointers ? 12 : 16;
+        this.arrayHeaderBytes = this.headerBytes + 4;
+        this.referenceBytes = compressedOops ? 4 : 8;
+        this.alignment = alignment;
+        this.compactStrings = compactStrings;
+    }
+
+    /**
+     * @return the layout of the running JVM, or the default 64-bit layout if the VM options cannot be read
+     */
+    public static ObjectLayout current() {
+        final HotSpotDiagnosticMXBean vm = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+        return new ObjectLayout(flag(vm, "UseCompressedOops", "true"), flag(vm, "UseCompressedClassPointers", "true"),
+                                Integer.parseInt(option(vm, "ObjectAlignmentInBytes", "8")),
+                                flag(vm, "CompactStrings", "true"));
+    }
+
+    private static boolean flag(
+            final HotSpotDiagnosticMXBean vm,
+            final String name,
+            final String fallback
+    ) {
+        return Boolean.parseBoolean(option(vm, name, fallback));
+    }
+
+    private static String option(
+            final HotSpotDiagnosticMXBean vm,
+            final String name,
+            final String fallback
+    ) {
+        if (vm == null) return fallback;
+        try {
+            return vm.getVMOption(name).getValue();
+        } catch (final IllegalArgumentException e) {
+            // Unknown option on this JVM
+            return fallback;
+        }
+    }
+
+    private long align(final long bytes) {
+        return (bytes + this.alignment - 1) / this.alignment * this.alignment;
+    }
+
+    private int sizeOf(final Class<?> type) {
+        if (!type.isPrimitive()) return this.referenceBytes;
+        if (type == long.class || type == double.class) return 8;
+        if (type == int.class || type == float.class) return 4;
+        if (type == short.class || type == char.class) return 2;
+        return 1;
+    }
+
+    /**
+     * @param type a class, neither an array nor an interface
+     *
+     * @return the size of an instance of the class, not counting the objects it references
+     */
+    public long instanceSize(final Class<?> type) {
+        long bytes = this.headerBytes;
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            for (final Field field : c.getDeclaredFields())
+                if (!Modifier.isStatic(field.getModifiers())) bytes += this.sizeOf(field.getType());
+        }
+        return this.align(bytes);
+    }
+
+    /**
+     * @param componentType the type of the elements
+     * @param length        the number of elements
+     *
+     * @return the size of the array, not counting the objects it references
+     */
+    public long arraySize(
+            final Class<?> componentType,
+            final int length
+    ) {
+        return this.align(this.arrayHeaderBytes + (long) this.sizeOf(componentType) * length);
+    }
+
+    /**
+     * @param text a string
+     *
+     * @return the size of the string and of its internal array
+     */
+    public long stringSize(final String text) {
+        boolean latin1 = this.compactStrings;
+        for (int i = 0; i < text.length() && latin1; i++) latin1 = text.charAt(i) <= 0xFF;
+        return this.instanceSize(String.class) + this.arraySize(byte.class, latin1 ? text.length() : 2 * text.length());
+    }
+
+    /**
+     * The text of a line which is not a {@link java.lang.String} is counted as its class plus the string it renders
+     * to, e.g. the raw text of a {@link fr.byowares.game.miq.core.text.LyricText}.
+     *
+     * @param line a line
+     *
+     * @return the size of the line, its range and its text
+     */
+    public long lineSize(final TimeCodedLine line) {
+        long bytes = this.lineSizeWithoutText(line);
+        final CharSequence text = line.line();
+        if (!(text instanceof String)) bytes += this.instanceSize(text.getClass());
+        return bytes + this.stringSize(text.toString());
+    }
+
+    /**
+     * @param line a line
+     *
+     * @return the size of the line and its range
+     */
+    public long lineSizeWithoutText(final TimeCodedLine line) {
+        return this.instanceSize(TimeCodedLine.class) + this.instanceSize(line.range().getClass());
+    }
+
+    /**
+     * @param line a line with word timings
+     *
+     * @return the size of the karaoke line, its line and range, and its word timings unless shared
+     */
+    public long karaokeLineSizeWithoutText(final KaraokeLine line) {
+        long bytes = this.instanceSize(KaraokeLine.class) + this.lineSizeWithoutText(line.line());
+        final WordTimings words = line.words();
+        if (words != WordTimings.NONE)
+            bytes += this.instanceSize(WordTimings.class) + 2L * this.arraySize(int.class, 2 * words.size());
+        return bytes;
+    }
+
+    /**
+     * @param timeline a timeline
+     *
+     * @return the size of its lines and of a list holding them
+     */
+    public long timelineSize(final List<TimeCodedLine> timeline) {
+        long bytes = this.instanceSize(timeline.getClass()) + this.arraySize(Object.class, timeline.size());
+        for (final TimeCodedLine line : timeline) bytes += this.lineSize(line);
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        return "ObjectLayout[header=" + this.headerBytes + ", reference=" + this.referenceBytes + ", alignment=" +
+               this.alignment + "]";
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * @since XXX
+ */
+module fr.byowares.game.miq.sim {
+    exports fr.byowares.game.miq.sim;
+    exports fr.byowares.game.miq.sim.bench;
+    exports fr.byowares.game.miq.sim.footprint;
+    exports fr.byowares.game.miq.sim.info;
+
+    requires transitive fr.byowares.game.miq.core;
+    requires java.management;
+    requires jdk.management;
+}
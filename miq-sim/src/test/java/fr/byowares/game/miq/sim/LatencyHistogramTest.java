@@ -0,0 +1,55 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.sim;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void testEmpty() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0L, histogram.count());
+        assertEquals(0L, histogram.valueAt(99d));
+    }
+
+    @Test
+    void testBucketsAreContiguous() {
+        for (int b = 0; b < LatencyHistogram.bucketOf(Long.MAX_VALUE); b++) {
+            assertEquals(b, LatencyHistogram.bucketOf(LatencyHistogram.lowestValueOf(b)));
+            assertEquals(b, LatencyHistogram.bucketOf(LatencyHistogram.highestValueOf(b)));
+        }
+    }
+
+    @Test
+    void testPercentilesWithinPrecision() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (long v = 1L; v <= 10_000L; v++) histogram.record(v * 1_000L);
+        assertEquals(10_000L, histogram.count());
+        assertEquals(10_000_000L, histogram.max());
+        assertEquals(5_000_000d, histogram.valueAt(50d), 5_000_000d * 0.04d);
+        assertEquals(9_900_000d, histogram.valueAt(99d), 9_900_000d * 0.04d);
+        assertEquals(10_000_000L, histogram.valueAt(100d));
+    }
+
+    @Test
+    void testInvalidPercentile() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        assertThrows(IllegalArgumentException.class, () -> histogram.valueAt(101d));
+    }
+}
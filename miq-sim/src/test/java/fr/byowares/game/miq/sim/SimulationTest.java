@@ -0,0 +1,56 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.sim;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimulationTest {
+
+    private static SimulationConfig config(final double accuracy) {
+        return new SimulationConfig(4, 10, 5, accuracy, LatencyDistribution.uniform(100L, 3_000L), 2, 42L);
+    }
+
+    @Test
+    void testEveryAnswerIsProcessed() {
+        final SimulationReport report = new Simulation(config(0.5d), AnswerMatcher.EXACT_IGNORE_CASE).run();
+        assertEquals(4L * 10L * 5L, report.answers());
+        assertTrue(report.correctAnswers() > 0L);
+        assertTrue(report.correctAnswers() < report.answers());
+        assertTrue(report.elapsedNanos() > 0L);
+        assertTrue(report.latencies().p50() <= report.latencies().p99());
+        assertTrue(report.latencies().p99() <= report.latencies().max());
+    }
+
+    @Test
+    void testNormalizedMatcher() {
+        final SimulationReport report = new Simulation(config(1d), AnswerMatcher.NORMALIZED).run();
+        assertEquals(report.answers(), report.correctAnswers());
+    }
+
+    @Test
+    void testAccuracyBounds() {
+        assertEquals(0L, new Simulation(config(0d), AnswerMatcher.EXACT_IGNORE_CASE).run().correctAnswers());
+        assertEquals(200L, new Simulation(config(1d), AnswerMatcher.EXACT_IGNORE_CASE).run().correctAnswers());
+    }
+
+    @Test
+    void testInvalidConfig() {
+        final IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> config(1.5d));
+        assertEquals("accuracy (1.5) must be between 0 and 1", e.getMessage());
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.sim.footprint;
+
+import fr.byowares.game.miq.core.KaraokeLine;
+import fr.byowares.game.miq.core.Range;
+import fr.byowares.game.miq.core.TimeCodedLine;
+import fr.byowares.game.miq.core.WordTimings;
+import fr.byowares.game.miq.core.answer.AnswerHandler;
+import fr.byowares.game.miq.core.answer.AnswerRingBuffer;
+import fr.byowares.game.miq.core.cache.TimelineCache;
+import fr.byowares.game.miq.core.hint.HintBuffer;
+import fr.byowares.game.miq.core.hint.HintMasks;
+import fr.byowares.game.miq.core.text.LyricText;
+import fr.byowares.game.miq.core.timeline.FrameTable;
+import fr.byowares.game.miq.core.timeline.PersistentTimeline;
+import fr.byowares.game.miq.core.timeline.TimelineIndex;
+import fr.byowares.game.miq.core.timeline.WindowQueries;
+import fr.byowares.game.miq.sim.AnswerMatcher;
+import fr.byowares.game.miq.sim.TimelineGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Budgets on the memory used by the lines and on the allocations of the hot paths, for the default 64-bit HotSpot
+ * layout (compressed references, 8-byte alignment). A change exceeding a budget must either be reworked or come with
+ * the new budget, so that growths are deliberate.
+ */
+class FootprintBudgetTest {
+
+    private static final long RANGE_BYTES = 32L;
+    /** Line and range, words and text excluded */
+    private static final long LINE_BYTES = 56L;
+    /** Karaoke line, then line, range and word timings, text excluded */
+    private static final long LINE_WITH_TWO_WORDS_BYTES = 24L + LINE_BYTES + 24L + 2L * 32L;
+    private static final double LOOKUP_ALLOCATED_BYTES = 0d;
+    private static final double ANSWER_MATCH_ALLOCATED_BYTES = 0d;
+    private static final double ANSWER_INGESTION_ALLOCATED_BYTES = 0d;
+    private static final double HINT_RENDER_ALLOCATED_BYTES = 0d;
+
+    private static final ObjectLayout LAYOUT = ObjectLayout.current();
+    private static final int ITERATIONS = 10_000;
+
+    private static double allocatedBytesPerCall(final IntConsumer operation) {
+        return new AllocationCounter(ITERATIONS).bytesPerOperation(operation);
+    }
+
+    @Test
+    void testCounterSeesAllocations() {
+        // Guards the budgets below against a harness that would always report nothing
+        final Object[] sink = new Object[1];
+        final double allocated = allocatedBytesPerCall(i -> sink[0] = new long[16]);
+        assertEquals(LAYOUT.arraySize(long.class, 16), allocated, 1d);
+    }
+
+    @Test
+    void testRangeBudget() {
+        assertTrue(LAYOUT.instanceSize(Range.class) <= RANGE_BYTES,
+                   "Range takes " + LAYOUT.instanceSize(Range.class) + " bytes with " + LAYOUT);
+    }
+
+    @Test
+    void testLineBudget() {
+        final TimeCodedLine plain = new TimeCodedLine(Range.fromAbsoluteTimes(0L, 1_000L), "la la");
+        assertTrue(LAYOUT.lineSizeWithoutText(plain) <= LINE_BYTES,
+                   "A line takes " + LAYOUT.lineSizeWithoutText(plain) + " bytes with " + LAYOUT);
+        final WordTimings words = WordTimings.fromAbsoluteTimes(0L, new long[]{0L, 500L}, new long[]{400L, 1_000L},
+                                                                new int[]{0, 3}, new int[]{2, 5});
+        final KaraokeLine timed = new KaraokeLine(plain, words);
+        assertTrue(LAYOUT.karaokeLineSizeWithoutText(timed) <= LINE_WITH_TWO_WORDS_BYTES,
+                   "A line with 2 timed words takes " + LAYOUT.karaokeLineSizeWithoutText(timed) + " bytes with "
+                   + LAYOUT);
+    }
+
+    @Test
+    void testCacheWeightsFollowTheLayout() {
+        final List<TimeCodedLine> timeline = TimelineGenerator.generate(new SplittableRandom(48L), 200);
+        final long actual = LAYOUT.timelineSize(timeline);
+        final long estimated = TimelineCache.estimatedBytes(timeline);
+        assertTrue(estimated >= actual * 0.8d && estimated <= actual * 1.5d,
+                   "cache estimates " + estimated + " bytes for " + actual);
+    }
+
+    @Test
+    void testLookupAllocations() {
+        final SplittableRandom random = new SplittableRandom(49L);
+        final List<TimeCodedLine> timeline = TimelineGenerator.generate(random, 500);
+        final long[] times = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) times[i] = random.nextLong(timeline.getLast().range().end());
+        final TimelineIndex index = TimelineIndex.of(timeline);
+        final PersistentTimeline persistent = PersistentTimeline.of(timeline);
+        final WindowQueries windows = WindowQueries.of(timeline);
+        final FrameTable frames = FrameTable.of(timeline, 10L, 48_000L, 1_000L);
+        final long[] sink = new long[1];
+
+        assertBudget("TimelineIndex.lineAt", LOOKUP_ALLOCATED_BYTES,
+                     allocatedBytesPerCall(i -> sink[0] += index.lineAt(times[i])));
+        assertBudget("FrameTable.lineAtFrame", LOOKUP_ALLOCATED_BYTES,
+                     allocatedBytesPerCall(i -> sink[0] += frames.lineAtFrame(times[i] * 48L)));
+        assertBudget("PersistentTimeline.lineAt", LOOKUP_ALLOCATED_BYTES, allocatedBytesPerCall(i -> {
+            final TimeCodedLine line = persistent.lineAt(times[i]);
+            if (line != null) sink[0] += line.range().start();
+        }));
+        assertBudget("WindowQueries.coveredDuration", LOOKUP_ALLOCATED_BYTES,
+                     allocatedBytesPerCall(i -> sink[0] += windows.coveredDuration(times[i], times[i] + 10_000L)));
+        final WindowQueries.Cursor cursor = windows.cursor();
+        assertBudget("WindowQueries.Cursor", LOOKUP_ALLOCATED_BYTES, allocatedBytesPerCall(i -> {
+            cursor.reset(times[i], times[i] + 10_000L);
+            while (cursor.next()) sink[0] += cursor.overlapEnd() - cursor.overlapStart();
+        }));
+    }
+
+    @Test
+    void testAnswerAllocations() {
+        final List<TimeCodedLine> lines = new ArrayList<>();
+        for (final String text : List.of("Never gonna give you up", "Déjà vu, j'ai déjà vu", "L'été indien")) {
+            lines.add(new TimeCodedLine(Range.fromRelativeTimes(0L, 1_000L), new LyricText(text)));
+        }
+        final String[] guesses = {"never gonna give you up", "Deja vu j ai deja vu", "l'ete indienne"};
+        final boolean[] sink = new boolean[1];
+        assertBudget("AnswerMatcher.NORMALIZED", ANSWER_MATCH_ALLOCATED_BYTES, allocatedBytesPerCall(
+                i -> sink[0] ^= AnswerMatcher.NORMALIZED.matches(lines.get(i % 3), guesses[i % 3])));
+
+        final AnswerRingBuffer ring = new AnswerRingBuffer(1_024, 64);
+        final byte[] guess = guesses[0].getBytes(StandardCharsets.UTF_8);
+        final long[] received = new long[1];
+        final AnswerHandler handler = (event, endOfBatch) -> received[0] += event.playerId();
+        assertBudget("AnswerRingBuffer", ANSWER_INGESTION_ALLOCATED_BYTES, allocatedBytesPerCall(i -> {
+            ring.tryPublish(i, guess, 0, guess.length, i);
+            if ((i & 63) == 63) ring.drain(handler, 64);
+        }));
+    }
+
+    @Test
+    void testHintAllocations() {
+        final HintMasks masks = HintMasks.of("Never gonna give you up, never gonna let you down", 50L);
+        final HintBuffer buffer = new HintBuffer(masks.length());
+        final int[] sink = new int[1];
+        assertBudget("HintBuffer.render", HINT_RENDER_ALLOCATED_BYTES,
+                     allocatedBytesPerCall(i -> sink[0] += buffer.render(masks, i % (masks.steps() + 1)).charAt(0)));
+    }
+
+    private static void assertBudget(
+            final String operation,
+            final double budget,
+            final double actual
+    ) {
+        assertTrue(actual <= budget, operation + " allocates " + actual + " bytes per call, budget is " + budget);
+    }
+}
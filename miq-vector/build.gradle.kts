@@ -0,0 +1,28 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+plugins {
+    id("byogame.java-library")
+}
+
+dependencies {
+    implementation(project(":miq-core"))
+}
+
+// The vector API is incubating and javac warns whenever it is used, so this module is only built with -Pvector.
+if (!providers.gradleProperty("vector").isPresent) {
+    tasks.configureEach { enabled = false }
+}
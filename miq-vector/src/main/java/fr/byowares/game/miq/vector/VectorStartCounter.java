@@ -0,0 +1,55 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.vector;
+
+import fr.byowares.game.miq.core.timeline.StartCounter;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Count the starts at or before a time by comparing a whole vector of starts at a time, the remaining starts being
+ * compared one by one.
+ *
+ * @since XXX
+ */
+public final class VectorStartCounter
+        implements StartCounter {
+
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    /**
+     * Used by {@link java.util.ServiceLoader}.
+     */
+    public VectorStartCounter() {
+        // Stateless
+    }
+
+    @Override
+    public int countAtOrBefore(
+            final long[] starts,
+            final long time
+    ) {
+        final LongVector times = LongVector.broadcast(SPECIES, time);
+        final int bound = SPECIES.loopBound(starts.length);
+        int count = 0;
+        int i = 0;
+        for (; i < bound; i += SPECIES.length())
+            count += LongVector.fromArray(SPECIES, starts, i).compare(VectorOperators.LE, times).trueCount();
+        for (; i < starts.length; i++) count += starts[i] <= time ? 1 : 0;
+        return count;
+    }
+}
@@ -0,0 +1,28 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * @since XXX
+ */
+module fr.byowares.game.miq.vector {
+    exports fr.byowares.game.miq.vector;
+    exports fr.byowares.game.miq.vector.info;
+
+    requires transitive fr.byowares.game.miq.core;
+    requires jdk.incubator.vector;
+
+    provides fr.byowares.game.miq.core.timeline.StartCounter with fr.byowares.game.miq.vector.VectorStartCounter;
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.miq.vector;
+
+import fr.byowares.game.miq.core.Range;
+import fr.byowares.game.miq.core.TimeCodedLine;
+import fr.byowares.game.miq.core.timeline.TimelineIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VectorStartCounterTest {
+
+    /** Sorted lines, some of them starting together */
+    private static List<TimeCodedLine> linesStartingTogether(
+            final SplittableRandom random,
+            final int size
+    ) {
+        final List<TimeCodedLine> lines = new ArrayList<>();
+        long start = 0L;
+        for (int i = 0; i < size; i++) {
+            start += random.nextInt(4) == 0 ? 0L : random.nextLong(1L, 3_000L);
+            lines.add(new TimeCodedLine(Range.fromRelativeTimes(start, random.nextLong(2_000L)), "l" + i));
+        }
+        return lines;
+    }
+
+    @Test
+    void testCountAtOrBefore() {
+        final VectorStartCounter counter = new VectorStartCounter();
+        final long[] starts = {-5L, 0L, 0L, 3L, 10L, 10L, 10L, 11L, 20L, 21L, 22L};
+        assertEquals(0, counter.countAtOrBefore(starts, -6L));
+        assertEquals(3, counter.countAtOrBefore(starts, 0L));
+        assertEquals(7, counter.countAtOrBefore(starts, 10L));
+        assertEquals(starts.length, counter.countAtOrBefore(starts, Long.MAX_VALUE));
+        assertEquals(0, counter.countAtOrBefore(new long[0], 0L));
+    }
+
+    @Test
+    void testTimelineIndexUsesVectors() {
+        assertTrue(TimelineIndex.isVectorAvailable());
+        final SplittableRandom random = new SplittableRandom(43L);
+        // Sizes around the vector lengths, so that both the vector loop and the tail are covered
+        for (int size = 0; size <= 70; size++) {
+            final List<TimeCodedLine> lines = linesStartingTogether(random, size);
+            final TimelineIndex expected = TimelineIndex.linear(lines);
+            final TimelineIndex vector = TimelineIndex.vector(lines);
+            final TimelineIndex auto = TimelineIndex.of(lines);
+            final long last = size == 0 ? 0L : lines.getLast().range().end();
+            for (int i = 0; i < 500; i++) {
+                final long time = random.nextLong(-100L, last + 100L);
+                assertEquals(expected.floor(time), vector.floor(time), "size " + size + " at " + time);
+                assertEquals(expected.lineAt(time), auto.lineAt(time), "size " + size + " at " + time);
+            }
+        }
+    }
+}
@@ -21,4 +21,6 @@
 
 rootProject.name = "game"
 include("miq-core")
+include("miq-sim")
+include("miq-vector")
 include("utils")
@@ -17,3 +17,14 @@
 plugins {
     id("byogame.java-library")
 }
+
+val byoExt = rootProject.extensions.getByType(extension.BYOWaresExtension::class.java)
+val genMixedHashCodes = tasks.register<task.GenerateMixedHashCodesTask>("generateMixedHashCodes") {
+    groupId = byoExt.groupId
+    baseProjectName = byoExt.baseProjectName
+    versionsFile = byoExt.versionsFile.asFile
+    copyrightFile = byoExt.copyrightFile.asFile
+    maxArity = provider { 4 }
+}
+
+tasks.named(JavaPlugin.COMPILE_JAVA_TASK_NAME) { dependsOn(genMixedHashCodes) }
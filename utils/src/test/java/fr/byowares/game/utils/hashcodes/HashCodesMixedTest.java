@@ -0,0 +1,90 @@
+/*
+ * Copyright BYOWares
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.byowares.game.utils.hashcodes;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashCodesMixedTest {
+    private static final int MAX_ARITY = 4;
+    private static final int SAMPLES = 50;
+    private static final Object[] OBJECTS = {null, "", "miq", 42, -7L, 'c', Boolean.TRUE, Arrays.asList(1, 2)};
+
+    @Test
+    void testOverloadsCoverEveryMixedSignature() {
+        int count = 0;
+        for (final Method method : HashCodesMixed.class.getDeclaredMethods()) {
+            if (!isHash(method)) continue;
+            count++;
+            final Class<?>[] types = method.getParameterTypes();
+            assertTrue(types.length >= 2 && types.length <= MAX_ARITY, method.toString());
+            assertTrue(Arrays.stream(types).distinct().count() > 1, method + " is not mixed");
+        }
+        // Every sequence of int, long and Object of arity 2 to 4, except the single-type ones.
+        int expected = 0;
+        for (int arity = 2; arity <= MAX_ARITY; arity++) {
+            expected += (int) Math.pow(3, arity) - 3;
+        }
+        assertEquals(expected, count);
+    }
+
+    @Test
+    void testOverloadsMatchBoxedHashCodes() throws ReflectiveOperationException {
+        final SplittableRandom random = new SplittableRandom(39L);
+        for (final Method method : HashCodesMixed.class.getDeclaredMethods()) {
+            if (!isHash(method)) continue;
+            final Class<?>[] types = method.getParameterTypes();
+            final Class<?>[] objectTypes = new Class<?>[types.length];
+            Arrays.fill(objectTypes, Object.class);
+            final Method reference = HashCodes.class.getMethod("hash", objectTypes);
+            for (int i = 0; i < SAMPLES; i++) {
+                final Object[] args = new Object[types.length];
+                for (int j = 0; j < types.length; j++) {
+                    args[j] = sample(random, types[j]);
+                }
+                assertEquals(reference.invoke(null, args), method.invoke(null, args),
+                        method + " on " + Arrays.toString(args));
+            }
+        }
+    }
+
+    @Test
+    void testOverloadsResolveWithoutBoxing() {
+        assertEquals(HashCodes.hash(1, 2L), HashCodesMixed.hash(1, 2L));
+        assertEquals(HashCodes.hash("miq", 3L, null), HashCodesMixed.hash("miq", 3L, null));
+        assertEquals(HashCodes.hash(-1L, 0, "a", Long.MIN_VALUE), HashCodesMixed.hash(-1L, 0, "a", Long.MIN_VALUE));
+    }
+
+    private static boolean isHash(final Method method) {
+        final int modifiers = method.getModifiers();
+        return method.getName().equals("hash") && Modifier.isPublic(modifiers) && Modifier.isStatic(modifiers);
+    }
+
+    private static Object sample(
+            final SplittableRandom random,
+            final Class<?> type
+    ) {
+        if (type == int.class) return random.nextInt();
+        if (type == long.class) return random.nextLong();
+        return OBJECTS[random.nextInt(OBJECTS.length)];
+    }
+}